@@ -10,6 +10,7 @@
 
 package cn.glassfish.jaxb.runtime;
 
+import cn.glassfish.jaxb.core.Utils;
 import cn.glassfish.jaxb.core.WhiteSpaceProcessor;
 import jakarta.xml.bind.DatatypeConverter;
 import jakarta.xml.bind.DatatypeConverterInterface;
@@ -20,8 +21,12 @@ import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
@@ -341,16 +346,17 @@ public final class DatatypeConverterImpl implements DatatypeConverterInterface {
     }
 
     public static GregorianCalendar _parseDateTime(CharSequence s) {
-        String val = WhiteSpaceProcessor.trim(s).toString();
-        return getDatatypeFactory().newXMLGregorianCalendar(val).toGregorianCalendar();
+        return DateTimeConverter._parseCalendar(s);
     }
 
     public static String _printDateTime(Calendar val) {
-        return CalendarFormatter.doFormat("%Y-%M-%DT%h:%m:%s%z", val);
+        byte[] buf = new byte[DateTimeConverter.MAX_LENGTH];
+        return new String(buf, 0, DateTimeConverter._printDateTime(val, buf, 0), StandardCharsets.US_ASCII);
     }
 
     public static String _printDate(Calendar val) {
-        return CalendarFormatter.doFormat((new StringBuilder("%Y-%M-%D").append("%z")).toString(),val);
+        byte[] buf = new byte[DateTimeConverter.MAX_LENGTH];
+        return new String(buf, 0, DateTimeConverter._printDate(val, buf, 0), StandardCharsets.US_ASCII);
     }
 
     public static String _printInt(int val) {
@@ -361,6 +367,35 @@ public final class DatatypeConverterImpl implements DatatypeConverterInterface {
         return String.valueOf(val);
     }
 
+    /**
+     * Longest text that the methods printing numbers into a {@code byte[]} write.
+     */
+    public static final int MAX_NUMBER_LENGTH = 24;
+
+    /**
+     * Prints the value in ASCII, like {@link #_printLong(long)}.
+     *
+     * @return the index after the last byte written.
+     */
+    public static int _printLong(long val, byte[] out, int ptr) {
+        if (val == Long.MIN_VALUE) {
+            return printAscii(_printLong(val), out, ptr);
+        }
+        if (val < 0) {
+            out[ptr++] = '-';
+            val = -val;
+        }
+        int end = ptr + 1;
+        for (long x = val; x >= 10; x /= 10) {
+            end++;
+        }
+        for (int i = end - 1; i >= ptr; i--) {
+            out[i] = (byte) ('0' + val % 10);
+            val /= 10;
+        }
+        return end;
+    }
+
     public static String _printDecimal(BigDecimal val) {
         return val.toPlainString();
     }
@@ -378,6 +413,112 @@ public final class DatatypeConverterImpl implements DatatypeConverterInterface {
         return String.valueOf(v);
     }
 
+    private static final double[] DOUBLE_POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private static final float[] FLOAT_POW10 = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /**
+     * Prints the value in ASCII, exactly like {@link #_printDouble(double)}.
+     *
+     * <p>
+     * The values that {@link Double#toString(double)} prints without an exponent
+     * and with at most 15 significant digits, which are most of the values found in
+     * documents, are printed without creating a {@link String}. Their shortest
+     * decimal representation is the one with the fewest fraction digits that
+     * converts back to the same value, and those are tried one by one.
+     * {@code m / 10^k} is exact in {@code double} arithmetic for such values,
+     * so the check is exact as well.
+     *
+     * @return the index after the last byte written.
+     */
+    public static int _printDouble(double v, byte[] out, int ptr) {
+        double a = Math.abs(v);
+        if (a == 0 || (a >= 1e-3 && a < 1e7)) {
+            int start = ptr;
+            if (v < 0 || 1 / v < 0) {
+                out[ptr++] = '-';
+            }
+            if (a == (long) a) {
+                return printDecimal((long) a, 0, out, ptr);
+            }
+            for (int k = 1; k < DOUBLE_POW10.length; k++) {
+                double scaled = a * DOUBLE_POW10[k];
+                if (scaled >= 1e15) {
+                    break;
+                }
+                long m = Math.round(scaled);
+                if (m / DOUBLE_POW10[k] == a) {
+                    return printDecimal(m, k, out, ptr);
+                }
+            }
+            ptr = start;
+        }
+        return printAscii(_printDouble(v), out, ptr);
+    }
+
+    /**
+     * Prints the value in ASCII, exactly like {@link #_printFloat(float)}.
+     *
+     * @see #_printDouble(double, byte[], int)
+     * @return the index after the last byte written.
+     */
+    public static int _printFloat(float v, byte[] out, int ptr) {
+        float a = Math.abs(v);
+        if (a == 0 || (a >= 1e-3f && a < 1e7f)) {
+            int start = ptr;
+            if (v < 0 || 1 / v < 0) {
+                out[ptr++] = '-';
+            }
+            if (a == (int) a) {
+                return printDecimal((int) a, 0, out, ptr);
+            }
+            for (int k = 1; k < FLOAT_POW10.length; k++) {
+                float scaled = a * FLOAT_POW10[k];
+                if (scaled >= 1e7f) {
+                    break;
+                }
+                int m = Math.round(scaled);
+                if (m / FLOAT_POW10[k] == a) {
+                    return printDecimal(m, k, out, ptr);
+                }
+            }
+            ptr = start;
+        }
+        return printAscii(_printFloat(v), out, ptr);
+    }
+
+    /**
+     * Prints {@code unscaled / 10^scale} with exactly {@code scale} fraction digits,
+     * or with {@code ".0"} if the scale is 0.
+     */
+    private static int printDecimal(long unscaled, int scale, byte[] out, int ptr) {
+        long p = (long) DOUBLE_POW10[scale];
+        ptr = _printLong(unscaled / p, out, ptr);
+        out[ptr++] = '.';
+        if (scale == 0) {
+            out[ptr++] = '0';
+            return ptr;
+        }
+        long f = unscaled % p;
+        for (int i = ptr + scale - 1; i >= ptr; i--) {
+            out[i] = (byte) ('0' + f % 10);
+            f /= 10;
+        }
+        return ptr + scale;
+    }
+
+    private static int printAscii(String s, byte[] out, int ptr) {
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            out[ptr++] = (byte) s.charAt(i);
+        }
+        return ptr;
+    }
+
     public static String _printQName(QName val, NamespaceContext nsc) {
         // Double-check
         String qname;
@@ -491,6 +632,28 @@ public final class DatatypeConverterImpl implements DatatypeConverterInterface {
 
         // convert each quadruplet to three bytes.
         for (i = 0; i < len; i++) {
+            if (BULK_BASE64 && q == 0) {
+                // decode whole quadruplets at once, as long as they don't contain
+                // whitespace, padding or illegal chars. The rest goes char by char.
+                for (; i + 4 <= len; i += 4) {
+                    char c0 = text.charAt(i), c1 = text.charAt(i + 1), c2 = text.charAt(i + 2), c3 = text.charAt(i + 3);
+                    if ((c0 | c1 | c2 | c3) >= 128) {
+                        break;
+                    }
+                    int d0 = decodeMap[c0], d1 = decodeMap[c1], d2 = decodeMap[c2], d3 = decodeMap[c3];
+                    // -1 and PADDING both have one of these bits set
+                    if (((d0 | d1 | d2 | d3) & 0xC0) != 0) {
+                        break;
+                    }
+                    int bits = (d0 << 18) | (d1 << 12) | (d2 << 6) | d3;
+                    out[o++] = (byte) (bits >> 16);
+                    out[o++] = (byte) (bits >> 8);
+                    out[o++] = (byte) bits;
+                }
+                if (i == len) {
+                    break;
+                }
+            }
             char ch = text.charAt(i);
             byte v = decodeMap[ch];
 
@@ -521,8 +684,88 @@ public final class DatatypeConverterImpl implements DatatypeConverterInterface {
         System.arraycopy(out, 0, nb, 0, o);
         return nb;
     }
+    /**
+     * Decodes whole quadruplets from {@code in[start]} until the first whitespace,
+     * padding or illegal char, or until {@code out} is full.
+     *
+     * <p>
+     * This is the bulk part of base64 decoding, for decoders that see the
+     * text a chunk at a time. They need to handle the chars that this method
+     * stops at by themselves.
+     *
+     * @return
+     *      the number of chars consumed, which is always a multiple of 4.
+     *      {@code out[ptr]} to {@code out[ptr+n/4*3-1]} are filled with the decoded bytes.
+     *      0 if the bulk decoding is disabled.
+     */
+    public static int _parseBase64Quadruplets(char[] in, int start, int end, byte[] out, int ptr) {
+        if (!BULK_BASE64) {
+            return 0;
+        }
+        end = Math.min(end, start + (out.length - ptr) / 3 * 4);
+        int i = start;
+        for (; i + 4 <= end; i += 4) {
+            char c0 = in[i], c1 = in[i + 1], c2 = in[i + 2], c3 = in[i + 3];
+            if ((c0 | c1 | c2 | c3) >= 128) {
+                break;
+            }
+            int d0 = decodeMap[c0], d1 = decodeMap[c1], d2 = decodeMap[c2], d3 = decodeMap[c3];
+            // -1 and PADDING both have one of these bits set
+            if (((d0 | d1 | d2 | d3) & 0xC0) != 0) {
+                break;
+            }
+            int bits = (d0 << 18) | (d1 << 12) | (d2 << 6) | d3;
+            out[ptr++] = (byte) (bits >> 16);
+            out[ptr++] = (byte) (bits >> 8);
+            out[ptr++] = (byte) bits;
+        }
+        return i - start;
+    }
+
     private static final char[] encodeMap = initEncodeMap();
 
+    /**
+     * Base64 encoding of all the 12-bit values, two ASCII chars per entry,
+     * so that three bytes can be encoded with two lookups.
+     */
+    private static final short[] encodeMap2 = initEncodeMap2();
+
+    /**
+     * Reads and writes 8 bytes at once from/to byte[].
+     */
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /**
+     * Whether base64 is encoded and decoded with the bulk loops, which process
+     * several bytes at once, or with the plain byte-at-a-time loops.
+     *
+     * <p>
+     * The bulk loops are used unless the system property
+     * {@code cn.glassfish.jaxb.runtime.DatatypeConverterImpl.bulkBase64} is set to {@code false}.
+     */
+    static final boolean BULK_BASE64 = !"false".equals(Utils.getSystemProperty(DatatypeConverterImpl.class.getName() + ".bulkBase64"));
+
+    private static short[] initEncodeMap2() {
+        short[] map = new short[4096];
+        for (int i = 0; i < map.length; i++) {
+            map[i] = (short) ((encodeMap[i >> 6] << 8) | encodeMap[i & 0x3F]);
+        }
+        return map;
+    }
+
+    /**
+     * Encodes 6 bytes, which are the upper 48 bits of the given value,
+     * into 8 ASCII chars.
+     */
+    private static long encode6(long v) {
+        int hi = (int) (v >>> 40);
+        int lo = (int) (v >>> 16) & 0xFFFFFF;
+        return ((encodeMap2[hi >>> 12] & 0xFFFFL) << 48)
+                | ((encodeMap2[hi & 0xFFF] & 0xFFFFL) << 32)
+                | ((encodeMap2[lo >>> 12] & 0xFFFFL) << 16)
+                | (encodeMap2[lo & 0xFFF] & 0xFFFFL);
+    }
+
     private static char[] initEncodeMap() {
         char[] map = new char[64];
         int i;
@@ -572,8 +815,17 @@ public final class DatatypeConverterImpl implements DatatypeConverterInterface {
     public static int _printBase64Binary(byte[] input, int offset, int len, char[] buf, int ptr) {
         // encode elements until only 1 or 2 elements are left to encode
         int remaining = len;
-        int i;
-        for (i = offset;remaining >= 3; remaining -= 3, i += 3) {
+        int i = offset;
+        if (BULK_BASE64) {
+            // 6 bytes at a time. 8 bytes are read, so stop while there are at least 8 left
+            for (; remaining >= 8; remaining -= 6, i += 6) {
+                long v = encode6((long) LONG_BE.get(input, i));
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    buf[ptr++] = (char) ((v >>> shift) & 0xFF);
+                }
+            }
+        }
+        for (; remaining >= 3; remaining -= 3, i += 3) {
             buf[ptr++] = encode(input[i] >> 2);
             buf[ptr++] = encode(
                     ((input[i] & 0x3) << 4)
@@ -602,6 +854,16 @@ public final class DatatypeConverterImpl implements DatatypeConverterInterface {
     }
 
     public static void _printBase64Binary(byte[] input, int offset, int len, XMLStreamWriter output) throws XMLStreamException {
+        if (BULK_BASE64) {
+            // encode into a larger buffer to reduce the number of calls to the writer
+            char[] buf = new char[Math.min(((len + 2) / 3) * 4, 1024)];
+            int batchSize = buf.length / 4 * 3;
+            for (int i = offset; i < offset + len; i += batchSize) {
+                int n = _printBase64Binary(input, i, Math.min(batchSize, offset + len - i), buf, 0);
+                output.writeCharacters(buf, 0, n);
+            }
+            return;
+        }
         int remaining = len;
         int i;
         char[] buf = new char[4];
@@ -649,8 +911,14 @@ public final class DatatypeConverterImpl implements DatatypeConverterInterface {
     public static int _printBase64Binary(byte[] input, int offset, int len, byte[] out, int ptr) {
         byte[] buf = out;
         int remaining = len;
-        int i;
-        for (i=offset; remaining >= 3; remaining -= 3, i += 3 ) {
+        int i = offset;
+        if (BULK_BASE64) {
+            // 6 bytes at a time. 8 bytes are read, so stop while there are at least 8 left
+            for (; remaining >= 8; remaining -= 6, i += 6, ptr += 8) {
+                LONG_BE.set(buf, ptr, encode6((long) LONG_BE.get(input, i)));
+            }
+        }
+        for (; remaining >= 3; remaining -= 3, i += 3 ) {
             buf[ptr++] = encodeByte(input[i]>>2);
             buf[ptr++] = encodeByte(
                         ((input[i]&0x3)<<4) |
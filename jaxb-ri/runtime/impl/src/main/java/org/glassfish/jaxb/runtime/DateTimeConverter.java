@@ -0,0 +1,920 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime;
+
+import cn.glassfish.jaxb.core.WhiteSpaceProcessor;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Hand-written lexical parsers and printers for the {@code xs:dateTime} family
+ * and {@code xs:duration}, working on {@link java.time} types as well as
+ * {@link XMLGregorianCalendar} and {@link Calendar}.
+ *
+ * <p>
+ * Parsers read straight from the {@link CharSequence} given by the unmarshaller
+ * in a single pass, and printers write ASCII characters into a caller-supplied
+ * {@code byte[]}, much like {@link DatatypeConverterImpl#_printBase64Binary(byte[], int, int, byte[], int)}.
+ * Neither side goes through {@link javax.xml.datatype.DatatypeFactory} or
+ * intermediate strings.
+ *
+ * <p>
+ * For {@link java.time} types, years are handled as proleptic ISO years, so year 0
+ * is 1 BCE as in XML Schema 1.1. Values parsed into types that don't carry an offset (such as {@link LocalDateTime})
+ * ignore the timezone, and those that need one (such as {@link Instant}) assume UTC
+ * when the timezone is absent.
+ *
+ * <p>
+ * {@link XMLGregorianCalendar} and {@link Calendar} keep the XML Schema 1.0 semantics
+ * of {@link DatatypeFactory}. Their parsers handle {@code xs:dateTime}, {@code xs:date}
+ * and {@code xs:time} directly, and leave the other forms (such as {@code xs:gYear}),
+ * the year 0, {@code 24:00:00} and malformed input to {@link DatatypeFactory}, so that
+ * the results and the errors stay the same.
+ */
+public final class DateTimeConverter {
+
+    /**
+     * The maximum number of characters a printer in this class writes.
+     */
+    public static final int MAX_LENGTH = 48;
+
+    private DateTimeConverter() {}
+
+    public static Instant _parseInstant(CharSequence text) {
+        Lexer l = new Lexer(text, "dateTime");
+        l.parseDate();
+        l.expect('T');
+        l.parseTime();
+        l.parseTimeZone();
+        l.done();
+        long secs = LocalDate.of(l.year, l.month, l.day).toEpochDay() * SECONDS_PER_DAY
+                + l.secondOfDay();
+        if (l.tz != Lexer.NO_TZ)
+            secs -= l.tz * 60L;
+        return Instant.ofEpochSecond(secs, l.nano);
+    }
+
+    public static LocalDate _parseLocalDate(CharSequence text) {
+        Lexer l = new Lexer(text, "date");
+        l.parseDate();
+        l.parseTimeZone();
+        l.done();
+        return LocalDate.of(l.year, l.month, l.day);
+    }
+
+    public static LocalTime _parseLocalTime(CharSequence text) {
+        Lexer l = new Lexer(text, "time");
+        l.parseTime();
+        l.parseTimeZone();
+        l.done();
+        return l.toLocalTime();
+    }
+
+    public static LocalDateTime _parseLocalDateTime(CharSequence text) {
+        Lexer l = new Lexer(text, "dateTime");
+        l.parseDate();
+        l.expect('T');
+        l.parseTime();
+        l.parseTimeZone();
+        l.done();
+        return l.toLocalDateTime();
+    }
+
+    public static OffsetDateTime _parseOffsetDateTime(CharSequence text) {
+        Lexer l = new Lexer(text, "dateTime");
+        l.parseDate();
+        l.expect('T');
+        l.parseTime();
+        l.parseTimeZone();
+        l.done();
+        return OffsetDateTime.of(l.toLocalDateTime(), l.toZoneOffset());
+    }
+
+    public static ZonedDateTime _parseZonedDateTime(CharSequence text) {
+        Lexer l = new Lexer(text, "dateTime");
+        l.parseDate();
+        l.expect('T');
+        l.parseTime();
+        l.parseTimeZone();
+        l.done();
+        return ZonedDateTime.of(l.toLocalDateTime(), l.toZoneOffset());
+    }
+
+    /**
+     * Parses {@code xs:duration} into {@link Duration}.
+     *
+     * <p>
+     * Since {@link Duration} has no notion of years and months, those
+     * components are only accepted when they are zero.
+     */
+    public static Duration _parseDuration(CharSequence text) {
+        Lexer l = new Lexer(text, "duration");
+        boolean negative = l.skip('-');
+        l.expect('P');
+
+        long seconds = 0;
+        int nano = 0;
+        boolean seenComponent = false;
+        boolean inTime = false;
+        // designators in the order they have to appear
+        String order = "YMDTHMS";
+        int pos = 0;
+
+        while (!l.atEnd()) {
+            if (l.skip('T')) {
+                if (inTime)
+                    throw l.error();
+                inTime = true;
+                pos = order.indexOf('T') + 1;
+                if (l.atEnd())
+                    throw l.error();
+                continue;
+            }
+
+            long n = l.number();
+            int frac = 0;
+            boolean hasFrac = false;
+            if (l.skip('.')) {
+                hasFrac = true;
+                frac = l.fraction();
+            }
+            char designator = l.next();
+            int p = order.indexOf(designator, pos);
+            if (p < 0 || designator == 'T' || (inTime != p > order.indexOf('T')))
+                throw l.error();
+            if (hasFrac && designator != 'S')
+                throw l.error();
+            pos = p + 1;
+            seenComponent = true;
+
+            try {
+                seconds = addComponent(seconds, p, n);
+            } catch (ArithmeticException e) {
+                throw l.error();
+            }
+            if (p == 6)
+                nano = frac;
+        }
+        if (!seenComponent)
+            throw l.error();
+
+        Duration d = Duration.ofSeconds(seconds, nano);
+        return negative ? d.negated() : d;
+    }
+
+    /**
+     * Adds a component of {@code xs:duration}, identified by its position
+     * in the designator sequence {@code "YMDTHMS"}, to the given seconds.
+     */
+    private static long addComponent(long seconds, int p, long n) {
+        switch (p) {
+            case 0: // Y
+            case 1: // M (months)
+                if (n != 0)
+                    throw new IllegalArgumentException(
+                            "years and months cannot be represented as java.time.Duration");
+                return seconds;
+            case 2: // D
+                return Math.addExact(seconds, Math.multiplyExact(n, SECONDS_PER_DAY));
+            case 4: // H
+                return Math.addExact(seconds, Math.multiplyExact(n, 3600L));
+            case 5: // M (minutes)
+                return Math.addExact(seconds, Math.multiplyExact(n, 60L));
+            case 6: // S
+                return Math.addExact(seconds, n);
+            default:
+                throw new AssertionError(p);
+        }
+    }
+
+    /**
+     * Parses a member of the {@code xs:dateTime} family into {@link XMLGregorianCalendar}.
+     *
+     * <p>
+     * Equivalent to {@link DatatypeFactory#newXMLGregorianCalendar(String)}, except that
+     * the common forms are handed to the factory as already parsed fields.
+     */
+    public static XMLGregorianCalendar _parseXMLGregorianCalendar(CharSequence text) {
+        DatatypeFactory df = datatypeFactory();
+        Lexer l = lexCalendar(text);
+        if (l == null)
+            return df.newXMLGregorianCalendar(WhiteSpaceProcessor.trim(text).toString());
+
+        int undefined = DatatypeConstants.FIELD_UNDEFINED;
+        return df.newXMLGregorianCalendar(
+                l.hasDate ? BigInteger.valueOf(l.year) : null,
+                l.hasDate ? l.month : undefined,
+                l.hasDate ? l.day : undefined,
+                l.hasTime ? l.hour : undefined,
+                l.hasTime ? l.minute : undefined,
+                l.hasTime ? l.second : undefined,
+                l.hasTime ? l.fractionalSecond() : null,
+                l.tz == Lexer.NO_TZ ? undefined : l.tz);
+    }
+
+    // DatatypeConverterImpl is only deprecated as a public API
+    @SuppressWarnings("deprecation")
+    private static DatatypeFactory datatypeFactory() {
+        return DatatypeConverterImpl.getDatatypeFactory();
+    }
+
+    /**
+     * Parses a member of the {@code xs:dateTime} family into {@link GregorianCalendar}.
+     *
+     * <p>
+     * Equivalent to {@code newXMLGregorianCalendar(text).toGregorianCalendar()},
+     * without creating the intermediate {@link XMLGregorianCalendar}.
+     */
+    public static GregorianCalendar _parseCalendar(CharSequence text) {
+        Lexer l = lexCalendar(text);
+        if (l == null)
+            return datatypeFactory()
+                    .newXMLGregorianCalendar(WhiteSpaceProcessor.trim(text).toString())
+                    .toGregorianCalendar();
+
+        GregorianCalendar cal = new GregorianCalendar(l.toTimeZone(), Locale.getDefault());
+        cal.clear();
+        cal.setGregorianChange(PURE_GREGORIAN_CHANGE);
+        if (l.hasDate) {
+            cal.set(Calendar.ERA, l.year < 0 ? GregorianCalendar.BC : GregorianCalendar.AD);
+            cal.set(Calendar.YEAR, Math.abs(l.year));
+            cal.set(Calendar.MONTH, l.month - 1);
+            cal.set(Calendar.DAY_OF_MONTH, l.day);
+        }
+        if (l.hasTime) {
+            cal.set(Calendar.HOUR_OF_DAY, l.hour);
+            cal.set(Calendar.MINUTE, l.minute);
+            cal.set(Calendar.SECOND, l.second);
+            if (l.fracStart < l.fracEnd)
+                cal.set(Calendar.MILLISECOND, l.nano / 1000000);
+        }
+        return cal;
+    }
+
+    /**
+     * Runs the {@link Lexer} over {@code xs:dateTime}, {@code xs:date} or {@code xs:time}.
+     *
+     * @return
+     *      null if the text needs to be handled by {@link DatatypeFactory}.
+     */
+    private static Lexer lexCalendar(CharSequence text) {
+        Lexer l = new Lexer(text, "dateTime");
+        if (!l.looksLikeCalendar())
+            return null;
+        try {
+            if (l.peek(2) == ':') {
+                l.parseTime();
+            } else {
+                l.parseDate();
+                if (l.skip('T'))
+                    l.parseTime();
+            }
+            l.parseTimeZone();
+            l.done();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (l.hasDate && (l.year == 0 || l.day > maximumDayInMonth(l.year, l.month)))
+            return null;
+        if (l.hasTime && l.hour == 24)
+            return null;
+        return l;
+    }
+
+    private static int maximumDayInMonth(int year, int month) {
+        if (month == 2)
+            return (year % 400 == 0 || (year % 100 != 0 && year % 4 == 0)) ? 29 : 28;
+        return DAYS_IN_MONTH[month];
+    }
+
+    public static int _printInstant(Instant v, byte[] out, int ptr) {
+        long secs = v.getEpochSecond();
+        long day = Math.floorDiv(secs, SECONDS_PER_DAY);
+        int secOfDay = (int) Math.floorMod(secs, SECONDS_PER_DAY);
+        ptr = printDate(LocalDate.ofEpochDay(day), out, ptr);
+        out[ptr++] = 'T';
+        ptr = printTime(secOfDay / 3600, (secOfDay / 60) % 60, secOfDay % 60, v.getNano(), out, ptr);
+        out[ptr++] = 'Z';
+        return ptr;
+    }
+
+    public static int _printLocalDate(LocalDate v, byte[] out, int ptr) {
+        return printDate(v, out, ptr);
+    }
+
+    public static int _printLocalTime(LocalTime v, byte[] out, int ptr) {
+        return printTime(v, out, ptr);
+    }
+
+    public static int _printLocalDateTime(LocalDateTime v, byte[] out, int ptr) {
+        ptr = printDate(v.toLocalDate(), out, ptr);
+        out[ptr++] = 'T';
+        return printTime(v.toLocalTime(), out, ptr);
+    }
+
+    public static int _printOffsetDateTime(OffsetDateTime v, byte[] out, int ptr) {
+        if (v.getOffset().getTotalSeconds() % 60 != 0) {
+            // XML Schema can't represent sub-minute offsets
+            v = v.withOffsetSameInstant(ZoneOffset.UTC);
+        }
+        ptr = _printLocalDateTime(v.toLocalDateTime(), out, ptr);
+        return printTimeZone(v.getOffset().getTotalSeconds() / 60, out, ptr);
+    }
+
+    public static int _printZonedDateTime(ZonedDateTime v, byte[] out, int ptr) {
+        return _printOffsetDateTime(v.toOffsetDateTime(), out, ptr);
+    }
+
+    public static int _printDuration(Duration v, byte[] out, int ptr) {
+        long secs = v.getSeconds();
+        int nano = v.getNano();
+        if (secs < 0) {
+            out[ptr++] = '-';
+            if (nano > 0) {
+                secs++;
+                nano = NANOS_PER_SECOND - nano;
+            }
+            // -Long.MIN_VALUE overflows to itself, which is still right as an unsigned number
+            secs = -secs;
+        }
+        out[ptr++] = 'P';
+
+        long days = Long.divideUnsigned(secs, SECONDS_PER_DAY);
+        int secOfDay = (int) Long.remainderUnsigned(secs, SECONDS_PER_DAY);
+        if (days > 0) {
+            ptr = printNumber(days, out, ptr);
+            out[ptr++] = 'D';
+            if (secOfDay == 0 && nano == 0)
+                return ptr;
+        }
+        out[ptr++] = 'T';
+        int h = secOfDay / 3600;
+        int m = (secOfDay / 60) % 60;
+        int s = secOfDay % 60;
+        if (h > 0) {
+            ptr = printNumber(h, out, ptr);
+            out[ptr++] = 'H';
+        }
+        if (m > 0) {
+            ptr = printNumber(m, out, ptr);
+            out[ptr++] = 'M';
+        }
+        if (s > 0 || nano > 0 || (h == 0 && m == 0)) {
+            ptr = printNumber(s, out, ptr);
+            ptr = printFraction(nano, out, ptr);
+            out[ptr++] = 'S';
+        }
+        return ptr;
+    }
+
+    /**
+     * Prints {@link Calendar} as {@code xs:dateTime}.
+     */
+    public static int _printDateTime(Calendar v, byte[] out, int ptr) {
+        ptr = printDate(v, out, ptr, false);
+        out[ptr++] = 'T';
+        ptr = printTwoDigits(v.get(Calendar.HOUR_OF_DAY), out, ptr);
+        out[ptr++] = ':';
+        ptr = printTwoDigits(v.get(Calendar.MINUTE), out, ptr);
+        out[ptr++] = ':';
+        ptr = printTwoDigits(v.get(Calendar.SECOND), out, ptr);
+        if (v.isSet(Calendar.MILLISECOND)) {
+            int ms = v.get(Calendar.MILLISECOND);
+            if (ms != 0) {
+                out[ptr++] = '.';
+                out[ptr++] = (byte) ('0' + ms / 100);
+                ptr = printTwoDigits(ms % 100, out, ptr);
+            }
+        }
+        return printTimeZone(v, out, ptr);
+    }
+
+    /**
+     * Prints {@link Calendar} as {@code xs:date}.
+     */
+    public static int _printDate(Calendar v, byte[] out, int ptr) {
+        return printDate(v, out, ptr, true);
+    }
+
+    private static int printDate(Calendar v, byte[] out, int ptr, boolean withTimeZone) {
+        int year = v.get(Calendar.YEAR);
+        ptr = printYear(year <= 0 ? -(1 - year) : year, out, ptr);
+        out[ptr++] = '-';
+        ptr = printTwoDigits(v.get(Calendar.MONTH) + 1, out, ptr);
+        out[ptr++] = '-';
+        ptr = printTwoDigits(v.get(Calendar.DAY_OF_MONTH), out, ptr);
+        return withTimeZone ? printTimeZone(v, out, ptr) : ptr;
+    }
+
+    private static int printTimeZone(Calendar v, byte[] out, int ptr) {
+        TimeZone tz = v.getTimeZone();
+        if (tz == null)
+            return ptr;
+        // offset is in milli-seconds
+        int offset = tz.getOffset(v.getTimeInMillis());
+        if (offset == 0) {
+            out[ptr++] = 'Z';
+            return ptr;
+        }
+        // the sign comes from the exact offset, so a sub-minute offset prints as "+00:00" or "-00:00"
+        out[ptr++] = (byte) (offset < 0 ? '-' : '+');
+        return printOffset(Math.abs(offset) / (60 * 1000), out, ptr);
+    }
+
+    /**
+     * Returns the maximum number of characters
+     * {@link #_printXMLGregorianCalendar(XMLGregorianCalendar, String, byte[], int)} writes.
+     */
+    public static int maxLength(XMLGregorianCalendar v, String format) {
+        int len = MAX_LENGTH + format.length();
+        if (v.getEon() != null)
+            len += v.getEonAndYear().bitLength();
+        BigDecimal f = v.getFractionalSecond();
+        if (f != null)
+            len += Math.max(f.scale(), 0);
+        return len;
+    }
+
+    /**
+     * Prints {@link XMLGregorianCalendar} according to the given format string,
+     * where {@code %Y}, {@code %M}, {@code %D}, {@code %h}, {@code %m}, {@code %s} and {@code %z}
+     * stand for the year, month, day, hour, minute, second and timezone, and all the
+     * other characters are copied as they are.
+     *
+     * <p>
+     * The caller must provide a buffer that can hold {@link #maxLength(XMLGregorianCalendar, String)}
+     * characters.
+     */
+    public static int _printXMLGregorianCalendar(XMLGregorianCalendar v, String format, byte[] out, int ptr) {
+        int fidx = 0, flen = format.length();
+        while (fidx < flen) {
+            char fch = format.charAt(fidx++);
+            if (fch != '%') { // not a meta char
+                out[ptr++] = (byte) fch;
+                continue;
+            }
+
+            switch (format.charAt(fidx++)) {
+                case 'Y':
+                    if (v.getEon() == null) {
+                        ptr = printYear(v.getYear(), out, ptr);
+                    } else {
+                        byte[] year = v.getEonAndYear().toString().getBytes(StandardCharsets.US_ASCII);
+                        System.arraycopy(year, 0, out, ptr, year.length);
+                        ptr += year.length;
+                    }
+                    break;
+                case 'M':
+                    ptr = printTwoDigits(v.getMonth(), out, ptr);
+                    break;
+                case 'D':
+                    ptr = printTwoDigits(v.getDay(), out, ptr);
+                    break;
+                case 'h':
+                    ptr = printTwoDigits(v.getHour(), out, ptr);
+                    break;
+                case 'm':
+                    ptr = printTwoDigits(v.getMinute(), out, ptr);
+                    break;
+                case 's':
+                    ptr = printTwoDigits(v.getSecond(), out, ptr);
+                    if (v.getFractionalSecond() != null)
+                        ptr = printFraction(v.getFractionalSecond(), out, ptr);
+                    break;
+                case 'z':
+                    int offset = v.getTimezone();
+                    if (offset != DatatypeConstants.FIELD_UNDEFINED)
+                        ptr = printTimeZone(offset, out, ptr);
+                    break;
+                default:
+                    throw new InternalError();  // impossible
+            }
+        }
+        return ptr;
+    }
+
+    /**
+     * Prints the fractional second of {@link XMLGregorianCalendar}, keeping its precision.
+     */
+    private static int printFraction(BigDecimal f, byte[] out, int ptr) {
+        int scale = f.scale();
+        if (scale <= 0)
+            return ptr;
+        out[ptr++] = '.';
+        BigInteger unscaled = f.unscaledValue();
+        if (unscaled.bitLength() < 63) {
+            long n = unscaled.longValue();
+            for (int i = ptr + scale - 1; i >= ptr; i--) {
+                out[i] = (byte) ('0' + n % 10);
+                n /= 10;
+            }
+        } else {
+            String digits = unscaled.toString();
+            int pad = scale - digits.length();
+            for (int i = 0; i < pad; i++)
+                out[ptr + i] = '0';
+            for (int i = 0; i < digits.length(); i++)
+                out[ptr + pad + i] = (byte) digits.charAt(i);
+        }
+        return ptr + scale;
+    }
+
+    private static int printDate(LocalDate d, byte[] out, int ptr) {
+        ptr = printYear(d.getYear(), out, ptr);
+        out[ptr++] = '-';
+        ptr = printTwoDigits(d.getMonthValue(), out, ptr);
+        out[ptr++] = '-';
+        return printTwoDigits(d.getDayOfMonth(), out, ptr);
+    }
+
+    private static int printTime(LocalTime t, byte[] out, int ptr) {
+        return printTime(t.getHour(), t.getMinute(), t.getSecond(), t.getNano(), out, ptr);
+    }
+
+    private static int printTime(int h, int m, int s, int nano, byte[] out, int ptr) {
+        ptr = printTwoDigits(h, out, ptr);
+        out[ptr++] = ':';
+        ptr = printTwoDigits(m, out, ptr);
+        out[ptr++] = ':';
+        ptr = printTwoDigits(s, out, ptr);
+        return printFraction(nano, out, ptr);
+    }
+
+    /**
+     * Prints the timezone offset, given in minutes.
+     */
+    static int printTimeZone(int offset, byte[] out, int ptr) {
+        if (offset == 0) {
+            out[ptr++] = 'Z';
+            return ptr;
+        }
+        if (offset < 0) {
+            out[ptr++] = '-';
+            offset = -offset;
+        } else {
+            out[ptr++] = '+';
+        }
+        return printOffset(offset, out, ptr);
+    }
+
+    /**
+     * Prints a non-negative timezone offset, given in minutes, as {@code hh:mm}.
+     */
+    private static int printOffset(int offset, byte[] out, int ptr) {
+        ptr = printTwoDigits(offset / 60, out, ptr);
+        out[ptr++] = ':';
+        return printTwoDigits(offset % 60, out, ptr);
+    }
+
+    /**
+     * Prints the year with at least four digits.
+     */
+    static int printYear(int year, byte[] out, int ptr) {
+        long y = year;
+        if (y < 0) {
+            out[ptr++] = '-';
+            y = -y;
+        }
+        for (long l = 1000; l > y && l > 1; l /= 10)
+            out[ptr++] = '0';
+        return printNumber(y, out, ptr);
+    }
+
+    /**
+     * Prints the fractional second, without trailing zeros.
+     * Nothing is printed if the fraction is zero.
+     */
+    static int printFraction(int nano, byte[] out, int ptr) {
+        if (nano == 0)
+            return ptr;
+        out[ptr++] = '.';
+        int digits = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            digits--;
+        }
+        for (int i = ptr + digits - 1; i >= ptr; i--) {
+            out[i] = (byte) ('0' + nano % 10);
+            nano /= 10;
+        }
+        return ptr + digits;
+    }
+
+    static int printTwoDigits(int n, byte[] out, int ptr) {
+        // n is always non-negative and less than 100
+        out[ptr++] = (byte) ('0' + n / 10);
+        out[ptr++] = (byte) ('0' + n % 10);
+        return ptr;
+    }
+
+    /**
+     * Prints a non-negative number.
+     */
+    static int printNumber(long n, byte[] out, int ptr) {
+        int digits = 1;
+        for (long l = n; l >= 10; l /= 10)
+            digits++;
+        for (int i = ptr + digits - 1; i >= ptr; i--) {
+            out[i] = (byte) ('0' + n % 10);
+            n /= 10;
+        }
+        return ptr + digits;
+    }
+
+    private static final long SECONDS_PER_DAY = 86400L;
+    private static final int[] DAYS_IN_MONTH = {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final Date PURE_GREGORIAN_CHANGE = new Date(Long.MIN_VALUE);
+    private static final int NANOS_PER_SECOND = 1000000000;
+
+    /**
+     * Single-pass scanner over the lexical space of the {@code xs:dateTime} family.
+     *
+     * <p>
+     * Each {@code parseXXX} method consumes its part of the input and fills
+     * the corresponding fields, reporting malformed input as
+     * {@link IllegalArgumentException}.
+     */
+    static final class Lexer {
+        /**
+         * Value of {@link #tz} when the timezone is absent.
+         */
+        static final int NO_TZ = Integer.MIN_VALUE;
+
+        private final CharSequence text;
+        private final String typeName;
+        private int idx;
+        private final int end;
+
+        boolean hasDate, hasTime;
+        int year, month, day;
+        int hour, minute, second, nano;
+        /**
+         * Range of the fractional second digits in {@link #text},
+         * or {@code fracStart==fracEnd} if there's none.
+         */
+        int fracStart, fracEnd;
+        /**
+         * Timezone offset in minutes, or {@link #NO_TZ}.
+         */
+        int tz = NO_TZ;
+
+        Lexer(CharSequence text, String typeName) {
+            this.text = text;
+            this.typeName = typeName;
+            // XML Schema allows leading and trailing whitespace
+            int s = 0, e = text.length();
+            while (s < e && WhiteSpaceProcessor.isWhiteSpace(text.charAt(s)))
+                s++;
+            while (e > s && WhiteSpaceProcessor.isWhiteSpace(text.charAt(e - 1)))
+                e--;
+            this.idx = s;
+            this.end = e;
+        }
+
+        void parseDate() {
+            boolean negative = skip('-');
+            int start = idx;
+            long y = number();
+            int digits = idx - start;
+            if (digits < 4 || digits > 9 || (digits > 4 && text.charAt(start) == '0'))
+                throw error();
+            year = (int) (negative ? -y : y);
+            expect('-');
+            month = twoDigits();
+            expect('-');
+            day = twoDigits();
+            if (month < 1 || month > 12 || day < 1 || day > 31)
+                throw error();
+            hasDate = true;
+        }
+
+        void parseTime() {
+            hour = twoDigits();
+            expect(':');
+            minute = twoDigits();
+            expect(':');
+            second = twoDigits();
+            fracStart = fracEnd = idx;
+            if (skip('.')) {
+                fracStart = idx;
+                nano = fraction();
+                fracEnd = idx;
+            }
+            if (hour > 24 || minute > 59 || second > 59)
+                throw error();
+            if (hour == 24 && (minute != 0 || second != 0 || !isFractionZero()))
+                throw error();
+            hasTime = true;
+        }
+
+        void parseTimeZone() {
+            if (atEnd())
+                return;
+            char ch = next();
+            if (ch == 'Z') {
+                tz = 0;
+                return;
+            }
+            if (ch != '+' && ch != '-')
+                throw error();
+            int h = twoDigits();
+            expect(':');
+            int m = twoDigits();
+            if (m > 59 || h > 14 || (h == 14 && m != 0))
+                throw error();
+            tz = h * 60 + m;
+            if (ch == '-')
+                tz = -tz;
+        }
+
+        void done() {
+            if (!atEnd())
+                throw error();
+        }
+
+        boolean isFractionZero() {
+            for (int i = fracStart; i < fracEnd; i++)
+                if (text.charAt(i) != '0')
+                    return false;
+            return true;
+        }
+
+        int secondOfDay() {
+            return hour * 3600 + minute * 60 + second;
+        }
+
+        LocalTime toLocalTime() {
+            if (hour == 24)
+                return LocalTime.MIDNIGHT;
+            return LocalTime.of(hour, minute, second, nano);
+        }
+
+        LocalDateTime toLocalDateTime() {
+            LocalDate date = LocalDate.of(year, month, day);
+            if (hour == 24)
+                return LocalDateTime.of(date.plusDays(1), LocalTime.MIDNIGHT);
+            return LocalDateTime.of(date, LocalTime.of(hour, minute, second, nano));
+        }
+
+        /**
+         * Fractional second with the precision of the lexical form, or null if absent.
+         */
+        BigDecimal fractionalSecond() {
+            int digits = fracEnd - fracStart;
+            if (digits == 0)
+                return null;
+            if (digits <= 18) {
+                long n = 0;
+                for (int i = fracStart; i < fracEnd; i++)
+                    n = n * 10 + (text.charAt(i) - '0');
+                return BigDecimal.valueOf(n, digits);
+            }
+            return new BigDecimal("0." + text.subSequence(fracStart, fracEnd));
+        }
+
+        /**
+         * {@link TimeZone} the same way as {@link XMLGregorianCalendar#getTimeZone(int)} does.
+         */
+        TimeZone toTimeZone() {
+            if (tz == NO_TZ)
+                return TimeZone.getDefault();
+            int offset = Math.abs(tz);
+            byte[] id = {'G', 'M', 'T', (byte) (tz < 0 ? '-' : '+'), 0, 0, ':', 0, 0};
+            printTwoDigits(offset / 60, id, 4);
+            printTwoDigits(offset % 60, id, 7);
+            return TimeZone.getTimeZone(new String(id, StandardCharsets.US_ASCII));
+        }
+
+        ZoneOffset toZoneOffset() {
+            if (tz == NO_TZ || tz == 0)
+                return ZoneOffset.UTC;
+            return ZoneOffset.ofTotalSeconds(tz * 60);
+        }
+
+        boolean atEnd() {
+            return idx >= end;
+        }
+
+        /**
+         * Returns the character at the given offset from the current position,
+         * or 0 if that's beyond the end.
+         */
+        char peek(int offset) {
+            int i = idx + offset;
+            return i < end ? text.charAt(i) : 0;
+        }
+
+        /**
+         * Cheap check that rules out the forms that start with {@code "--"}
+         * ({@code xs:gMonth}, {@code xs:gDay} and {@code xs:gMonthDay}) or are
+         * too short to be {@code xs:date} or {@code xs:time}, before any exception
+         * is thrown.
+         */
+        boolean looksLikeCalendar() {
+            return end - idx >= 8 && !(peek(0) == '-' && peek(1) == '-');
+        }
+
+        char next() {
+            if (atEnd())
+                throw error();
+            return text.charAt(idx++);
+        }
+
+        boolean skip(char ch) {
+            if (idx < end && text.charAt(idx) == ch) {
+                idx++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char ch) {
+            if (!skip(ch))
+                throw error();
+        }
+
+        int twoDigits() {
+            return digit() * 10 + digit();
+        }
+
+        private int digit() {
+            char ch = next();
+            if (ch < '0' || ch > '9')
+                throw error();
+            return ch - '0';
+        }
+
+        /**
+         * Reads one or more digits as a non-negative number.
+         */
+        long number() {
+            int start = idx;
+            long n = 0;
+            while (idx < end) {
+                char ch = text.charAt(idx);
+                if (ch < '0' || ch > '9')
+                    break;
+                if (n > (Long.MAX_VALUE - 9) / 10)
+                    throw error();
+                n = n * 10 + (ch - '0');
+                idx++;
+            }
+            if (idx == start)
+                throw error();
+            return n;
+        }
+
+        /**
+         * Reads one or more digits after the decimal point and returns them
+         * as nanoseconds. Digits beyond nanosecond precision are truncated.
+         */
+        int fraction() {
+            int start = idx;
+            int n = 0;
+            while (idx < end) {
+                char ch = text.charAt(idx);
+                if (ch < '0' || ch > '9')
+                    break;
+                if (idx - start < 9)
+                    n = n * 10 + (ch - '0');
+                idx++;
+            }
+            int digits = idx - start;
+            if (digits == 0)
+                throw error();
+            for (; digits < 9; digits++)
+                n *= 10;
+            return n;
+        }
+
+        IllegalArgumentException error() {
+            return new IllegalArgumentException("'" + text + "' is not a valid xs:" + typeName + " value");
+        }
+    }
+}
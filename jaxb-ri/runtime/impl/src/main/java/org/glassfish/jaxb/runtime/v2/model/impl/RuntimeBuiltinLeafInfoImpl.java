@@ -14,6 +14,7 @@ import com.sun.istack.ByteArrayDataSource;
 import cn.glassfish.jaxb.core.Utils;
 import cn.glassfish.jaxb.core.WhiteSpaceProcessor;
 import cn.glassfish.jaxb.runtime.DatatypeConverterImpl;
+import cn.glassfish.jaxb.runtime.DateTimeConverter;
 import cn.glassfish.jaxb.runtime.api.AccessorException;
 import cn.glassfish.jaxb.core.v2.TODO;
 import cn.glassfish.jaxb.core.v2.WellKnownNamespace;
@@ -23,6 +24,7 @@ import cn.glassfish.jaxb.runtime.v2.runtime.Transducer;
 import cn.glassfish.jaxb.runtime.v2.runtime.XMLSerializer;
 import cn.glassfish.jaxb.runtime.v2.runtime.output.Pcdata;
 import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.Base64Data;
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.DateTimeData;
 import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.UnmarshallingContext;
 import cn.glassfish.jaxb.runtime.v2.util.ByteArrayOutputStreamEx;
 import cn.glassfish.jaxb.runtime.v2.util.DataSourceSource;
@@ -60,8 +62,17 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -153,6 +164,74 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
 
     }
 
+    /**
+     * Those built-in types that print to {@link DateTimeData}.
+     *
+     * <p>
+     * When the value is written right away, the {@link DateTimeData}
+     * cached by the {@link XMLSerializer} is used, so that marshalling
+     * a value doesn't allocate a buffer.
+     */
+    // getTransducer() is inherited with the raw return type of all the built-in leaves
+    @SuppressWarnings("unchecked")
+    private static abstract class DateTimeImpl<T> extends RuntimeBuiltinLeafInfoImpl<T> {
+        protected DateTimeImpl(Class<T> type, QName... typeNames) {
+            super(type,typeNames);
+        }
+
+        /**
+         * Prints the value into the given {@link DateTimeData} and returns it.
+         */
+        protected abstract DateTimeData print(T o, DateTimeData data);
+
+        @Override
+        public final DateTimeData print(T o) {
+            return print(o,new DateTimeData());
+        }
+
+        @Override
+        public final void writeText(XMLSerializer w, T o, String fieldName) throws IOException, SAXException, XMLStreamException {
+            w.text(print(o,w.getCachedDateTimeData()),fieldName);
+        }
+
+        @Override
+        public final void writeLeafElement(XMLSerializer w, Name tagName, T o, String fieldName) throws IOException, SAXException, XMLStreamException {
+            w.leafElement(tagName,print(o,w.getCachedDateTimeData()),fieldName);
+        }
+    }
+
+    /**
+     * Those {@link java.time} types that {@link DateTimeConverter} parses
+     * and {@link DateTimeData} prints.
+     */
+    // getTransducer() is inherited with the raw return type of all the built-in leaves
+    @SuppressWarnings("unchecked")
+    private static final class JavaTimeImpl<T> extends DateTimeImpl<T> {
+        private final Function<CharSequence,T> parser;
+        private final BiFunction<DateTimeData,T,DateTimeData> printer;
+
+        JavaTimeImpl(Class<T> type, QName typeName, Function<CharSequence,T> parser, BiFunction<DateTimeData,T,DateTimeData> printer) {
+            super(type,typeName);
+            this.parser = parser;
+            this.printer = printer;
+        }
+
+        @Override
+        public T parse(CharSequence text) throws SAXException {
+            try {
+                return parser.apply(text);
+            } catch (IllegalArgumentException | DateTimeException e) {
+                UnmarshallingContext.getInstance().handleError(e);
+                return null;
+            }
+        }
+
+        @Override
+        protected DateTimeData print(T v, DateTimeData data) {
+            return printer.apply(data,v);
+        }
+    }
+
     /**
      * All instances of {@link RuntimeBuiltinLeafInfoImpl}s keyed by their type.
      */
@@ -244,44 +323,44 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                 }
             });
         secondaryList.add(
-            new StringImpl<Calendar>(Calendar.class, DatatypeConstants.DATETIME) {
+            new DateTimeImpl<Calendar>(Calendar.class, DatatypeConstants.DATETIME) {
                 @Override
                 public Calendar parse(CharSequence text) {
-                    return DatatypeConverterImpl._parseDateTime(text.toString());
+                    return DatatypeConverterImpl._parseDateTime(text);
                 }
                 @Override
-                public String print(Calendar v) {
-                    return DatatypeConverterImpl._printDateTime(v);
+                protected DateTimeData print(Calendar v, DateTimeData data) {
+                    return data.setDateTime(v);
                 }
             });
         secondaryList.add(
-            new StringImpl<GregorianCalendar>(GregorianCalendar.class, DatatypeConstants.DATETIME) {
+            new DateTimeImpl<GregorianCalendar>(GregorianCalendar.class, DatatypeConstants.DATETIME) {
                 @Override
                 public GregorianCalendar parse(CharSequence text) {
-                    return DatatypeConverterImpl._parseDateTime(text.toString());
+                    return DatatypeConverterImpl._parseDateTime(text);
                 }
                 @Override
-                public String print(GregorianCalendar v) {
-                    return DatatypeConverterImpl._printDateTime(v);
+                protected DateTimeData print(GregorianCalendar v, DateTimeData data) {
+                    return data.setDateTime(v);
                 }
             });
         secondaryList.add(
-            new StringImpl<Date>(Date.class, DatatypeConstants.DATETIME) {
+            new DateTimeImpl<Date>(Date.class, DatatypeConstants.DATETIME) {
                 @Override
                 public Date parse(CharSequence text) {
-                    return DatatypeConverterImpl._parseDateTime(text.toString()).getTime();
+                    return DatatypeConverterImpl._parseDateTime(text).getTime();
                 }
                 @Override
-                public String print(Date v) {
+                protected DateTimeData print(Date v, DateTimeData data) {
                     XMLSerializer xs = XMLSerializer.getInstance();
                     QName type = xs.getSchemaType();
                     GregorianCalendar cal = new GregorianCalendar(0,0,0);
                     cal.setTime(v);
                     if ((type != null) && (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(type.getNamespaceURI())) &&
                             DATE.equals(type.getLocalPart())) {
-                        return DatatypeConverterImpl._printDate(cal);
+                        return data.setDate(cal);
                     } else {
-                        return DatatypeConverterImpl._printDateTime(cal);
+                        return data.setDateTime(cal);
                     }
                 }
             });
@@ -544,8 +623,26 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                     return bd;
                 }
             });
+        /*
+            java.time types. Defined before XMLGregorianCalendar
+            so that the latter stays the primary binding of those XML types.
+        */
+        secondaryList.add(new JavaTimeImpl<Instant>(Instant.class, DatatypeConstants.DATETIME,
+                DateTimeConverter::_parseInstant, DateTimeData::set));
+        secondaryList.add(new JavaTimeImpl<LocalDateTime>(LocalDateTime.class, DatatypeConstants.DATETIME,
+                DateTimeConverter::_parseLocalDateTime, DateTimeData::set));
+        secondaryList.add(new JavaTimeImpl<OffsetDateTime>(OffsetDateTime.class, DatatypeConstants.DATETIME,
+                DateTimeConverter::_parseOffsetDateTime, DateTimeData::set));
+        secondaryList.add(new JavaTimeImpl<ZonedDateTime>(ZonedDateTime.class, DatatypeConstants.DATETIME,
+                DateTimeConverter::_parseZonedDateTime, DateTimeData::set));
+        secondaryList.add(new JavaTimeImpl<LocalDate>(LocalDate.class, DatatypeConstants.DATE,
+                DateTimeConverter::_parseLocalDate, DateTimeData::set));
+        secondaryList.add(new JavaTimeImpl<LocalTime>(LocalTime.class, DatatypeConstants.TIME,
+                DateTimeConverter::_parseLocalTime, DateTimeData::set));
+        secondaryList.add(new JavaTimeImpl<java.time.Duration>(java.time.Duration.class, createXS("duration"),
+                DateTimeConverter::_parseDuration, DateTimeData::set));
         secondaryList.add(
-            new StringImpl<XMLGregorianCalendar>(XMLGregorianCalendar.class,
+            new DateTimeImpl<XMLGregorianCalendar>(XMLGregorianCalendar.class,
                     createXS("anySimpleType"),
                     DatatypeConstants.DATE,
                     DatatypeConstants.DATETIME,
@@ -557,7 +654,7 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                     DatatypeConstants.GMONTHDAY
                 ) {
                 @Override
-                public String print(XMLGregorianCalendar cal) {
+                protected DateTimeData print(XMLGregorianCalendar cal, DateTimeData data) {
                     XMLSerializer xs = XMLSerializer.getInstance();
 
                     QName type = xs.getSchemaType();
@@ -566,100 +663,35 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                             checkXmlGregorianCalendarFieldRef(type, cal);
                             String format = xmlGregorianCalendarFormatString.get(type);
                             if (format != null) {
-                                return format(format, cal);
+                                return data.set(cal, format);
                             }
                         } catch (jakarta.xml.bind.MarshalException e) {
                             // see issue 649
                             xs.handleEvent(new ValidationEventImpl(ValidationEvent.WARNING, e.getMessage(),
                                 xs.getCurrentLocation(null) ));
-                            return "";
+                            return data.set("");
+                        }
+                    } else {
+                        // same as cal.toXMLFormat(), except for gMonth, whose format is configurable
+                        type = cal.getXMLSchemaType();
+                        String format = xmlGregorianCalendarFormatString.get(type);
+                        if (format != null && !DatatypeConstants.GMONTH.equals(type)) {
+                            return data.set(cal, format);
                         }
                     }
-                    return cal.toXMLFormat();
+                    return data.set(cal.toXMLFormat());
                 }
 
                 @Override
                 public XMLGregorianCalendar parse(CharSequence lexical) throws SAXException {
                     try {
-                        return DatatypeConverterImpl.getDatatypeFactory()
-                                .newXMLGregorianCalendar(lexical.toString().trim()); // (.trim() - issue 396)
+                        return DateTimeConverter._parseXMLGregorianCalendar(lexical);
                     } catch (Exception e) {
                         UnmarshallingContext.getInstance().handleError(e);
                         return null;
                     }
                 }
 
-                // code duplicated from JAXP RI 1.3. See 6277586
-                private String format( String format, XMLGregorianCalendar value ) {
-                    StringBuilder buf = new StringBuilder();
-                    int fidx=0,flen=format.length();
-
-                    while(fidx<flen) {
-                        char fch = format.charAt(fidx++);
-                        if(fch!='%') {// not a meta char
-                            buf.append(fch);
-                            continue;
-                        }
-
-                        switch(format.charAt(fidx++)) {
-                        case 'Y':
-                            printNumber(buf,value.getEonAndYear(), 4);
-                            break;
-                        case 'M':
-                            printNumber(buf,value.getMonth(),2);
-                            break;
-                        case 'D':
-                            printNumber(buf,value.getDay(),2);
-                            break;
-                        case 'h':
-                            printNumber(buf,value.getHour(),2);
-                            break;
-                        case 'm':
-                            printNumber(buf,value.getMinute(),2);
-                            break;
-                        case 's':
-                            printNumber(buf,value.getSecond(),2);
-                    if (value.getFractionalSecond() != null) {
-                        String frac = value.getFractionalSecond().toPlainString();
-                        //skip leading zero.
-                        buf.append(frac.substring(1, frac.length()));
-                    }
-                            break;
-                        case 'z':
-                    int offset = value.getTimezone();
-                            if(offset == 0) {
-                        buf.append('Z');
-                    } else if (offset != DatatypeConstants.FIELD_UNDEFINED) {
-                        if(offset<0) {
-                        buf.append('-');
-                        offset *= -1;
-                        } else {
-                        buf.append('+');
-                        }
-                        printNumber(buf,offset/60,2);
-                                buf.append(':');
-                                printNumber(buf,offset%60,2);
-                            }
-                            break;
-                        default:
-                            throw new InternalError();  // impossible
-                        }
-                    }
-
-                    return buf.toString();
-                }
-                private void printNumber( StringBuilder out, BigInteger number, int nDigits) {
-                    String s = number.toString();
-                    for( int i=s.length(); i<nDigits; i++ )
-                        out.append('0');
-                    out.append(s);
-                }
-                private void printNumber( StringBuilder out, int number, int nDigits ) {
-                    String s = String.valueOf(number);
-                    for( int i=s.length(); i<nDigits; i++ )
-                        out.append('0');
-                    out.append(s);
-                }
                 @Override
                 public QName getTypeName(XMLGregorianCalendar cal) {
                     return cal.getXMLSchemaType();
@@ -715,6 +747,16 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                 public String print(Byte v) {
                     return DatatypeConverterImpl._printByte(v);
                 }
+
+                @Override
+                public void writeText(XMLSerializer w, Byte v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.text(v.intValue(),fieldName);
+                }
+
+                @Override
+                public void writeLeafElement(XMLSerializer w, Name tagName, Byte v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.leafElement(tagName,v.intValue(),fieldName);
+                }
             });
         primaryList.add(new StringImpl<Short>(Short.class,
                 createXS("short"),
@@ -729,6 +771,16 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                 public String print(Short v) {
                     return DatatypeConverterImpl._printShort(v);
                 }
+
+                @Override
+                public void writeText(XMLSerializer w, Short v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.text(v.intValue(),fieldName);
+                }
+
+                @Override
+                public void writeLeafElement(XMLSerializer w, Name tagName, Short v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.leafElement(tagName,v.intValue(),fieldName);
+                }
             });
         primaryList.add(new StringImpl<Integer>(Integer.class,
                 createXS("int"),
@@ -743,6 +795,16 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                 public String print(Integer v) {
                     return DatatypeConverterImpl._printInt(v);
                 }
+
+                @Override
+                public void writeText(XMLSerializer w, Integer v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.text(v.intValue(),fieldName);
+                }
+
+                @Override
+                public void writeLeafElement(XMLSerializer w, Name tagName, Integer v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.leafElement(tagName,v.intValue(),fieldName);
+                }
             });
         primaryList.add(
             new StringImpl<Long>(Long.class,
@@ -758,6 +820,16 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                 public String print(Long v) {
                     return DatatypeConverterImpl._printLong(v);
                 }
+
+                @Override
+                public void writeText(XMLSerializer w, Long v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.text(v.longValue(),fieldName);
+                }
+
+                @Override
+                public void writeLeafElement(XMLSerializer w, Name tagName, Long v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.leafElement(tagName,v.longValue(),fieldName);
+                }
             });
         primaryList.add(
             new StringImpl<Float>(Float.class,
@@ -772,6 +844,16 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                 public String print(Float v) {
                     return DatatypeConverterImpl._printFloat(v);
                 }
+
+                @Override
+                public void writeText(XMLSerializer w, Float v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.text(v.floatValue(),fieldName);
+                }
+
+                @Override
+                public void writeLeafElement(XMLSerializer w, Name tagName, Float v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.leafElement(tagName,v.floatValue(),fieldName);
+                }
             });
         primaryList.add(
             new StringImpl<Double>(Double.class,
@@ -786,6 +868,16 @@ public abstract class RuntimeBuiltinLeafInfoImpl<T> extends BuiltinLeafInfoImpl<
                 public String print(Double v) {
                     return DatatypeConverterImpl._printDouble(v);
                 }
+
+                @Override
+                public void writeText(XMLSerializer w, Double v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.text(v.doubleValue(),fieldName);
+                }
+
+                @Override
+                public void writeLeafElement(XMLSerializer w, Name tagName, Double v, String fieldName) throws IOException, SAXException, XMLStreamException {
+                    w.leafElement(tagName,v.doubleValue(),fieldName);
+                }
             });
         primaryList.add(
             new StringImpl<BigInteger>(BigInteger.class,
@@ -10,10 +10,8 @@
 
 package cn.glassfish.jaxb.runtime.v2.runtime;
 
-import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Bi-directional map between elements, inner peers,
@@ -35,6 +33,13 @@ public final class AssociationMap<XmlNode> {
         private Object inner;
         /** outer peer, or null. */
         private Object outer;
+        /**
+         * Property values of the inner peer when it was last in sync with the element,
+         * or null if unknown.
+         *
+         * @see BinderImpl
+         */
+        private Object snapshot;
 
         public XmlNode element() {
         	return element;
@@ -45,11 +50,16 @@ public final class AssociationMap<XmlNode> {
         public Object outer() {
         	return outer;
         }
+        Object snapshot() {
+            return snapshot;
+        }
+        void snapshot(Object snapshot) {
+            this.snapshot = snapshot;
+        }
     }
 
     private final Map<XmlNode,Entry<XmlNode>> byElement = new IdentityHashMap<>();
     private final Map<Object,Entry<XmlNode>> byPeer = new IdentityHashMap<>();
-    private final Set<XmlNode> usedNodes = new HashSet<>();
 
     /** Records the new {@code element <->inner} peer association. */
     public void addInner( XmlNode element, Object inner ) {
@@ -64,10 +74,11 @@ public final class AssociationMap<XmlNode> {
             e.inner = inner;
         }
 
+        e.snapshot = null;
         byElement.put(element,e);
 
         Entry<XmlNode> old = byPeer.put(inner,e);
-        if(old!=null) {
+        if(old!=null && old!=e) {
             if(old.outer!=null)
                 byPeer.remove(old.outer);
             if(old.element!=null)
@@ -91,7 +102,7 @@ public final class AssociationMap<XmlNode> {
         byElement.put(element,e);
 
         Entry<XmlNode> old = byPeer.put(outer,e);
-        if(old!=null) {
+        if(old!=null && old!=e) {
             old.outer=null;
 
             if(old.inner==null)
@@ -100,8 +111,17 @@ public final class AssociationMap<XmlNode> {
         }
     }
 
-    public void addUsed( XmlNode n ) {
-        usedNodes.add(n);
+    /**
+     * Forgets the associations of an element that is no longer in the document,
+     * unless its peers have already been associated with another element.
+     */
+    public void remove( XmlNode element ) {
+        Entry<XmlNode> e = byElement.remove(element);
+        if(e==null)     return;
+        if(e.inner!=null && byPeer.get(e.inner)==e)
+            byPeer.remove(e.inner);
+        if(e.outer!=null && byPeer.get(e.outer)==e)
+            byPeer.remove(e.outer);
     }
 
     public Entry<XmlNode> byElement( Object e ) {
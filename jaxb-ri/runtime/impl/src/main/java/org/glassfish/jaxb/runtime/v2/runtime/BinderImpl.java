@@ -11,6 +11,8 @@
 package cn.glassfish.jaxb.runtime.v2.runtime;
 
 import cn.glassfish.jaxb.core.unmarshaller.InfosetScanner;
+import cn.glassfish.jaxb.runtime.api.AccessorException;
+import cn.glassfish.jaxb.runtime.v2.runtime.property.Property;
 import cn.glassfish.jaxb.runtime.v2.runtime.output.DOMOutput;
 import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.InterningXmlVisitor;
 import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.SAXConnector;
@@ -20,8 +22,20 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 
+import javax.xml.datatype.XMLGregorianCalendar;
 import javax.xml.namespace.QName;
 import javax.xml.validation.Schema;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of {@link Binder}.
@@ -35,6 +49,21 @@ import javax.xml.validation.Schema;
  */
 public class BinderImpl<XmlNode> extends Binder<XmlNode> {
 
+    /**
+     * Property that makes {@link #updateXML(Object, Object)} only re-marshal
+     * the beans that have changed since they were last synchronized with their elements.
+     *
+     * <p>
+     * The value is a {@link Boolean}, {@code false} by default. When enabled, the binder
+     * keeps a shallow copy of the property values of every bean it unmarshals or marshals.
+     * Beans are compared by identity and other values with {@code equals},
+     * so a bean is found to have changed when a property is set to another value,
+     * or when a child bean is added, removed or replaced. Arrays and dates are copied,
+     * so changing them in place is seen too. Beans that hold DOM content, or values
+     * whose class doesn't override {@code equals}, are always re-marshalled.
+     */
+    public static final String INCREMENTAL_UPDATE = "cn.glassfish.jaxb.runtime.incrementalUpdate";
+
     /**
      * The parent context object.
      */
@@ -60,6 +89,11 @@ public class BinderImpl<XmlNode> extends Binder<XmlNode> {
      */
     private final AssociationMap<XmlNode> assoc = new AssociationMap<>();
 
+    /**
+     * @see #INCREMENTAL_UPDATE
+     */
+    private boolean incrementalUpdate;
+
     BinderImpl(JAXBContextImpl _context,InfosetScanner<XmlNode> scanner) {
         this.context = _context;
         this.scanner = scanner;
@@ -81,12 +115,14 @@ public class BinderImpl<XmlNode> extends Binder<XmlNode> {
     public void marshal(Object jaxbObject, XmlNode xmlNode) throws JAXBException {
         if ((xmlNode == null) || (jaxbObject == null))
             throw new IllegalArgumentException();
-        getMarshaller().marshal(jaxbObject,createOutput(xmlNode));
+        getMarshaller().marshal(jaxbObject,createOutput((Node)xmlNode));
+        if(incrementalUpdate)
+            snapshot(jaxbObject);
     }
 
     // TODO move this to a sub class once we support something other than W3C DOM
-    private DOMOutput createOutput(XmlNode xmlNode) {
-        return new DOMOutput((Node)xmlNode,assoc);
+    private DOMOutput createOutput(Node node) {
+        return new DOMOutput(node,assoc);
     }
 
 
@@ -134,7 +170,10 @@ public class BinderImpl<XmlNode> extends Binder<XmlNode> {
             throw unmarshaller.createUnmarshalException(e);
         }
 
-        return handler.getContext().getResult();
+        Object result = handler.getContext().getResult();
+        if(incrementalUpdate && result!=null)
+            snapshot(result);
+        return result;
     }
 
     @Override
@@ -165,6 +204,128 @@ public class BinderImpl<XmlNode> extends Binder<XmlNode> {
     public XmlNode updateXML(Object jaxbObject, XmlNode xmlNode) throws JAXBException {
         if(jaxbObject==null || xmlNode==null)   throw new IllegalArgumentException();
 
+        if(incrementalUpdate)
+            return update(jaxbObject,xmlNode);
+
+        return replace(jaxbObject,xmlNode,null);
+    }
+
+    /**
+     * Re-marshals the bean if it has changed since the last time it was synchronized,
+     * or otherwise looks for changes in its child beans.
+     */
+    private XmlNode update(Object jaxbObject, XmlNode xmlNode) throws JAXBException {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        visited.add(jaxbObject);
+        Snapshot s = unchanged(jaxbObject,xmlNode);
+        if(s!=null && updateChildren(xmlNode,s,visited))
+            return xmlNode;
+
+        XmlNode newNode = replace(jaxbObject,xmlNode,null);
+        snapshot(jaxbObject);
+        return newNode;
+    }
+
+    /**
+     * @return
+     *      the current state of the bean if it hasn't changed since it was last
+     *      synchronized with the element, or null.
+     */
+    private Snapshot unchanged(Object jaxbObject, XmlNode xmlNode) {
+        AssociationMap.Entry<XmlNode> e = assoc.byPeer(jaxbObject);
+        if(e==null || e.element()!=xmlNode || e.inner()!=jaxbObject || e.snapshot()==null)
+            return null;
+        Snapshot s = new Snapshot(context);
+        s.addBean(jaxbObject);
+        return s.isSameAs(e.snapshot()) ? s : null;
+    }
+
+    /**
+     * Brings the elements of the child beans of an unchanged bean up to date.
+     *
+     * A changed child is re-marshalled on its own, with the name and the declared type of
+     * the property that holds it, so that it's written as the property would write it.
+     *
+     * @return
+     *      false if a child bean is new, or can't be re-marshalled on its own,
+     *      in which case the bean has to be re-marshalled as a whole.
+     */
+    private boolean updateChildren(XmlNode xmlNode, Snapshot s, Set<Object> visited) throws JAXBException {
+        for (int i = 0; i < s.children.size(); i++) {
+            Object child = s.children.get(i);
+            AssociationMap.Entry<XmlNode> e = assoc.byPeer(child);
+            if(e==null)
+                return false;
+            XmlNode childNode = e.element();
+            if(!isChildElement(xmlNode,childNode) || !visited.add(child))
+                // the target of an IDREF, which is updated where it is
+                continue;
+
+            Snapshot cs = unchanged(child,childNode);
+            if(cs!=null && updateChildren(childNode,cs,visited))
+                continue;
+            JaxBeanInfo<?> declared = getDeclaredBeanInfo(s.owners.get(i),child,childNode);
+            if(declared==null)
+                return false;
+            replace(child,childNode,declared);
+            snapshot(child);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the element of a bean is in the content of the given element,
+     * possibly inside wrapper elements, rather than in the content of another bean.
+     */
+    private boolean isChildElement(XmlNode parent, XmlNode child) {
+        for(Node n = ((Node)child).getParentNode(); n!=null; n = n.getParentNode()) {
+            if(n==parent)
+                return true;
+            if(assoc.byElement(n)!=null)
+                return false;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the type that a child bean is declared with where its element is.
+     *
+     * @param owner
+     *      the {@link Property} that holds the child, or the declared type of
+     *      the {@link JAXBElement} that holds it.
+     * @return
+     *      null if it isn't known.
+     */
+    private JaxBeanInfo<?> getDeclaredBeanInfo(Object owner, Object child, XmlNode childNode) {
+        Element e = (Element)childNode;
+        String nsUri = e.getNamespaceURI()==null ? "" : e.getNamespaceURI();
+        if(owner instanceof Class)
+            return context.getBeanInfo((Class<?>)owner);
+        if(owner instanceof Property) {
+            JaxBeanInfo<?> bi = ((Property<?>)owner).getElementBeanInfo(nsUri,e.getLocalName());
+            if(bi!=null)
+                return bi;
+        }
+        // a reference to an element of its own
+        JaxBeanInfo<?> bi = context.getBeanInfo(child);
+        if(bi!=null && bi.isElement() && hasName(bi,child,nsUri,e.getLocalName()))
+            return bi;
+        return null;
+    }
+
+    private static <T> boolean hasName(JaxBeanInfo<T> bi, Object bean, String nsUri, String localName) {
+        T t = bi.jaxbType.cast(bean);
+        return nsUri.equals(bi.getElementNamespaceURI(t)) && localName.equals(bi.getElementLocalName(t));
+    }
+
+    /**
+     * Replaces the element with a new one marshalled from the given object.
+     *
+     * @param declared
+     *      the type the object is declared with where the element is, or null
+     *      to marshal it as its own type.
+     */
+    private XmlNode replace(Object jaxbObject, XmlNode xmlNode, JaxBeanInfo<?> declared) throws JAXBException {
         // TODO
         // for now just marshal
         // TODO: object model independenc
@@ -176,18 +337,262 @@ public class BinderImpl<XmlNode> extends Binder<XmlNode> {
         // if the type object is passed, the following step is necessary to make
         // the marshalling successful.
         JaxBeanInfo bi = context.getBeanInfo(jaxbObject, true);
-        if(!bi.isElement())
+        if(declared!=null)
+            jaxbObject = wrap(new QName(e.getNamespaceURI(),e.getLocalName()),declared.jaxbType,jaxbObject);
+        else if(!bi.isElement())
             jaxbObject = new JAXBElement(new QName(e.getNamespaceURI(),e.getLocalName()),bi.jaxbType,jaxbObject);
 
 
-        getMarshaller().marshal(jaxbObject,p);
+        getMarshaller().marshal(jaxbObject,createOutput(p));
         Node newNode = p.getLastChild();
         p.removeChild(newNode);
         p.insertBefore(newNode,ns);
 
+        forget(e);
         return (XmlNode)newNode;
     }
 
+    private static <T> JAXBElement<T> wrap(QName name, Class<T> declaredType, Object value) {
+        return new JAXBElement<>(name,declaredType,declaredType.cast(value));
+    }
+
+    /**
+     * Removes the associations of the elements in a subtree that has been taken out of the document.
+     */
+    private void forget(Element root) {
+        Node n = root;
+        while(n!=null) {
+            if(n.getNodeType()==Node.ELEMENT_NODE)
+                assoc.remove((XmlNode)n);
+            Node next = n.getFirstChild();
+            while(next==null && n!=root) {
+                next = n.getNextSibling();
+                if(next==null)
+                    n = n.getParentNode();
+            }
+            n = next;
+        }
+    }
+
+    /**
+     * Records the current state of the bean and of the beans reachable from it,
+     * so that {@link #update(Object, Object, Set)} can tell what has changed.
+     */
+    private void snapshot(Object jaxbObject) {
+        if(jaxbObject instanceof JAXBElement)
+            jaxbObject = ((JAXBElement<?>)jaxbObject).getValue();
+        if(jaxbObject==null)
+            return;
+
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Object> queue = new ArrayList<>();
+        queue.add(jaxbObject);
+        while(!queue.isEmpty()) {
+            Object bean = queue.remove(queue.size()-1);
+            if(!visited.add(bean))
+                continue;
+            AssociationMap.Entry<XmlNode> e = assoc.byPeer(bean);
+            if(e!=null && e.snapshot()!=null)
+                // not touched since the last snapshot, for example the target of an IDREF
+                continue;
+            Snapshot s = new Snapshot(context);
+            s.addBean(bean);
+            if(e!=null && e.inner()==bean && !s.opaque)
+                e.snapshot(s);
+            queue.addAll(s.children);
+        }
+    }
+
+    /**
+     * Marks the start of a collection, map or array in a {@link Snapshot}.
+     * It is followed by its size.
+     */
+    private static final Object CONTAINER = new Object();
+
+    /**
+     * Shallow copy of the property values of a bean.
+     *
+     * Collections, maps, arrays and {@link JAXBElement}s are flattened into {@link #values}.
+     * Other beans are only recorded by identity, and are collected
+     * in {@link #children} so that they can be looked at separately.
+     */
+    private static final class Snapshot {
+        private final JAXBContextImpl context;
+        private final List<Object> values = new ArrayList<>();
+        /**
+         * Indices of the {@link #values} that are beans, and are compared by identity.
+         */
+        private final BitSet beans = new BitSet();
+        /**
+         * True if the bean holds values whose changes can't be detected.
+         */
+        private boolean opaque;
+        final List<Object> children = new ArrayList<>();
+        /**
+         * What holds each of the {@link #children}.
+         *
+         * @see BinderImpl#getDeclaredBeanInfo(Object, Object, Object)
+         */
+        final List<Object> owners = new ArrayList<>();
+        /**
+         * The {@link Property} whose value is being added, or the declared type of the
+         * {@link JAXBElement} whose value is being added.
+         */
+        private Object owner;
+
+        Snapshot(JAXBContextImpl context) {
+            this.context = context;
+        }
+
+        /**
+         * @return
+         *      true if the bean hasn't changed since the given snapshot was taken.
+         */
+        boolean isSameAs(Object o) {
+            if(opaque || !(o instanceof Snapshot))
+                return false;
+            Snapshot that = (Snapshot)o;
+            if(values.size()!=that.values.size() || !beans.equals(that.beans))
+                return false;
+            for (int i = 0; i < values.size(); i++) {
+                Object v = values.get(i);
+                Object w = that.values.get(i);
+                if(beans.get(i) ? v!=w : !equals(v,w))
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean equals(Object v, Object w) {
+            if(v==w)    return true;
+            if(v==null || w==null || v.getClass()!=w.getClass())  return false;
+            if(v.getClass().isArray())
+                return Arrays.deepEquals(new Object[]{v}, new Object[]{w});
+            return v.equals(w);
+        }
+
+        void addBean(Object bean) {
+            JaxBeanInfo<?> bi = context.getBeanInfo(bean);
+            if(!(bi instanceof ClassBeanInfoImpl)) {
+                opaque = true;
+                return;
+            }
+            values.add(bean.getClass());
+            try {
+                addProperties((ClassBeanInfoImpl<?>)bi,bean);
+            } catch (AccessorException x) {
+                opaque = true;
+            }
+        }
+
+        private <BeanT> void addProperties(ClassBeanInfoImpl<BeanT> bi, Object o) throws AccessorException {
+            BeanT bean = bi.jaxbType.cast(o);
+            for(ClassBeanInfoImpl<? super BeanT> cbi = bi; cbi!=null; cbi = cbi.superClazz) {
+                for (Property<? super BeanT> p : cbi.properties) {
+                    owner = p;
+                    add(p.getValue(bean));
+                }
+            }
+            owner = null;
+            add(bi.getAttributeWildcard(bean));
+        }
+
+        private void container(int size) {
+            values.add(CONTAINER);
+            values.add(size);
+        }
+
+        private void add(Object v) {
+            if(opaque)
+                return;
+            if(v==null) {
+                values.add(null);
+            } else if(v instanceof Node) {
+                opaque = true;
+            } else if(v instanceof Collection) {
+                Collection<?> c = (Collection<?>)v;
+                container(c.size());
+                for (Object item : c)
+                    add(item);
+            } else if(v instanceof Map) {
+                Map<?,?> m = (Map<?,?>)v;
+                container(m.size());
+                for (Map.Entry<?,?> me : m.entrySet()) {
+                    add(me.getKey());
+                    add(me.getValue());
+                }
+            } else if(v instanceof JAXBElement) {
+                JAXBElement<?> je = (JAXBElement<?>)v;
+                values.add(je.getName());
+                values.add(je.isNil());
+                Object o = owner;
+                owner = je.getDeclaredType();
+                add(je.getValue());
+                owner = o;
+            } else if(v instanceof Object[]) {
+                Object[] a = (Object[])v;
+                container(a.length);
+                for (Object item : a)
+                    add(item);
+            } else if(context.getBeanInfo(v) instanceof ClassBeanInfoImpl) {
+                beans.set(values.size());
+                values.add(v);
+                children.add(v);
+                owners.add(owner);
+            } else {
+                Object copy = copy(v);
+                if(copy==null)
+                    opaque = true;
+                else
+                    values.add(copy);
+            }
+        }
+    }
+
+    /**
+     * Copies a leaf value so that changes made to it in place can be seen.
+     *
+     * @return
+     *      the copy, the value itself if it doesn't need to be copied,
+     *      or null if its changes can't be detected with {@code equals}.
+     */
+    private static Object copy(Object v) {
+        if(v.getClass().isArray())
+            return cloneArray(v);
+        if(v instanceof Date)
+            return ((Date)v).clone();
+        if(v instanceof Calendar)
+            return ((Calendar)v).clone();
+        if(v instanceof XMLGregorianCalendar)
+            return ((XMLGregorianCalendar)v).clone();
+        return HAS_EQUALS.get(v.getClass()) ? v : null;
+    }
+
+    private static Object cloneArray(Object a) {
+        if(a instanceof byte[])     return ((byte[])a).clone();
+        if(a instanceof char[])     return ((char[])a).clone();
+        if(a instanceof short[])    return ((short[])a).clone();
+        if(a instanceof int[])      return ((int[])a).clone();
+        if(a instanceof long[])     return ((long[])a).clone();
+        if(a instanceof float[])    return ((float[])a).clone();
+        if(a instanceof double[])   return ((double[])a).clone();
+        return ((boolean[])a).clone();
+    }
+
+    /**
+     * True for the classes that override {@link Object#equals(Object)}.
+     */
+    private static final ClassValue<Boolean> HAS_EQUALS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("equals", Object.class).getDeclaringClass()!=Object.class;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
     @Override
     public void setEventHandler(ValidationEventHandler handler) throws JAXBException {
         getUnmarshaller().setEventHandler(handler);
@@ -209,6 +614,9 @@ public class BinderImpl<XmlNode> extends Binder<XmlNode> {
             throw new PropertyException(name);
         }
 
+        if (name.equals(INCREMENTAL_UPDATE))
+            return incrementalUpdate;
+
         Object prop = null;
         PropertyException pe = null;
 
@@ -240,6 +648,13 @@ public class BinderImpl<XmlNode> extends Binder<XmlNode> {
             throw new PropertyException(name, value);
         }
 
+        if (name.equals(INCREMENTAL_UPDATE)) {
+            if (!(value instanceof Boolean))
+                throw new PropertyException(name, value);
+            incrementalUpdate = (Boolean) value;
+            return;
+        }
+
         PropertyException pe = null;
 
         try {
@@ -375,6 +375,15 @@ public final class ClassBeanInfoImpl<BeanT> extends JaxBeanInfo<BeanT> implement
         }
     }
 
+    /**
+     * Gets the attribute wildcard of the bean, or null if the class doesn't have one.
+     */
+    /*package*/ Map<QName,String> getAttributeWildcard(BeanT bean) throws AccessorException {
+        if(inheritedAttWildcard==null)
+            return null;
+        return inheritedAttWildcard.get(bean);
+    }
+
     @Override
     public void serializeURIs(BeanT bean, XMLSerializer target) throws SAXException {
         try {
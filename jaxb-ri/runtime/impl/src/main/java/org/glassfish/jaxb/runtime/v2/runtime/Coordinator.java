@@ -77,6 +77,13 @@ public abstract class Coordinator implements ErrorHandler, ValidationEventHandle
         return adapters.containsKey(type);
     }
 
+    /**
+     * Uses the same adapters as the given {@link Coordinator}.
+     */
+    protected final void putAdapters(Coordinator c) {
+        adapters.putAll(c.adapters);
+    }
+
     // this much is necessary to avoid calling get and set twice when we push.
     private static final ThreadLocal<Coordinator> activeTable = new ThreadLocal<Coordinator>();
 
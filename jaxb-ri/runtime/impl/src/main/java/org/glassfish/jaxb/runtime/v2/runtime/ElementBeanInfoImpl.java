@@ -143,6 +143,11 @@ public final class ElementBeanInfoImpl extends JaxBeanInfo<JAXBElement> {
                 return null;
             }
 
+            @Override
+            public Object getValue(JAXBElement o) {
+                return o.getValue();
+            }
+
             @Override
             public PropertyKind getKind() {
                 return PropertyKind.ELEMENT;
@@ -157,6 +162,11 @@ public final class ElementBeanInfoImpl extends JaxBeanInfo<JAXBElement> {
                 throw new UnsupportedOperationException();
             }
 
+            @Override
+            public JaxBeanInfo<?> getElementBeanInfo(String nsUri, String localName) {
+                return null;
+            }
+
             @Override
             public void wrapUp() {
             }
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.v2.runtime.output.XmlOutput;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.MarshalException;
+import org.xml.sax.SAXException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+
+/**
+ * Writes a document made of a root element and of items that are marshalled
+ * one by one as its children.
+ *
+ * <p>
+ * The root element declares the namespace bindings of the {@link JAXBContextImpl} once,
+ * and the items are marshalled by the {@link XMLSerializer} of the {@link MarshallerImpl}
+ * as they come, so the memory this takes doesn't depend on the number of items.
+ *
+ * <p>
+ * The {@link MarshallerImpl} can't be used for anything else until this writer is closed.
+ * This class is not thread-safe, but items may be written from one thread after another,
+ * as a {@link Flow.Publisher} does.
+ *
+ * @see MarshallerImpl#openStream(QName, java.io.OutputStream)
+ */
+public final class ElementStreamWriter implements AutoCloseable {
+
+    private final MarshallerImpl marshaller;
+    private final XMLSerializer serializer;
+
+    /**
+     * True until the document is ended, or abandoned after an error.
+     */
+    private boolean open;
+
+    ElementStreamWriter(MarshallerImpl marshaller, QName rootName, XmlOutput out, boolean fragment) throws JAXBException {
+        this.marshaller = marshaller;
+        this.serializer = marshaller.serializer;
+
+        String prefix = rootName.getPrefix();
+        boolean started = false;
+        try {
+            marshaller.prewrite(out, fragment, null);
+            serializer.startElement(rootName.getNamespaceURI(), rootName.getLocalPart(),
+                    prefix.isEmpty() ? null : prefix, null);
+            serializer.endNamespaceDecls(null);
+            serializer.endAttributes();
+            started = true;
+        } catch (SAXException | IOException | XMLStreamException e) {
+            throw new MarshalException(e);
+        } finally {
+            if(started) {
+                // the serializer only becomes the active coordinator while an item is written
+                serializer.popCoordinator();
+                open = true;
+            } else {
+                serializer.close();
+                marshaller.cleanUp();
+            }
+        }
+    }
+
+    /**
+     * Marshals an item as the next child of the root element.
+     *
+     * @param item
+     *      an object that {@link jakarta.xml.bind.Marshaller#marshal(Object, java.io.OutputStream)}
+     *      would accept.
+     * @throws JAXBException
+     *      if the item can't be marshalled. The document is then left unfinished,
+     *      and this writer is closed.
+     */
+    public void write(Object item) throws JAXBException {
+        if(!open)
+            throw new IllegalStateException();
+        if(item==null)
+            throw new IllegalArgumentException(Messages.NOT_MARSHALLABLE.format());
+
+        serializer.pushCoordinator();
+        boolean written = false;
+        try {
+            serializer.childAsRoot(item);
+            written = true;
+        } catch (SAXException | IOException | XMLStreamException e) {
+            throw new MarshalException(e);
+        } finally {
+            if(written) {
+                serializer.popCoordinator();
+            } else {
+                open = false;
+                serializer.close();
+                marshaller.cleanUp();
+            }
+        }
+    }
+
+    /**
+     * Writes all the remaining items of the iterator, as {@link #write(Object)} does.
+     */
+    public void writeAll(Iterator<?> items) throws JAXBException {
+        while(items.hasNext())
+            write(items.next());
+    }
+
+    /**
+     * Writes all the items of the stream, as {@link #write(Object)} does.
+     * They are taken from the stream one at a time.
+     */
+    public void writeAll(Stream<?> items) throws JAXBException {
+        writeAll(items.iterator());
+    }
+
+    /**
+     * Subscribes to the publisher and writes the items it publishes, as {@link #write(Object)} does.
+     *
+     * <p>
+     * Items are requested one at a time, once the previous one has been written,
+     * so the publisher can't run ahead of the output.
+     *
+     * @return
+     *      a future that completes when the publisher completes. It completes exceptionally
+     *      with the publisher's error, or with the {@link JAXBException} thrown by {@link #write(Object)},
+     *      in which case the subscription is cancelled. This writer still has to be closed.
+     */
+    public CompletableFuture<Void> writeAll(Flow.Publisher<?> items) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        items.subscribe(new Flow.Subscriber<Object>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Object item) {
+                if(done.isDone())
+                    return;
+                try {
+                    write(item);
+                } catch (JAXBException | RuntimeException e) {
+                    subscription.cancel();
+                    done.completeExceptionally(e);
+                    return;
+                }
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.completeExceptionally(t);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Ends the root element and the document, and makes the {@link MarshallerImpl} available again.
+     * Does nothing if this writer is already closed.
+     */
+    @Override
+    public void close() throws JAXBException {
+        if(!open)
+            return;
+        open = false;
+
+        serializer.pushCoordinator();
+        try {
+            try {
+                serializer.endElement();
+                marshaller.postwrite();
+            } catch (SAXException | IOException | XMLStreamException e) {
+                throw new MarshalException(e);
+            } finally {
+                serializer.close();
+            }
+        } finally {
+            marshaller.cleanUp();
+        }
+    }
+}
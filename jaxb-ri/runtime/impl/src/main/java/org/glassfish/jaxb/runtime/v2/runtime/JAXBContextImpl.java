@@ -20,13 +20,17 @@ import cn.glassfish.jaxb.core.v2.WellKnownNamespace;
 import cn.glassfish.jaxb.runtime.v2.model.annotation.RuntimeAnnotationReader;
 import cn.glassfish.jaxb.runtime.v2.model.annotation.RuntimeInlineAnnotationReader;
 import cn.glassfish.jaxb.core.v2.model.core.Adapter;
+import cn.glassfish.jaxb.core.v2.model.core.ID;
 import cn.glassfish.jaxb.core.v2.model.core.NonElement;
 import cn.glassfish.jaxb.core.v2.model.core.Ref;
 import cn.glassfish.jaxb.runtime.v2.model.impl.RuntimeBuiltinLeafInfoImpl;
 import cn.glassfish.jaxb.runtime.v2.model.impl.RuntimeModelBuilder;
 import cn.glassfish.jaxb.core.v2.model.nav.Navigator;
 import cn.glassfish.jaxb.core.v2.runtime.RuntimeUtil;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.ByteBufferPool;
 import cn.glassfish.jaxb.runtime.v2.runtime.output.Encoded;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.NamespaceContextImpl;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.WriterXmlOutput;
 import cn.glassfish.jaxb.runtime.v2.runtime.property.AttributeProperty;
 import cn.glassfish.jaxb.runtime.v2.runtime.property.Property;
 import cn.glassfish.jaxb.runtime.v2.runtime.reflect.Accessor;
@@ -51,17 +55,20 @@ import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.FactoryConfigurationError;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.Result;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.sax.SAXTransformerFactory;
 import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.validation.Schema;
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
@@ -81,12 +88,6 @@ public final class JAXBContextImpl extends JAXBRIContext {
      */
     private final Map<TypeReference, Bridge> bridges = new LinkedHashMap<>();
 
-    /**
-     * Shared instance of {@link DocumentBuilder}.
-     * Lock before use. Lazily created.
-     */
-    private static DocumentBuilder db;
-
     private final QNameMap<JaxBeanInfo> rootMap = new QNameMap<>();
     private final HashMap<QName,JaxBeanInfo> typeMap = new HashMap<>();
 
@@ -125,6 +126,37 @@ public final class JAXBContextImpl extends JAXBRIContext {
         }
     };
 
+    /**
+     * Pool of {@link XMLReader}s for the unmarshallers, so that short-lived
+     * unmarshallers don't need to create a parser each.
+     *
+     * @see UnmarshallerImpl#getXMLReader()
+     */
+    public final Pool<XMLReader> xmlReaderPool = new Pool.Impl<XMLReader>() {
+        @Override
+        protected @NotNull XMLReader create() {
+            SAXParserFactory factory = getParserFactory();
+            try {
+                synchronized (factory) {
+                    return factory.newSAXParser().getXMLReader();
+                }
+            } catch (ParserConfigurationException | SAXException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    /**
+     * {@link ValidatorHandlerPool}s of the most recently used {@link Schema}s.
+     * The pools refer to their schemas, so the number is bounded.
+     */
+    private final Map<Schema,ValidatorHandlerPool> validatorHandlerPools = new LinkedHashMap<Schema,ValidatorHandlerPool>(16,0.75f,true) {
+        @Override
+        protected boolean removeEldestEntry(Entry<Schema,ValidatorHandlerPool> eldest) {
+            return size() > 16;
+        }
+    };
+
     /**
      * Used to assign indices to known names in this grammar.
      * Reset to null once the build phase is completed.
@@ -195,6 +227,13 @@ public final class JAXBContextImpl extends JAXBRIContext {
      */
     public final boolean fastBoot;
 
+    /**
+     * False if the types of this context can't form a cycle.
+     *
+     * @see #mayHaveCycles()
+     */
+    private final boolean mayHaveCycles;
+
     private Set<XmlNs> xmlNsSet = null;
 
     /**
@@ -319,6 +358,8 @@ public final class JAXBContextImpl extends JAXBRIContext {
 
         getOrCreate(typeSet.getAnyTypeInfo());
 
+        this.mayHaveCycles = mayHaveCycles(typeSet);
+
         // then link them all!
         for (JaxBeanInfo bi : beanInfos.values())
             bi.link(this);
@@ -374,6 +415,88 @@ public final class JAXBContextImpl extends JAXBRIContext {
         beanInfos = null;
     }
 
+    /**
+     * Returns false if an object of this context can't be reached from itself
+     * through the properties of the objects, so that the marshaller doesn't need to
+     * check for cycles.
+     *
+     * <p>
+     * That is the case if no type can contain, directly or through other types,
+     * a value of its own type or of a subtype. IDREF properties don't count, as they
+     * don't contain the object they refer to. Properties that can hold any object,
+     * like wildcards and properties of type {@link Object}, count as a possible cycle.
+     */
+    public boolean mayHaveCycles() {
+        return mayHaveCycles;
+    }
+
+    private static boolean mayHaveCycles(RuntimeTypeInfoSet typeSet) {
+        // a value of a class may be an instance of any of its subclasses
+        Map<RuntimeClassInfo,List<Object>> subclasses = new IdentityHashMap<>();
+        for (RuntimeClassInfo ci : typeSet.beans().values()) {
+            for (RuntimeClassInfo b = ci.getBaseClass(); b != null; b = b.getBaseClass())
+                subclasses.computeIfAbsent(b, k -> new ArrayList<>()).add(ci);
+        }
+
+        // false while the type is being visited, true once it's done
+        Map<Object,Boolean> visited = new IdentityHashMap<>();
+        List<Object> roots = new ArrayList<>(typeSet.beans().values());
+        for (RuntimeElementInfo e : typeSet.getAllElements())
+            roots.add(e);
+        roots.addAll(typeSet.arrays().values());
+
+        for (Object t : roots) {
+            if (findCycle(t, typeSet.getAnyTypeInfo(), subclasses, visited))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Depth-first search for a cycle among the types reachable from the given one.
+     */
+    private static boolean findCycle(Object type, RuntimeNonElement anyType, Map<RuntimeClassInfo,List<Object>> subclasses, Map<Object,Boolean> visited) {
+        Boolean done = visited.get(type);
+        if (done != null)
+            return !done;
+        visited.put(type, false);
+
+        List<Object> children = new ArrayList<>();
+        if (type instanceof RuntimeClassInfo) {
+            for (RuntimeClassInfo ci = (RuntimeClassInfo) type; ci != null; ci = ci.getBaseClass()) {
+                for (RuntimePropertyInfo p : ci.getProperties()) {
+                    if (p instanceof RuntimeReferencePropertyInfo && ((RuntimeReferencePropertyInfo) p).getWildcard() != null)
+                        return true;
+                    if (p.id() != ID.IDREF)     // only the ID of the object is written
+                        children.addAll(p.ref());
+                }
+            }
+        } else if (type instanceof RuntimeElementInfo) {
+            RuntimeElementInfo e = (RuntimeElementInfo) type;
+            children.add(e.getContentType());
+            children.addAll(e.getSubstitutionMembers());
+        } else if (type instanceof RuntimeArrayInfo) {
+            children.add(((RuntimeArrayInfo) type).getItemType());
+        }
+
+        for (Object child : children) {
+            if (child == anyType)
+                return true;
+            if (findCycle(child, anyType, subclasses, visited))
+                return true;
+            List<Object> subs = subclasses.get(child);
+            if (subs != null) {
+                for (Object sub : subs) {
+                    if (findCycle(sub, anyType, subclasses, visited))
+                        return true;
+                }
+            }
+        }
+
+        visited.put(type, true);
+        return false;
+    }
+
     /**
      * True if this JAXBContext has {@link XmlAttachmentRef}.
      */
@@ -658,6 +781,55 @@ public final class JAXBContextImpl extends JAXBRIContext {
         return utf8nameTable;
     }
 
+    /**
+     * Local names as characters, for {@link WriterXmlOutput}.
+     */
+    private char[][] charNameTable;
+
+    public synchronized char[][] getCharNameTable() {
+        if(charNameTable==null) {
+            char[][] x = new char[nameList.localNames.length][];
+            for( int i=0; i<x.length; i++ )
+                x[i] = nameList.localNames[i].toCharArray();
+            charNameTable = x;
+        }
+        return charNameTable;
+    }
+
+    /**
+     * Default pool of {@link MarshallerImpl#marshal(Object, java.nio.channels.WritableByteChannel)}.
+     * Lazily created.
+     */
+    private ByteBufferPool byteBufferPool;
+
+    public synchronized ByteBufferPool getByteBufferPool() {
+        if(byteBufferPool==null)
+            byteBufferPool = new ByteBufferPool(8192, false);
+        return byteBufferPool;
+    }
+
+    /**
+     * Namespace bindings the root element starts with, without and with the xsi prefix.
+     * Filled by the first {@link XMLSerializer} that computes them.
+     *
+     * @see NamespaceContextImpl#isLayoutCacheable()
+     */
+    private final NamespaceContextImpl.Layout[] namespaceLayouts = new NamespaceContextImpl.Layout[2];
+
+    /**
+     * Gets the namespace bindings the root element starts with, or null if not computed yet.
+     *
+     * @param xsi
+     *      true if the xsi prefix is declared for the schema location.
+     */
+    public synchronized NamespaceContextImpl.Layout getNamespaceLayout(boolean xsi) {
+        return namespaceLayouts[xsi?1:0];
+    }
+
+    public synchronized void setNamespaceLayout(boolean xsi, NamespaceContextImpl.Layout layout) {
+        namespaceLayouts[xsi?1:0] = layout;
+    }
+
     public int getNumberOfLocalNames() {
         return nameList.localNames.length;
     }
@@ -670,13 +842,61 @@ public final class JAXBContextImpl extends JAXBRIContext {
         return nameList.numberOfAttributeNames;
     }
 
+    /**
+     * JAXP factories of this context, looked up once as the context needs them.
+     * Lock before use, as they aren't required to be thread-safe.
+     */
+    private SAXParserFactory parserFactory;
+    private SAXTransformerFactory transformerFactory;
+    private DocumentBuilderFactory documentBuilderFactory;
+
+    /**
+     * Per-thread {@link DocumentBuilder}s of this context, so that creating
+     * a document doesn't need a lock. They go away with the context.
+     */
+    private final ThreadLocal<DocumentBuilder> documentBuilder = ThreadLocal.withInitial(this::newDocumentBuilder);
+
+    synchronized SAXParserFactory getParserFactory() {
+        if(parserFactory==null)
+            parserFactory = XmlFactory.createParserFactory(disableSecurityProcessing);
+        return parserFactory;
+    }
+
+    synchronized SAXTransformerFactory getTransformerFactory() {
+        if(transformerFactory==null)
+            transformerFactory = (SAXTransformerFactory)XmlFactory.createTransformerFactory(disableSecurityProcessing);
+        return transformerFactory;
+    }
+
+    synchronized DocumentBuilderFactory getDocumentBuilderFactory() {
+        if(documentBuilderFactory==null)
+            documentBuilderFactory = XmlFactory.createDocumentBuilderFactory(disableSecurityProcessing);
+        return documentBuilderFactory;
+    }
+
     /**
      * Creates a new identity transformer.
      */
-    static Transformer createTransformer(boolean disableSecureProcessing) {
+    Transformer createTransformer() {
         try {
-            SAXTransformerFactory tf = (SAXTransformerFactory)XmlFactory.createTransformerFactory(disableSecureProcessing);
-            return tf.newTransformer();
+            SAXTransformerFactory tf = getTransformerFactory();
+            synchronized (tf) {
+                return tf.newTransformer();
+            }
+        } catch (TransformerConfigurationException e) {
+            throw new Error(e); // impossible
+        }
+    }
+
+    /**
+     * Creates a new identity transformer.
+     */
+    public TransformerHandler createTransformerHandler() {
+        try {
+            SAXTransformerFactory tf = getTransformerFactory();
+            synchronized (tf) {
+                return tf.newTransformerHandler();
+            }
         } catch (TransformerConfigurationException e) {
             throw new Error(e); // impossible
         }
@@ -697,18 +917,19 @@ public final class JAXBContextImpl extends JAXBRIContext {
     /**
      * Creates a new DOM document.
      */
-    static Document createDom(boolean disableSecurityProcessing) {
-        synchronized(JAXBContextImpl.class) {
-            if(db==null) {
-                try {
-                    DocumentBuilderFactory dbf = XmlFactory.createDocumentBuilderFactory(disableSecurityProcessing);
-                    db = dbf.newDocumentBuilder();
-                } catch (ParserConfigurationException e) {
-                    // impossible
-                    throw new FactoryConfigurationError(e);
-                }
+    public Document createDom() {
+        return documentBuilder.get().newDocument();
+    }
+
+    private DocumentBuilder newDocumentBuilder() {
+        try {
+            DocumentBuilderFactory dbf = getDocumentBuilderFactory();
+            synchronized (dbf) {
+                return dbf.newDocumentBuilder();
             }
-            return db.newDocument();
+        } catch (ParserConfigurationException e) {
+            // impossible
+            throw new FactoryConfigurationError(e);
         }
     }
 
@@ -722,6 +943,16 @@ public final class JAXBContextImpl extends JAXBRIContext {
         return new UnmarshallerImpl(this,null);
     }
 
+    /**
+     * Gets the pool of {@link javax.xml.validation.ValidatorHandler}s that the marshallers
+     * and unmarshallers of this context use to validate against the given schema.
+     */
+    public ValidatorHandlerPool getValidatorHandlerPool(Schema schema) {
+        synchronized (validatorHandlerPools) {
+            return validatorHandlerPools.computeIfAbsent(schema, ValidatorHandlerPool::new);
+        }
+    }
+
     @Override
     public JAXBIntrospector createJAXBIntrospector() {
         return new JAXBIntrospector() {
@@ -26,6 +26,7 @@ import org.xml.sax.SAXException;
 import org.xml.sax.helpers.XMLFilterImpl;
 
 import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventWriter;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
@@ -38,6 +39,8 @@ import javax.xml.validation.ValidatorHandler;
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -86,8 +89,23 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
     // while createing XmlOutput those values may be set.
     // if these are non-null they need to be cleaned up
     private Flushable toBeFlushed;
+
+    /**
+     * Buffer of {@link WriterXmlOutput}, kept from one document to the next.
+     */
+    private char[] charBuffer;
     private Closeable toBeClosed;
 
+    /**
+     * @see #BYTE_BUFFER_POOL
+     */
+    private ByteBufferPool byteBufferPool;
+
+    /**
+     * Tags of {@link UTF8XmlOutput}, kept from one document to the next.
+     */
+    private TagTemplates tagTemplates;
+
     /**
      * @param assoc
      *      non-null if the marshaller is working inside {@link BinderImpl}.
@@ -132,6 +150,51 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
         write(obj, output, null );
     }
 
+    /**
+     * Marshals into {@link java.nio.ByteBuffer} segments taken from the {@link #BYTE_BUFFER_POOL},
+     * then writes them all to the channel, with one gathering write if the channel supports it.
+     *
+     * <p>
+     * To hand the segments to the network layer without writing them to a channel,
+     * marshal to a {@link ByteBufferOutputStream} instead.
+     */
+    public void marshal(Object obj, WritableByteChannel channel) throws JAXBException {
+        ByteBufferOutputStream out = new ByteBufferOutputStream(getByteBufferPool());
+        try {
+            marshal(obj, out);
+            out.writeTo(channel);
+        } catch (IOException e) {
+            throw new MarshalException(e);
+        } finally {
+            out.release();
+        }
+    }
+
+    /**
+     * Starts a document whose root element has the given name, into which items
+     * are then marshalled one by one with {@link ElementStreamWriter}.
+     *
+     * <p>
+     * This marshaller can't be used for anything else until the returned writer is closed.
+     * The {@link #setSchema(Schema) schema} is not used to validate the document.
+     */
+    public ElementStreamWriter openStream(QName rootName, OutputStream out) throws JAXBException {
+        return openStream(rootName, createWriter(out));
+    }
+
+    /**
+     * Starts a document on the given output, as {@link #openStream(QName, OutputStream)} does.
+     */
+    public ElementStreamWriter openStream(QName rootName, XmlOutput output) throws JAXBException {
+        return new ElementStreamWriter(this, rootName, output, isFragment());
+    }
+
+    ByteBufferPool getByteBufferPool() {
+        if(byteBufferPool==null)
+            byteBufferPool = context.getByteBufferPool();
+        return byteBufferPool;
+    }
+
     /**
      * Creates {@link XmlOutput} from the given {@link Result} object.
      */
@@ -143,7 +206,7 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             final Node node = ((DOMResult) result).getNode();
 
             if (node == null) {
-                Document doc = JAXBContextImpl.createDom(getContext().disableSecurityProcessing);
+                Document doc = getContext().createDom();
                 ((DOMResult) result).setNode(doc);
                 return new SAXOutput(new SAX2DOMEx(doc));
             } else {
@@ -240,9 +303,12 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             if( obj == null )
                 throw new IllegalArgumentException(Messages.NOT_MARSHALLABLE.format());
 
+            ValidatorHandlerPool validatorPool = null;
+            ValidatorHandler validator = null;
             if( schema!=null ) {
                 // send the output to the validator as well
-                ValidatorHandler validator = schema.newValidatorHandler();
+                validatorPool = context.getValidatorHandlerPool(schema);
+                validator = validatorPool.take();
                 validator.setErrorHandler(new FatalAdapter(serializer));
                 // work around a bug in JAXP validator in Tiger
                 XMLFilterImpl f = new XMLFilterImpl() {
@@ -268,6 +334,8 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
                 prewrite(out,isFragment(),postInitAction);
                 serializer.childAsRoot(obj);
                 postwrite();
+                if(validator!=null)
+                    validatorPool.recycle(validator);
             } catch( SAXException e ) {
                 throw new MarshalException(e);
             } catch (IOException e) {
@@ -282,7 +350,7 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
         }
     }
 
-    private void cleanUp() {
+    void cleanUp() {
         if(toBeFlushed!=null)
             try {
                 toBeFlushed.flush();
@@ -303,7 +371,7 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
 
     // common parts between two write methods.
 
-    private void prewrite(XmlOutput out, boolean fragment, Runnable postInitAction) throws IOException, SAXException, XMLStreamException {
+    void prewrite(XmlOutput out, boolean fragment, Runnable postInitAction) throws IOException, SAXException, XMLStreamException {
         serializer.startDocument(out,fragment,getSchemaLocation(),getNoNSSchemaLocation());
         if(postInitAction!=null)    postInitAction.run();
         if(prefixMapper!=null) {
@@ -321,7 +389,7 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
         serializer.setPrefixMapper(prefixMapper);
     }
 
-    private void postwrite() throws IOException, SAXException, XMLStreamException {
+    void postwrite() throws IOException, SAXException, XMLStreamException {
         serializer.endDocument();
         serializer.reconcileID();   // extra check
     }
@@ -363,26 +431,29 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
     }
 
     public XmlOutput createWriter( Writer w, String encoding ) {
-        // XMLWriter doesn't do buffering, so do it here if it looks like a good idea
-        if(!(w instanceof BufferedWriter))
-            w = new BufferedWriter(w);
+        return createWriter(w, encoding, createEscapeHandler(encoding), 0x10000);
+    }
 
+    /**
+     * @param charLimit
+     *      see {@link WriterXmlOutput#WriterXmlOutput(Writer, String, char[][], char[], CharacterEscapeHandler, int)}
+     */
+    private XmlOutput createWriter( Writer w, String encoding, CharacterEscapeHandler ceh, int charLimit ) {
+        // WriterXmlOutput does buffering on its own
         assert toBeFlushed==null;
         toBeFlushed = w;
 
-        CharacterEscapeHandler ceh = createEscapeHandler(encoding);
-        XMLWriter xw;
-
-        if(isFormattedOutput()) {
-            DataWriter d = new DataWriter(w,encoding,ceh);
-            d.setIndentStep(indent);
-            xw=d;
-        } else
-            xw = new XMLWriter(w,encoding,ceh);
+        char[][] table = context.getCharNameTable();
+        if(charBuffer==null)
+            charBuffer = new char[4096];
 
-        xw.setXmlDecl(!isFragment());
-        xw.setHeader(header);
-        return new SAXOutput(xw);   // TODO: don't we need a better writer?
+        WriterXmlOutput out;
+        if(isFormattedOutput())
+            out = new IndentingWriterXmlOutput(w, encoding, indent, table, charBuffer, ceh, charLimit);
+        else
+            out = new WriterXmlOutput(w, encoding, table, charBuffer, ceh, charLimit);
+        out.setHeader(header);
+        return out;
     }
 
     public XmlOutput createWriter(Writer w) {
@@ -412,12 +483,23 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             }
             if(header!=null)
                 out.setHeader(header);
+            if(tagTemplates==null)
+                tagTemplates = new TagTemplates(table, context.getNumberOfElementNames());
+            out.setTagTemplates(tagTemplates);
             return out;
         }
 
         try {
+            String javaEncoding = getJavaEncoding(encoding);
+
+            // ISO-8859-1, US-ASCII and UTF-16 are encoded by a simple loop,
+            // and the characters that can't be encoded are escaped as they are written
+            SimpleEncodingWriter sw = escapeHandler==null ? SimpleEncodingWriter.create(os,javaEncoding) : null;
+            if(sw!=null)
+                return createWriter(sw, encoding, MinimumEscapeHandler.theInstance, sw.getCharacterLimit());
+
             return createWriter(
-                new OutputStreamWriter(os,getJavaEncoding(encoding)),
+                new OutputStreamWriter(os,javaEncoding),
                 encoding );
         } catch( UnsupportedEncodingException e ) {
             throw new MarshalException(
@@ -443,6 +525,14 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             return c14nSupport;
         if ( OBJECT_IDENTITY_CYCLE_DETECTION.equals(name))
         	return serializer.getObjectIdentityCycleDetection();
+        if( BYTE_BUFFER_POOL.equals(name) )
+            return byteBufferPool;
+        if( CYCLE_CHECK_DEPTH.equals(name) )
+            return serializer.getCycleCheckDepth();
+        if( PARALLEL_EXECUTOR.equals(name) )
+            return serializer.getParallelExecutor();
+        if( PARALLEL_THRESHOLD.equals(name) )
+            return serializer.getParallelThreshold();
 
         return super.getProperty(name);
     }
@@ -496,6 +586,30 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
             serializer.setObjectIdentityCycleDetection((Boolean)value);
             return;
         }
+        if( BYTE_BUFFER_POOL.equals(name) ) {
+            if(value!=null && !(value instanceof ByteBufferPool))
+                throw new PropertyException(name, value);
+            byteBufferPool = (ByteBufferPool)value;
+            return;
+        }
+        if( CYCLE_CHECK_DEPTH.equals(name) ) {
+            if(!(value instanceof Integer) || (Integer)value<0)
+                throw new PropertyException(name, value);
+            serializer.setCycleCheckDepth((Integer)value);
+            return;
+        }
+        if( PARALLEL_EXECUTOR.equals(name) ) {
+            if(value!=null && !(value instanceof Executor))
+                throw new PropertyException(name, value);
+            serializer.setParallelExecutor((Executor)value);
+            return;
+        }
+        if( PARALLEL_THRESHOLD.equals(name) ) {
+            if(!(value instanceof Integer) || (Integer)value<1)
+                throw new PropertyException(name, value);
+            serializer.setParallelThreshold((Integer)value);
+            return;
+        }
 
         super.setProperty(name, value);
     }
@@ -590,4 +704,51 @@ public /*to make unit tests happy*/ final class MarshallerImpl extends AbstractM
     protected static final String XML_HEADERS = "cn.glassfish.jaxb.xmlHeaders";
     protected static final String C14N = JAXBRIContext.CANONICALIZATION_SUPPORT;
     protected static final String OBJECT_IDENTITY_CYCLE_DETECTION = "cn.glassfish.jaxb.objectIdentitityCycleDetection";
+
+    /**
+     * Property that sets the {@link ByteBufferPool} used by {@link #marshal(Object, WritableByteChannel)}.
+     * Null, which is the default, uses a pool of 8KB heap buffers shared by the context.
+     */
+    public static final String BYTE_BUFFER_POOL = "cn.glassfish.jaxb.runtime.byteBufferPool";
+
+    /**
+     * Property that sets the depth of the object tree at which cycle detection starts.
+     * The root object is at depth 1, its children at depth 2, and so on.
+     * Objects at a lower depth are not checked, which saves the cost for deep trees
+     * that are known not to have cycles. A cycle is still detected once it repeats
+     * past that depth, but only then is {@link cn.glassfish.jaxb.runtime.CycleRecoverable}
+     * consulted, so part of the cycle may have been written already.
+     *
+     * <p>
+     * The value is an {@link Integer}. 0, which is the default, checks every object.
+     * Models whose types can't form a cycle are never checked.
+     *
+     * @see JAXBContextImpl#mayHaveCycles()
+     */
+    public static final String CYCLE_CHECK_DEPTH = "cn.glassfish.jaxb.runtime.cycleCheckDepth";
+
+    /**
+     * Property that sets the {@link Executor} to marshal the items of large lists with.
+     *
+     * <p>
+     * When set, and the output is written in UTF-8 without indentation nor an
+     * {@link AttachmentMarshaller}, the items of a list
+     * of elements that has at least {@link #PARALLEL_THRESHOLD} items are split into chunks.
+     * Each chunk is marshalled into its own buffers on the {@link Executor}, and the chunks are then
+     * written in order. The output is the same as without the {@link Executor}.
+     *
+     * <p>
+     * The chunks are marshalled as if the items were the only children of their parent,
+     * so a cycle that goes through the parent is only detected once it repeats within a chunk.
+     * {@link Marshaller.Listener}, adapters set with {@link #setAdapter(Class, XmlAdapter)},
+     * the {@link #PREFIX_MAPPER} and the {@link ValidationEventHandler} are called from several threads at once.
+     * Null, which is the default, marshals everything on the calling thread.
+     */
+    public static final String PARALLEL_EXECUTOR = "cn.glassfish.jaxb.runtime.parallelExecutor";
+
+    /**
+     * Property that sets the minimum number of items of a list to marshal it with the
+     * {@link #PARALLEL_EXECUTOR}. The value is an {@link Integer}, 1000 by default.
+     */
+    public static final String PARALLEL_THRESHOLD = "cn.glassfish.jaxb.runtime.parallelThreshold";
 }
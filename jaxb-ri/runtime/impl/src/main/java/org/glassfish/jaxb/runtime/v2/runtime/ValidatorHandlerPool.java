@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Pool;
+import org.xml.sax.SAXException;
+
+import javax.xml.validation.Schema;
+import javax.xml.validation.ValidatorHandler;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of {@link ValidatorHandler}s of a {@link Schema}, shared by the
+ * marshallers and unmarshallers of a {@link JAXBContextImpl}.
+ *
+ * <p>
+ * {@link Schema#newValidatorHandler()} can be much more expensive than validating
+ * a small document, so the handlers are reused. A handler is reset when it is recycled,
+ * so that the next user doesn't depend on what the last one sent to it. For example,
+ * a fragment may have been written without the {@code startDocument} event.
+ *
+ * <p>
+ * Like the other pools of the context, the idle handlers are only weakly held and may
+ * be discarded by the garbage collector. The counters tell how effective the pool is.
+ *
+ * @see JAXBContextImpl#getValidatorHandlerPool(Schema)
+ */
+public final class ValidatorHandlerPool {
+
+    private final Schema schema;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong taken = new AtomicLong();
+    private final AtomicLong creationTime = new AtomicLong();
+
+    private final Pool<ValidatorHandler> pool = new Pool.Impl<ValidatorHandler>() {
+        @Override
+        protected @NotNull ValidatorHandler create() {
+            long start = System.nanoTime();
+            ValidatorHandler h = schema.newValidatorHandler();
+            creationTime.addAndGet(System.nanoTime() - start);
+            created.incrementAndGet();
+            return h;
+        }
+    };
+
+    ValidatorHandlerPool(Schema schema) {
+        this.schema = schema;
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Gets a handler from the pool, or creates a new one.
+     * The caller is expected to set its error and content handlers.
+     */
+    public @NotNull ValidatorHandler take() {
+        taken.incrementAndGet();
+        return pool.take();
+    }
+
+    /**
+     * Resets a handler and returns it to the pool.
+     */
+    public void recycle(@NotNull ValidatorHandler handler) {
+        // don't keep the marshaller or unmarshaller alive
+        handler.setErrorHandler(null);
+        handler.setContentHandler(null);
+        handler.setDocumentLocator(null);
+        try {
+            // ValidatorHandler has no reset(), but starting a document drops the state of the last one
+            handler.startDocument();
+        } catch (SAXException e) {
+            return;     // the handler is not reused
+        }
+        pool.recycle(handler);
+    }
+
+    /**
+     * Gets the number of handlers that the pool has created.
+     */
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    /**
+     * Gets the number of times a handler has been taken from the pool.
+     * The difference from {@link #getCreatedCount()} is the number of times
+     * a handler was reused.
+     */
+    public long getTakenCount() {
+        return taken.get();
+    }
+
+    /**
+     * Gets the total time spent in {@link Schema#newValidatorHandler()}, in nanoseconds.
+     */
+    public long getCreationTime() {
+        return creationTime.get();
+    }
+}
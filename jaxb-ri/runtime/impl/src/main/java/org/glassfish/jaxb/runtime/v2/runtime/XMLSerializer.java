@@ -17,13 +17,18 @@ import cn.glassfish.jaxb.runtime.api.AccessorException;
 import cn.glassfish.jaxb.runtime.util.ValidationEventLocatorExImpl;
 import cn.glassfish.jaxb.core.v2.WellKnownNamespace;
 import cn.glassfish.jaxb.runtime.v2.model.runtime.RuntimeBuiltinLeafInfo;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.ByteBufferOutputStream;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.ByteBufferPool;
 import cn.glassfish.jaxb.runtime.v2.runtime.output.MTOMXmlOutput;
 import cn.glassfish.jaxb.runtime.v2.runtime.output.NamespaceContextImpl;
 import cn.glassfish.jaxb.runtime.v2.runtime.output.Pcdata;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.UTF8XmlOutput;
 import cn.glassfish.jaxb.runtime.v2.runtime.output.XmlOutput;
 import cn.glassfish.jaxb.runtime.v2.runtime.property.Property;
 import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.Base64Data;
 import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.IntData;
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.DateTimeData;
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.NumberData;
 import cn.glassfish.jaxb.runtime.v2.util.CollisionCheckStack;
 import jakarta.activation.MimeType;
 import jakarta.xml.bind.*;
@@ -44,9 +49,14 @@ import javax.xml.transform.TransformerException;
 import javax.xml.transform.sax.SAXResult;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Receives XML serialization event and writes to {@link XmlOutput}.
@@ -138,6 +148,31 @@ public final class XMLSerializer extends Coordinator {
      */
     private final CollisionCheckStack<Object> cycleDetectionStack = new CollisionCheckStack<>();
 
+    /**
+     * False if the types of {@link #grammar} can't form a cycle,
+     * so that objects don't need to be checked.
+     *
+     * @see JAXBContextImpl#mayHaveCycles()
+     */
+    private final boolean mayHaveCycles;
+
+    /**
+     * Objects pushed at a lower depth of {@link #cycleDetectionStack} are not checked.
+     *
+     * @see MarshallerImpl#CYCLE_CHECK_DEPTH
+     */
+    private int cycleCheckDepth = 0;
+
+    /**
+     * @see MarshallerImpl#PARALLEL_EXECUTOR
+     */
+    private Executor parallelExecutor;
+
+    /**
+     * @see MarshallerImpl#PARALLEL_THRESHOLD
+     */
+    private int parallelThreshold = 1000;
+
     /** Optional attributes to go with root element. */
     private String schemaLocation;
     private String noNsSchemaLocation;
@@ -160,6 +195,16 @@ public final class XMLSerializer extends Coordinator {
      */
     private final IntData intData = new IntData();
 
+    /**
+     * Cached instance of {@link NumberData}.
+     */
+    private final NumberData numberData = new NumberData();
+
+    /**
+     * Cached instance of {@link DateTimeData}.
+     */
+    private final DateTimeData dateTimeData = new DateTimeData();
+
     public AttachmentMarshaller attachmentMarshaller;
 
     /*package*/ XMLSerializer( MarshallerImpl _owner ) {
@@ -168,6 +213,7 @@ public final class XMLSerializer extends Coordinator {
         nsContext = new NamespaceContextImpl(this);
         nameList = marshaller.context.nameList;
         knownUri2prefixIndexMap = new int[nameList.namespaceURIs.length];
+        mayHaveCycles = grammar.mayHaveCycles();
     }
 
     /**
@@ -182,6 +228,14 @@ public final class XMLSerializer extends Coordinator {
         return new Base64Data();
     }
 
+    /**
+     * Gets the cached instance of {@link DateTimeData}.
+     * The next value overwrites it, so it must be written out right away.
+     */
+    public DateTimeData getCachedDateTimeData() {
+        return dateTimeData;
+    }
+
     /**
      * Gets the ID value from an identifiable object.
      */
@@ -337,6 +391,18 @@ public final class XMLSerializer extends Coordinator {
         leafElement(tagName,intData,fieldName);
     }
 
+    public void leafElement( Name tagName, long data, String fieldName ) throws SAXException, IOException, XMLStreamException {
+        leafElement(tagName,numberData.set(data),fieldName);
+    }
+
+    public void leafElement( Name tagName, double data, String fieldName ) throws SAXException, IOException, XMLStreamException {
+        leafElement(tagName,numberData.set(data),fieldName);
+    }
+
+    public void leafElement( Name tagName, float data, String fieldName ) throws SAXException, IOException, XMLStreamException {
+        leafElement(tagName,numberData.set(data),fieldName);
+    }
+
     /**
      * Marshalls text.
      *
@@ -387,6 +453,35 @@ public final class XMLSerializer extends Coordinator {
         textHasAlreadyPrinted = true;
     }
 
+    /**
+     * The same as {@link #text(String,String)} for an {@code int}.
+     */
+    public void text( int data, String fieldName ) throws SAXException, IOException, XMLStreamException {
+        intData.reset(data);
+        text(intData,fieldName);
+    }
+
+    /**
+     * The same as {@link #text(String,String)} for a {@code long}.
+     */
+    public void text( long data, String fieldName ) throws SAXException, IOException, XMLStreamException {
+        text(numberData.set(data),fieldName);
+    }
+
+    /**
+     * The same as {@link #text(String,String)} for a {@code double}.
+     */
+    public void text( double data, String fieldName ) throws SAXException, IOException, XMLStreamException {
+        text(numberData.set(data),fieldName);
+    }
+
+    /**
+     * The same as {@link #text(String,String)} for a {@code float}.
+     */
+    public void text( float data, String fieldName ) throws SAXException, IOException, XMLStreamException {
+        text(numberData.set(data),fieldName);
+    }
+
     public void attribute(String uri, String local, String value) throws SAXException {
         int prefix;
         if(uri.length()==0) {
@@ -478,6 +573,10 @@ public final class XMLSerializer extends Coordinator {
      *      has already been reported.
      */
     private Object pushObject(Object obj, String fieldName) throws SAXException {
+        if(!mayHaveCycles || cycleDetectionStack.size()<cycleCheckDepth) {
+            cycleDetectionStack.pushNocheck(obj);
+            return obj;
+        }
         if(!cycleDetectionStack.push(obj))
             return obj;
 
@@ -776,7 +875,7 @@ public final class XMLSerializer extends Coordinator {
 
     public Transformer getIdentityTransformer() {
         if (identityTransformer==null)
-            identityTransformer = JAXBContextImpl.createTransformer(grammar.disableSecurityProcessing);
+            identityTransformer = grammar.createTransformer();
         return identityTransformer;
     }
 
@@ -861,45 +960,18 @@ public final class XMLSerializer extends Coordinator {
         nse = nse.push();
 
         if( !seenRoot ) {
-
-            if (grammar.getXmlNsSet() != null) {
-                for(XmlNs xmlNs : grammar.getXmlNsSet())
-                    nsContext.declareNsUri(
-                        xmlNs.namespaceURI(),
-                        xmlNs.prefix() == null ? "" : xmlNs.prefix(),
-                        xmlNs.prefix() != null);
-            }
-
             // seenRoot set to true in endAttributes
-            // first declare all known URIs
-            String[] knownUris = nameList.namespaceURIs;
-            for( int i=0; i<knownUris.length; i++ )
-                knownUri2prefixIndexMap[i] = nsContext.declareNsUri(knownUris[i], null, nameList.nsUriCannotBeDefaulted[i]);
-
-            // then declare user-specified namespace URIs.
-            // work defensively. we are calling an user-defined method.
-            String[] uris = nsContext.getPrefixMapper().getPreDeclaredNamespaceUris();
-            if( uris!=null ) {
-                for (String uri : uris) {
-                    if (uri != null)
-                        nsContext.declareNsUri(uri, null, false);
-                }
-            }
-            String[] pairs = nsContext.getPrefixMapper().getPreDeclaredNamespaceUris2();
-            if( pairs!=null ) {
-                for( int i=0; i<pairs.length; i+=2 ) {
-                    String prefix = pairs[i];
-                    String nsUri = pairs[i+1];
-                    if(prefix!=null && nsUri!=null)
-                        // in this case, we don't want the redundant binding consolidation
-                        // to happen (such as declaring the same namespace URI twice with
-                        // different prefixes.) Hence we call the put method directly.
-                        nsContext.put(nsUri,prefix);
+            boolean xsi = schemaLocation!=null || noNsSchemaLocation!=null;
+            if(nsContext.isLayoutCacheable()) {
+                NamespaceContextImpl.Layout layout = grammar.getNamespaceLayout(xsi);
+                if(layout!=null) {
+                    nsContext.setLayout(layout,knownUri2prefixIndexMap);
+                } else {
+                    declareRootNamespaces(xsi);
+                    grammar.setNamespaceLayout(xsi,nsContext.createLayout(knownUri2prefixIndexMap));
                 }
-            }
-
-            if(schemaLocation!=null || noNsSchemaLocation!=null) {
-                nsContext.declareNsUri(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI,"xsi",true);
+            } else {
+                declareRootNamespaces(xsi);
             }
         }
 
@@ -907,6 +979,53 @@ public final class XMLSerializer extends Coordinator {
         textHasAlreadyPrinted = false;
     }
 
+    /**
+     * Declares the namespace bindings that the root element starts with.
+     *
+     * @param xsi
+     *      true to declare the xsi prefix for the schema location.
+     */
+    private void declareRootNamespaces(boolean xsi) {
+        if (grammar.getXmlNsSet() != null) {
+            for(XmlNs xmlNs : grammar.getXmlNsSet())
+                nsContext.declareNsUri(
+                    xmlNs.namespaceURI(),
+                    xmlNs.prefix() == null ? "" : xmlNs.prefix(),
+                    xmlNs.prefix() != null);
+        }
+
+        // first declare all known URIs
+        String[] knownUris = nameList.namespaceURIs;
+        for( int i=0; i<knownUris.length; i++ )
+            knownUri2prefixIndexMap[i] = nsContext.declareNsUri(knownUris[i], null, nameList.nsUriCannotBeDefaulted[i]);
+
+        // then declare user-specified namespace URIs.
+        // work defensively. we are calling an user-defined method.
+        String[] uris = nsContext.getPrefixMapper().getPreDeclaredNamespaceUris();
+        if( uris!=null ) {
+            for (String uri : uris) {
+                if (uri != null)
+                    nsContext.declareNsUri(uri, null, false);
+            }
+        }
+        String[] pairs = nsContext.getPrefixMapper().getPreDeclaredNamespaceUris2();
+        if( pairs!=null ) {
+            for( int i=0; i<pairs.length; i+=2 ) {
+                String prefix = pairs[i];
+                String nsUri = pairs[i+1];
+                if(prefix!=null && nsUri!=null)
+                    // in this case, we don't want the redundant binding consolidation
+                    // to happen (such as declaring the same namespace URI twice with
+                    // different prefixes.) Hence we call the put method directly.
+                    nsContext.put(nsUri,prefix);
+            }
+        }
+
+        if(xsi) {
+            nsContext.declareNsUri(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI,"xsi",true);
+        }
+    }
+
     private MimeType expectedMimeType;
 
     /**
@@ -962,6 +1081,155 @@ public final class XMLSerializer extends Coordinator {
         return cycleDetectionStack.getUseIdentity();
     }
 
+    public void setCycleCheckDepth(int depth) {
+        cycleCheckDepth = depth;
+    }
+    public int getCycleCheckDepth() {
+        return cycleCheckDepth;
+    }
+
+    public void setParallelExecutor(Executor executor) {
+        parallelExecutor = executor;
+    }
+    public Executor getParallelExecutor() {
+        return parallelExecutor;
+    }
+
+    public void setParallelThreshold(int threshold) {
+        parallelThreshold = threshold;
+    }
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Writes an item of a list, as {@link #writeItems(List, ItemWriter)} does it.
+     */
+    public interface ItemWriter<T> {
+        void write(T item, XMLSerializer w) throws SAXException, AccessorException, IOException, XMLStreamException;
+    }
+
+    /**
+     * Returns true if {@link #writeItems(List, ItemWriter)} may write the items in parallel,
+     * so that it's worth collecting them.
+     */
+    public boolean canWriteItemsInParallel() {
+        // attachments would be added out of order
+        return parallelExecutor!=null && attachmentMarshaller==null
+                && out!=null && out.getClass()==UTF8XmlOutput.class;
+    }
+
+    /**
+     * Writes the items of a list as the content of the current element.
+     *
+     * <p>
+     * If the list is large enough, it's split into chunks that are written on the
+     * {@link MarshallerImpl#PARALLEL_EXECUTOR} by other {@link XMLSerializer}s.
+     * They start from the namespace bindings in scope here, and write into their own buffers,
+     * which are then written to this output in order.
+     */
+    public <T> void writeItems(List<T> items, ItemWriter<T> writer) throws SAXException, AccessorException, IOException, XMLStreamException {
+        int n = items.size();
+        if(n<parallelThreshold || !canWriteItemsInParallel()) {
+            for( T item : items )
+                writer.write(item,this);
+            return;
+        }
+
+        // snapshot of what the chunks start from, taken on this thread
+        int count = nsContext.count();
+        String[] prefixes = new String[count];
+        String[] nsUris = new String[count];
+        for( int i=0; i<count; i++ ) {
+            prefixes[i] = nsContext.getPrefix(i);
+            nsUris[i] = nsContext.getNamespaceURI(i);
+        }
+        int[] knownUris = knownUri2prefixIndexMap.clone();
+        ByteBufferPool pool = marshaller.getByteBufferPool();
+        UTF8XmlOutput parent = (UTF8XmlOutput)out;
+
+        int chunkSize = Math.max(parallelThreshold/4, n/(4*Runtime.getRuntime().availableProcessors())+1);
+        List<CompletableFuture<ByteBufferOutputStream>> chunks = new ArrayList<>();
+        for( int from=0; from<n; from+=chunkSize ) {
+            List<T> chunk = items.subList(from,Math.min(n,from+chunkSize));
+            XMLSerializer w = new XMLSerializer(marshaller);
+            w.setPrefixMapper(nsContext.getPrefixMapper());
+            w.putAdapters(this);
+            w.setObjectIdentityCycleDetection(getObjectIdentityCycleDetection());
+            w.cycleCheckDepth = cycleCheckDepth;
+            chunks.add(CompletableFuture.supplyAsync(() -> {
+                ByteBufferOutputStream bytes = new ByteBufferOutputStream(pool);
+                return w.writeChunk(chunk,writer,prefixes,nsUris,knownUris,bytes,parent.duplicate(bytes));
+            }, parallelExecutor));
+        }
+
+        for( int i=0; i<chunks.size(); i++ ) {
+            ByteBufferOutputStream bytes;
+            try {
+                bytes = chunks.get(i).join();
+            } catch (CompletionException e) {
+                for( int j=i+1; j<chunks.size(); j++ )
+                    chunks.get(j).cancel(false);
+                Throwable cause = e.getCause();
+                if(cause instanceof SAXException)
+                    throw (SAXException)cause;
+                if(cause instanceof AccessorException)
+                    throw (AccessorException)cause;
+                if(cause instanceof IOException)
+                    throw (IOException)cause;
+                if(cause instanceof XMLStreamException)
+                    throw (XMLStreamException)cause;
+                throw e;
+            }
+            try {
+                parent.writeContent(bytes.getBuffers());
+            } finally {
+                bytes.release();
+            }
+        }
+        textHasAlreadyPrinted = false;
+    }
+
+    /**
+     * Writes a chunk of {@link #writeItems(List, ItemWriter)} on this {@link XMLSerializer}.
+     *
+     * @param out
+     *      writes to {@code bytes}.
+     * @return
+     *      {@code bytes}.
+     */
+    private <T> ByteBufferOutputStream writeChunk(List<T> items, ItemWriter<T> writer,
+            String[] prefixes, String[] nsUris, int[] knownUris, ByteBufferOutputStream bytes, UTF8XmlOutput out) {
+        pushCoordinator();
+        try {
+            nsContext.reset();
+            for( int i=1; i<nsUris.length; i++ )
+                nsContext.put(nsUris[i],prefixes[i]);
+            // the items are children of an element that isn't written, not root elements
+            nse = nsContext.getCurrent().push();
+            System.arraycopy(knownUris,0,knownUri2prefixIndexMap,0,knownUris.length);
+            this.out = out;
+            textHasAlreadyPrinted = false;
+            seenRoot = true;
+            fragment = true;
+            cycleDetectionStack.reset();
+            out.startDocument(this,true,knownUri2prefixIndexMap,nsContext);
+
+            for( T item : items )
+                writer.write(item,this);
+
+            out.endDocument(true);
+            return bytes;
+        } catch (SAXException | AccessorException | IOException | XMLStreamException e) {
+            bytes.release();
+            throw new CompletionException(e);
+        } finally {
+            this.out = null;
+            clearCurrentProperty();
+            popCoordinator();
+        }
+    }
+
     void reconcileID() throws SAXException {
         // find objects that were not a part of the object graph
         idReferencedObjects.removeAll(objectsWithId);
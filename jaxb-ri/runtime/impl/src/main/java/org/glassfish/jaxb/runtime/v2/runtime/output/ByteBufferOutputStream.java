@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link OutputStream} that collects the bytes in a chain of {@link ByteBuffer}
+ * segments taken from a {@link ByteBufferPool}.
+ *
+ * <p>
+ * The marshaller writes into it as into any other stream. Once the document is
+ * complete, the segments can be handed to the network layer as they are with
+ * {@link #getBuffers()}, or written to a channel with one gathering write with
+ * {@link #writeTo(WritableByteChannel)}. {@link #release()} then gives the segments
+ * back to the pool.
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @see cn.glassfish.jaxb.runtime.v2.runtime.MarshallerImpl#marshal(Object, WritableByteChannel)
+ */
+public final class ByteBufferOutputStream extends OutputStream {
+
+    private final ByteBufferPool pool;
+
+    private final List<ByteBuffer> segments = new ArrayList<>();
+
+    /** The last segment of {@link #segments}, which is being written. */
+    private ByteBuffer current;
+
+    public ByteBufferOutputStream(ByteBufferPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void write(int b) {
+        if(current==null || !current.hasRemaining())
+            nextSegment();
+        current.put((byte)b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while(len>0) {
+            if(current==null || !current.hasRemaining())
+                nextSegment();
+            int n = Math.min(len,current.remaining());
+            current.put(b,off,n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    private void nextSegment() {
+        current = pool.take();
+        segments.add(current);
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     */
+    public long size() {
+        long size = 0;
+        for( ByteBuffer b : segments )
+            size += b.position();
+        return size;
+    }
+
+    /**
+     * Gets the bytes written so far, ready to be read.
+     *
+     * <p>
+     * The returned buffers share their content with the segments, so they
+     * must not be used after {@link #release()}.
+     */
+    public ByteBuffer[] getBuffers() {
+        ByteBuffer[] r = new ByteBuffer[segments.size()];
+        for( int i=0; i<r.length; i++ )
+            r[i] = segments.get(i).duplicate().flip();
+        return r;
+    }
+
+    /**
+     * Writes all the bytes to the given channel, which is expected to be in blocking mode.
+     * A {@link GatheringByteChannel} is written all segments at once.
+     *
+     * @return
+     *      the number of bytes written.
+     */
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        ByteBuffer[] buffers = getBuffers();
+        long total = size();
+        if(channel instanceof GatheringByteChannel) {
+            GatheringByteChannel gc = (GatheringByteChannel) channel;
+            int first = 0;
+            for( long written=0; written<total; ) {
+                written += gc.write(buffers,first,buffers.length-first);
+                while(first<buffers.length && !buffers[first].hasRemaining())
+                    first++;
+            }
+        } else {
+            for( ByteBuffer b : buffers ) {
+                while(b.hasRemaining())
+                    channel.write(b);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gives the segments back to the pool and empties this stream, so that it can be reused.
+     */
+    public void release() {
+        for( ByteBuffer b : segments )
+            pool.recycle(b);
+        segments.clear();
+        current = null;
+    }
+}
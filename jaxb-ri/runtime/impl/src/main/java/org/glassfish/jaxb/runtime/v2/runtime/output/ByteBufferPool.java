@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.output;
+
+import com.sun.istack.NotNull;
+import com.sun.istack.Pool;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pool of equally sized {@link ByteBuffer}s that {@link ByteBufferOutputStream}
+ * takes its segments from.
+ *
+ * <p>
+ * The pool is thread-safe and can be shared by many marshallers. Like the other
+ * pools of the runtime, the idle buffers are only weakly held and may be discarded
+ * by the garbage collector.
+ */
+public final class ByteBufferPool {
+
+    private final int segmentSize;
+    private final boolean direct;
+
+    private final Pool<ByteBuffer> pool = new Pool.Impl<ByteBuffer>() {
+        @Override
+        protected @NotNull ByteBuffer create() {
+            return direct ? ByteBuffer.allocateDirect(segmentSize) : ByteBuffer.allocate(segmentSize);
+        }
+    };
+
+    /**
+     * @param segmentSize
+     *      size of the buffers, in bytes.
+     * @param direct
+     *      true to allocate direct buffers, which channels can write without copying them first.
+     */
+    public ByteBufferPool(int segmentSize, boolean direct) {
+        if(segmentSize<=0)
+            throw new IllegalArgumentException("segmentSize must be positive: "+segmentSize);
+        this.segmentSize = segmentSize;
+        this.direct = direct;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * Gets an empty buffer from the pool, or allocates a new one.
+     */
+    public @NotNull ByteBuffer take() {
+        return pool.take();
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers that were not taken from this pool are ignored.
+     */
+    public void recycle(@NotNull ByteBuffer buffer) {
+        if(buffer.capacity()!=segmentSize || buffer.isDirect()!=direct || buffer.isReadOnly())
+            return;
+        buffer.clear();
+        pool.recycle(buffer);
+    }
+}
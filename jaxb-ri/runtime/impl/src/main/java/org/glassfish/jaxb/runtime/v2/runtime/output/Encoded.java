@@ -78,12 +78,37 @@ public final class Encoded {
      *      if true, characters like \t, \r, and \n are also escaped.
      */
     public final void setEscape(String text, boolean isAttribute) {
+        setEscape(text, 0, DEFAULT_ESCAPES, isAttribute);
+    }
+
+    /**
+     * Fill in the buffer by encoding the characters of the text from the given index,
+     * while escaping characters with the given {@link Escapes}.
+     *
+     * <p>
+     * Runs of characters that need no escaping are found by {@link #skipClean(String, int, long)}
+     * and copied at once.
+     */
+    @SuppressWarnings("deprecation")
+    final void setEscape(String text, int start, Escapes escapes, boolean isAttribute) {
         int length = text.length();
-        ensureSize(length*6+1);     // in the worst case the text is like """""", so we need 6 bytes per char
+        ensureSize((length-start)*6+1);     // in the worst case the text is like """""", so we need 6 bytes per char
 
+        byte[][] entities = escapes.entities(isAttribute);
+        long specials = escapes.specials(isAttribute);
         int ptr = 0;
 
-        for (int i = 0; i < length; i++) {
+        for (int i = start; i < length; i++) {
+            int end = skipClean(text, i, specials);
+            if (end > i) {
+                // only ASCII characters, so the low byte of each is its encoding
+                text.getBytes(i, end, buf, ptr);
+                ptr += end-i;
+                i = end;
+                if (i == length)
+                    break;
+            }
+
             final char chr = text.charAt(i);
 
             int ptr1 = ptr;
@@ -106,18 +131,10 @@ public final class Encoded {
                 }
                 buf[ptr1++] = (byte)(0x80 + (chr & 0x3F));
             } else {
-                byte[] ent;
-
-                if((ent=attributeEntities[chr])!=null) {
-                    // the majority of the case is just printed as a char,
-                    // so it's very important to reject them as quickly as possible
-
-                    // check again to see if this really needs to be escaped
-                    if(isAttribute || entities[chr]!=null)
-                        ptr1 = writeEntity(ent,ptr1);
-                    else
-                        buf[ptr1++] = (byte)chr;
-                } else
+                byte[] ent = entities[chr];
+                if(ent!=null)
+                    ptr1 = writeEntity(ent,ptr1);
+                else
                     buf[ptr1++] = (byte)chr;
             }
             ptr = ptr1;
@@ -125,6 +142,46 @@ public final class Encoded {
         len = ptr;
     }
 
+    /**
+     * Finds the first character from the given index that is not ASCII or that needs escaping.
+     *
+     * <p>
+     * Four characters are tested at a time without branching, so a text that needs no
+     * escaping, which is the most common case, is scanned with a single branch every
+     * four characters.
+     *
+     * @param specials
+     *      as returned by {@link Escapes#specials(boolean)}.
+     * @return
+     *      the index of that character, or the length of the text if there is none.
+     */
+    static int skipClean(String text, int i, long specials) {
+        int length = text.length();
+        for( ; i+4<=length; i+=4 ) {
+            int c0 = text.charAt(i);
+            int c1 = text.charAt(i+1);
+            int c2 = text.charAt(i+2);
+            int c3 = text.charAt(i+3);
+            if(((c0|c1|c2|c3)>=0x80) | (isSpecial(c0,specials)|isSpecial(c1,specials)|isSpecial(c2,specials)|isSpecial(c3,specials))!=0)
+                break;
+        }
+        for( ; i<length; i++ ) {
+            int c = text.charAt(i);
+            if(c>=0x80 || isSpecial(c,specials)!=0)
+                break;
+        }
+        return i;
+    }
+
+    /**
+     * Returns non-zero if the character is one of the specials,
+     * which are all below 0x40. The character must be ASCII.
+     */
+    private static long isSpecial(int c, long specials) {
+        // (c-0x40)>>31 is all ones below 0x40, and 0 otherwise
+        return (specials>>>c) & 1 & ((c-0x40)>>31);
+    }
+
     private int writeEntity( byte[] entity, int ptr ) {
         System.arraycopy(entity,0,buf,ptr,entity.length);
         return ptr+entity.length;
@@ -156,28 +213,66 @@ public final class Encoded {
     }
 
     /**
-     * UTF-8 encoded entities keyed by their character code.
-     * e.g., entities['&'] == AMP_ENTITY.
-     *
-     * In attributes we need to encode more characters.
+     * Characters to escape in text and in attribute values, and their escaped form.
      */
-    private static final byte[][] entities = new byte[0x80][];
-    private static final byte[][] attributeEntities = new byte[0x80][];
-
-    static {
-        add('&',"&amp;",false);
-        add('<',"&lt;",false);
-        add('>',"&gt;",false);
-        add('"',"&quot;",true);
-        add('\t',"&#x9;",true);
-        add('\r',"&#xD;",false);
-        add('\n',"&#xA;",true);
-    }
+    static final class Escapes {
+        /**
+         * UTF-8 encoded entities keyed by their character code.
+         * e.g., text['&'] == AMP_ENTITY.
+         *
+         * In attributes we need to encode more characters.
+         */
+        private final byte[][] text = new byte[0x80][];
+        private final byte[][] attribute = new byte[0x80][];
+
+        /**
+         * Bit masks of the characters of {@link #text} and {@link #attribute},
+         * which must all be below 0x40.
+         */
+        private long textSpecials;
+        private long attributeSpecials;
+
+        private Escapes add(char c, String s, boolean attOnly) {
+            assert c<0x40;
+            byte[] image = UTF8XmlOutput.toBytes(s);
+            attribute[c] = image;
+            attributeSpecials |= 1L<<c;
+            if(!attOnly) {
+                text[c] = image;
+                textSpecials |= 1L<<c;
+            }
+            return this;
+        }
 
-    private static void add(char c, String s, boolean attOnly) {
-        byte[] image = UTF8XmlOutput.toBytes(s);
-        attributeEntities[c] = image;
-        if(!attOnly)
-            entities[c] = image;
+        byte[][] entities(boolean isAttribute) {
+            return isAttribute ? attribute : text;
+        }
+
+        long specials(boolean isAttribute) {
+            return isAttribute ? attributeSpecials : textSpecials;
+        }
     }
+
+    /**
+     * The escaping of {@link #setEscape(String, boolean)}.
+     */
+    static final Escapes DEFAULT_ESCAPES = new Escapes()
+        .add('&',"&amp;",false)
+        .add('<',"&lt;",false)
+        .add('>',"&gt;",false)
+        .add('"',"&quot;",true)
+        .add('\t',"&#x9;",true)
+        .add('\r',"&#xD;",false)
+        .add('\n',"&#xA;",true);
+
+    /**
+     * The same escaping as {@link cn.glassfish.jaxb.core.marshaller.MinimumEscapeHandler}.
+     */
+    static final Escapes MINIMUM_ESCAPES = new Escapes()
+        .add('&',"&amp;",false)
+        .add('<',"&lt;",false)
+        .add('>',"&gt;",false)
+        .add('"',"&quot;",true)
+        .add('\r',"&#13;",false)
+        .add('\n',"&#10;",true);
 }
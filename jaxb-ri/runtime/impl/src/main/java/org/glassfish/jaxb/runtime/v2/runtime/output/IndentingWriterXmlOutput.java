@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.output;
+
+import cn.glassfish.jaxb.core.marshaller.CharacterEscapeHandler;
+import cn.glassfish.jaxb.core.marshaller.DataWriter;
+import cn.glassfish.jaxb.runtime.v2.runtime.Name;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@link WriterXmlOutput} with indentation.
+ *
+ * <p>
+ * The output is laid out the same way as {@link DataWriter} does it:
+ * an element that only has child elements gets its end tag on a line of its own,
+ * and an element with text is left on one line.
+ */
+public final class IndentingWriterXmlOutput extends WriterXmlOutput {
+
+    private final char[] indent;
+
+    private int depth = 0;
+
+    /**
+     * True if the current element has child elements, false if it has
+     * text or nothing at all so far.
+     */
+    private boolean seenElement = false;
+
+    public IndentingWriterXmlOutput(Writer out, String encoding, String indent, char[][] localNames, char[] buffer, CharacterEscapeHandler escapeHandler, int charLimit) {
+        super(out, encoding, localNames, buffer, escapeHandler, charLimit);
+        this.indent = indent.toCharArray();
+    }
+
+    @Override
+    protected void writeXmlDecl() throws IOException {
+        super.writeXmlDecl();
+        write('\n');
+    }
+
+    @Override
+    public void beginStartTag(int prefix, String localName) throws IOException {
+        indentStartTag();
+        super.beginStartTag(prefix, localName);
+    }
+
+    @Override
+    public void beginStartTag(Name name) throws IOException {
+        indentStartTag();
+        super.beginStartTag(name);
+    }
+
+    private void indentStartTag() throws IOException {
+        seenElement = false;
+        if(depth>0) {
+            closeStartTag();
+            write('\n');
+        }
+        printIndent();
+        depth++;
+    }
+
+    @Override
+    public void endTag(Name name) throws IOException {
+        indentEndTag();
+        super.endTag(name);
+    }
+
+    @Override
+    public void endTag(int prefix, String localName) throws IOException {
+        indentEndTag();
+        super.endTag(prefix, localName);
+    }
+
+    private void indentEndTag() throws IOException {
+        depth--;
+        if(seenElement) {
+            write('\n');
+            printIndent();
+        }
+        seenElement = true;
+    }
+
+    private void printIndent() throws IOException {
+        for( int i=0; i<depth; i++ )
+            write(indent);
+    }
+
+    @Override
+    public void text(String value, boolean needSP) throws IOException {
+        seenElement = false;
+        super.text(value, needSP);
+    }
+
+    @Override
+    public void text(Pcdata value, boolean needSP) throws IOException {
+        seenElement = false;
+        super.text(value, needSP);
+    }
+
+    @Override
+    public void endDocument(boolean fragment) throws IOException, SAXException, XMLStreamException {
+        if(!fragment)
+            write('\n');
+        super.endDocument(fragment);
+    }
+}
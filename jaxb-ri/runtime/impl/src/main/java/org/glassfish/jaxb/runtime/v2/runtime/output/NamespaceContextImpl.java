@@ -21,9 +21,12 @@ import org.xml.sax.SAXException;
 
 import javax.xml.XMLConstants;
 import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 
 /**
  * Keeps track of in-scope namespace bindings for the marshaller.
@@ -90,6 +93,12 @@ public final class NamespaceContextImpl implements NamespaceContext2 {
      */
     public boolean collectionMode;
 
+    /**
+     * The {@link Layout} the bindings of the root element started from, or null.
+     * While no other bindings are in scope, URIs are looked up in it.
+     */
+    private Layout layout;
+
 
     public NamespaceContextImpl(XMLSerializer owner) {
         this.owner = owner;
@@ -113,6 +122,61 @@ public final class NamespaceContextImpl implements NamespaceContext2 {
         current = top;
         size = 1;
         collectionMode = false;
+        layout = null;
+    }
+
+    /**
+     * Returns true if the bindings declared so far only depend on the {@link cn.glassfish.jaxb.runtime.v2.runtime.JAXBContextImpl},
+     * so that a {@link Layout} taken from them can be used for other documents.
+     *
+     * <p>
+     * That is the case on the root element, when there are no contextual bindings
+     * and the default {@link NamespacePrefixMapper} is used.
+     * A user-defined {@link NamespacePrefixMapper} is free to answer differently every time.
+     */
+    public boolean isLayoutCacheable() {
+        return prefixMapper==defaultNamespacePrefixMapper && current.isRootElement() && current.baseIndex==1;
+    }
+
+    /**
+     * Takes the bindings declared so far as a {@link Layout}, and starts using it.
+     *
+     * @param knownUri2prefixIndexMap
+     *      the prefix indices of the known namespace URIs.
+     */
+    public Layout createLayout(int[] knownUri2prefixIndexMap) {
+        layout = new Layout(this, knownUri2prefixIndexMap);
+        return layout;
+    }
+
+    /**
+     * Declares the bindings of the given {@link Layout}, instead of declaring them one by one.
+     * This must be done under the same conditions as {@link #isLayoutCacheable()}.
+     *
+     * @param knownUri2prefixIndexMap
+     *      receives the prefix indices of the known namespace URIs.
+     */
+    public void setLayout(Layout layout, int[] knownUri2prefixIndexMap) {
+        assert isLayoutCacheable() && size==1;
+        if(nsUris.length<layout.size) {
+            nsUris = new String[layout.size];
+            prefixes = new String[layout.size];
+        }
+        System.arraycopy(layout.nsUris,0,nsUris,0,layout.size);
+        System.arraycopy(layout.prefixes,0,prefixes,0,layout.size);
+        System.arraycopy(layout.knownUri2prefixIndexMap,0,knownUri2prefixIndexMap,0,knownUri2prefixIndexMap.length);
+        size = layout.size;
+        this.layout = layout;
+    }
+
+    /**
+     * Gets the {@link Layout} the bindings started from.
+     *
+     * @return
+     *      null if there is no such {@link Layout}, or if the bindings of it have been modified.
+     */
+    public Layout getLayout() {
+        return layout;
     }
 
     /**
@@ -120,6 +184,13 @@ public final class NamespaceContextImpl implements NamespaceContext2 {
      * This method allocates a new URI if necessary.
      */
     public int declareNsUri( String uri, String preferedPrefix, boolean requirePrefix ) {
+        if(layout!=null && size==layout.size && uri.length()>0) {
+            // only the bindings of the layout are in scope
+            int i = layout.indexOf(uri,requirePrefix);
+            if(i>=0)
+                return i;
+        }
+
         preferedPrefix = prefixMapper.getPreferredPrefix(uri,preferedPrefix,requirePrefix);
 
         if(uri.length()==0) {
@@ -138,6 +209,7 @@ public final class NamespaceContextImpl implements NamespaceContext2 {
                         // this default prefix is declared in this context. just reassign it
 
                         nsUris[i] = "";
+                        layout = null;
 
                         int subst = put(oldUri,null);
 
@@ -530,6 +602,133 @@ public final class NamespaceContextImpl implements NamespaceContext2 {
     }
 
 
+    /**
+     * Namespace bindings that the root element starts with, which are the same for all the
+     * documents of a {@link cn.glassfish.jaxb.runtime.v2.runtime.JAXBContextImpl}
+     * marshalled with the default {@link NamespacePrefixMapper}.
+     *
+     * <p>
+     * They are computed once and copied into the {@link NamespaceContextImpl} of the later documents,
+     * together with their prefixes and namespace declarations encoded in UTF-8.
+     * Instances are immutable, so they can be shared between threads.
+     *
+     * @see #isLayoutCacheable()
+     */
+    public static final class Layout {
+        private final String[] prefixes;
+        private final String[] nsUris;
+        private final int size;
+
+        private final int[] knownUri2prefixIndexMap;
+
+        /**
+         * Namespace URI to the last index it is bound at.
+         */
+        private final Map<String,Integer> indices = new HashMap<>();
+
+        /**
+         * Prefixes encoded like {@link UTF8XmlOutput} does it.
+         */
+        private final Encoded[] encodedPrefixes;
+
+        /**
+         * Namespace declarations of the root element, escaped with
+         * {@link Encoded#DEFAULT_ESCAPES} and {@link Encoded#MINIMUM_ESCAPES}.
+         */
+        private final byte[] defaultNsDecls;
+        private final byte[] minimumNsDecls;
+
+        private Layout(NamespaceContextImpl context, int[] knownUri2prefixIndexMap) {
+            size = context.size;
+            prefixes = new String[size];
+            nsUris = new String[size];
+            System.arraycopy(context.prefixes,0,prefixes,0,size);
+            System.arraycopy(context.nsUris,0,nsUris,0,size);
+            this.knownUri2prefixIndexMap = knownUri2prefixIndexMap.clone();
+
+            encodedPrefixes = new Encoded[size];
+            for( int i=0; i<size; i++ ) {
+                indices.put(nsUris[i],i);
+                Encoded e = new Encoded(prefixes[i]);
+                if(prefixes[i].length()>0)
+                    e.append(':');
+                encodedPrefixes[i] = e;
+            }
+
+            defaultNsDecls = encodeNsDecls(Encoded.DEFAULT_ESCAPES);
+            minimumNsDecls = encodeNsDecls(Encoded.MINIMUM_ESCAPES);
+        }
+
+        /**
+         * Encodes the declarations of the root element the same way as
+         * {@link UTF8XmlOutput#writeNsDecl(int)}. The first binding is the predeclared xml prefix.
+         */
+        private byte[] encodeNsDecls(Encoded.Escapes escapes) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            Encoded e = new Encoded();
+            for( int i=1; i<size; i++ ) {
+                if(prefixes[i].length()==0) {
+                    if(nsUris[i].length()==0)
+                        continue;   // no point in declaring xmlns="" on the root element
+                    e.set(" xmlns=\"");
+                } else {
+                    e.set(" xmlns:"+prefixes[i]+"=\"");
+                }
+                baos.write(e.buf,0,e.len);
+                e.setEscape(nsUris[i],0,escapes,true);
+                baos.write(e.buf,0,e.len);
+                baos.write('"');
+            }
+            return baos.toByteArray();
+        }
+
+        /**
+         * Gets the number of bindings.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the index a non-empty namespace URI is bound at, the same way
+         * {@link NamespaceContextImpl#declareNsUri(String, String, boolean)} finds it.
+         *
+         * @return
+         *      -1 if the URI is not bound, or if it's bound to the default prefix and
+         *      a prefix is required.
+         */
+        int indexOf(String uri, boolean requirePrefix) {
+            Integer i = indices.get(uri);
+            if(i==null || (requirePrefix && prefixes[i].length()==0))
+                return -1;
+            return i;
+        }
+
+        /**
+         * Gets the prefixes encoded like {@link UTF8XmlOutput} does it,
+         * with a trailing ':' if non-empty. They must not be modified.
+         */
+        Encoded[] getEncodedPrefixes() {
+            return encodedPrefixes;
+        }
+
+        /**
+         * Gets the namespace declarations of the root element, except the
+         * predeclared xml prefix, encoded in UTF-8.
+         *
+         * @return
+         *      null if the declarations are not available for these escapes.
+         */
+        byte[] getNsDecls(Encoded.Escapes escapes) {
+            if(escapes==Encoded.DEFAULT_ESCAPES)
+                return defaultNsDecls;
+            if(escapes==Encoded.MINIMUM_ESCAPES)
+                return minimumNsDecls;
+            return null;
+        }
+    }
+
+
     /**
      * Default {@link NamespacePrefixMapper} implementation used when
      * it is not specified by the user.
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link Writer} that encodes characters straight into an {@link OutputStream}
+ * for the encodings where that only takes a trivial loop:
+ * ISO-8859-1, US-ASCII and the flavors of UTF-16.
+ *
+ * <p>
+ * Used with {@link WriterXmlOutput}, which writes the characters that the
+ * single-byte encodings can't represent as character references, so that
+ * no {@link java.nio.charset.CharsetEncoder} is needed.
+ * Characters that still can't be represented are written as {@code '?'},
+ * as {@link java.io.OutputStreamWriter} would do.
+ */
+public final class SimpleEncodingWriter extends Writer {
+
+    private final OutputStream out;
+
+    /**
+     * Characters at or above this value can't be represented.
+     */
+    private final int limit;
+
+    /**
+     * True for UTF-16, false for single-byte encodings.
+     */
+    private final boolean wide;
+    private final boolean littleEndian;
+
+    private final byte[] buf = new byte[8192];
+    private int len;
+
+    private SimpleEncodingWriter(OutputStream out, int limit, boolean wide, boolean littleEndian) {
+        this.out = out;
+        this.limit = limit;
+        this.wide = wide;
+        this.littleEndian = littleEndian;
+    }
+
+    /**
+     * Creates a writer for the given Java encoding name.
+     *
+     * @return
+     *      null if the encoding is not one of the supported ones.
+     */
+    public static SimpleEncodingWriter create(OutputStream out, String javaEncoding) {
+        Charset cs;
+        try {
+            if(!Charset.isSupported(javaEncoding))
+                return null;
+            cs = Charset.forName(javaEncoding);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if(cs.equals(StandardCharsets.ISO_8859_1))
+            return new SimpleEncodingWriter(out, 0x100, false, false);
+        if(cs.equals(StandardCharsets.US_ASCII))
+            return new SimpleEncodingWriter(out, 0x80, false, false);
+        if(cs.equals(StandardCharsets.UTF_16BE))
+            return new SimpleEncodingWriter(out, 0x10000, true, false);
+        if(cs.equals(StandardCharsets.UTF_16LE))
+            return new SimpleEncodingWriter(out, 0x10000, true, true);
+        if(cs.equals(StandardCharsets.UTF_16)) {
+            // big endian with a byte order mark, like the JDK encoder
+            SimpleEncodingWriter w = new SimpleEncodingWriter(out, 0x10000, true, false);
+            w.buf[w.len++] = (byte)0xFE;
+            w.buf[w.len++] = (byte)0xFF;
+            return w;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the first character that this writer can't represent,
+     * or {@code 0x10000} if it can represent them all.
+     */
+    public int getCharacterLimit() {
+        return limit;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if(len+2>buf.length)
+            flushBuffer();
+        put((char)c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int n) throws IOException {
+        int end = off+n;
+        int step = wide ? 2 : 1;
+        while(off<end) {
+            int room = (buf.length-len)/step;
+            if(room==0) {
+                flushBuffer();
+                continue;
+            }
+            int stop = Math.min(end, off+room);
+            if(wide) {
+                for( ; off<stop; off++ )
+                    putWide(cbuf[off]);
+            } else {
+                byte[] b = buf;
+                int i = len;
+                for( ; off<stop; off++ ) {
+                    char c = cbuf[off];
+                    b[i++] = c<limit ? (byte)c : (byte)'?';
+                }
+                len = i;
+            }
+        }
+    }
+
+    @Override
+    public void write(String s, int off, int n) throws IOException {
+        for( int i=off; i<off+n; i++ ) {
+            if(len+2>buf.length)
+                flushBuffer();
+            put(s.charAt(i));
+        }
+    }
+
+    private void put(char c) {
+        if(wide)
+            putWide(c);
+        else
+            buf[len++] = c<limit ? (byte)c : (byte)'?';
+    }
+
+    private void putWide(char c) {
+        if(littleEndian) {
+            buf[len++] = (byte)c;
+            buf[len++] = (byte)(c>>8);
+        } else {
+            buf[len++] = (byte)(c>>8);
+            buf[len++] = (byte)c;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buf, 0, len);
+        len = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.output;
+
+import cn.glassfish.jaxb.runtime.v2.runtime.Name;
+
+/**
+ * Start and end tags of the elements of a context, encoded in UTF-8
+ * together with their prefix, so that {@link UTF8XmlOutput} writes a tag
+ * with a single copy instead of putting it together piece by piece.
+ *
+ * <p>
+ * The tags of an element are built the first time it is written, and built
+ * again whenever it is written with another prefix than the last time.
+ * The marshaller keeps the templates from one document to the next, since
+ * the prefixes rarely change between documents.
+ *
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @see UTF8XmlOutput#setTagTemplates(TagTemplates)
+ */
+public final class TagTemplates {
+
+    /** local names encoded in UTF-8. */
+    private final Encoded[] localNames;
+
+    /** Prefix that the tags were built for, indexed by {@link Name#qNameIndex}. */
+    private final String[] prefixes;
+
+    /** {@code "<p:name"}, indexed by {@link Name#qNameIndex}. */
+    private final byte[][] startTags;
+
+    /** {@code "</p:name>"}, indexed by {@link Name#qNameIndex}. */
+    private final byte[][] endTags;
+
+    /**
+     * @param localNames
+     *      local names of the context, as returned by {@code JAXBContextImpl.getUTF8NameTable()}.
+     * @param numberOfElementNames
+     *      as returned by {@code JAXBContextImpl.getNumberOfElementNames()}.
+     */
+    public TagTemplates(Encoded[] localNames, int numberOfElementNames) {
+        this.localNames = localNames;
+        this.prefixes = new String[numberOfElementNames];
+        this.startTags = new byte[numberOfElementNames][];
+        this.endTags = new byte[numberOfElementNames][];
+    }
+
+    /**
+     * Gets the start tag of the element without the closing {@code '>'},
+     * or null if the element is not one of the context.
+     */
+    byte[] getStartTag(Name name, String prefix) {
+        return prepare(name,prefix) ? startTags[name.qNameIndex] : null;
+    }
+
+    /**
+     * Gets the end tag of the element, or null if the element is not one of the context.
+     */
+    byte[] getEndTag(Name name, String prefix) {
+        return prepare(name,prefix) ? endTags[name.qNameIndex] : null;
+    }
+
+    private boolean prepare(Name name, String prefix) {
+        int i = name.qNameIndex;
+        if(i>=prefixes.length || name.isAttribute)
+            return false;
+
+        String p = prefixes[i];
+        if(p!=prefix && (p==null || !p.equals(prefix))) {
+            Encoded local = localNames[name.localNameIndex];
+            Encoded e = new Encoded(prefix);
+            if(e.len>0)
+                e.append(':');
+
+            byte[] start = new byte[1+e.len+local.len];
+            start[0] = '<';
+            System.arraycopy(e.buf,0,start,1,e.len);
+            System.arraycopy(local.buf,0,start,1+e.len,local.len);
+
+            byte[] end = new byte[2+e.len+local.len+1];
+            end[0] = '<';
+            end[1] = '/';
+            System.arraycopy(e.buf,0,end,2,e.len);
+            System.arraycopy(local.buf,0,end,2+e.len,local.len);
+            end[end.length-1] = '>';
+
+            startTags[i] = start;
+            endTags[i] = end;
+            prefixes[i] = prefix;
+        }
+        return true;
+    }
+}
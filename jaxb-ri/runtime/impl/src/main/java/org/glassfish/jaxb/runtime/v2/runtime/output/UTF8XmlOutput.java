@@ -11,6 +11,7 @@
 package cn.glassfish.jaxb.runtime.v2.runtime.output;
 
 import cn.glassfish.jaxb.core.marshaller.CharacterEscapeHandler;
+import cn.glassfish.jaxb.core.marshaller.MinimumEscapeHandler;
 import cn.glassfish.jaxb.runtime.DatatypeConverterImpl;
 import cn.glassfish.jaxb.runtime.v2.runtime.MarshallerImpl;
 import cn.glassfish.jaxb.runtime.v2.runtime.Name;
@@ -21,6 +22,7 @@ import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 
 /**
  * {@link XmlOutput} implementation specialized for UTF-8.
@@ -41,6 +43,12 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
      */
     private int prefixCount;
 
+    /**
+     * Of the {@link #prefixes}, number of leading entries that may be shared with
+     * a {@link NamespaceContextImpl.Layout}. They must be replaced, not modified.
+     */
+    private int sharedPrefixCount;
+
     /** local names encoded in UTF-8. All entries are pre-filled. */
     private final Encoded[] localNames;
 
@@ -74,6 +82,16 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
 
     private CharacterEscapeHandler escapeHandler = null;
 
+    /**
+     * Escaping done inline, or null to go through {@link #escapeHandler}.
+     */
+    private final Encoded.Escapes escapes;
+
+    /**
+     * Pre-encoded tags, or null to put them together from {@link #prefixes} and {@link #localNames}.
+     */
+    private TagTemplates tagTemplates;
+
     /**
      *
      * @param localNames
@@ -85,12 +103,51 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
         for( int i=0; i<prefixes.length; i++ )
             prefixes[i] = new Encoded();
         this.escapeHandler = escapeHandler;
+        if(escapeHandler==null)
+            escapes = Encoded.DEFAULT_ESCAPES;
+        else if(escapeHandler==MinimumEscapeHandler.theInstance)
+            escapes = Encoded.MINIMUM_ESCAPES;
+        else
+            escapes = null;
     }
 
     public void setHeader(String header) {
         this.header = header;
     }
 
+    /**
+     * Sets the templates to write the tags of the elements with.
+     * They must be created from the same local names as this object.
+     */
+    public void setTagTemplates(TagTemplates tagTemplates) {
+        this.tagTemplates = tagTemplates;
+    }
+
+    /**
+     * Creates an output that encodes and escapes the same way as this one,
+     * but writes to the given stream. Used to marshal parts of a document separately.
+     */
+    public UTF8XmlOutput duplicate(OutputStream out) {
+        return new UTF8XmlOutput(out, localNames, escapeHandler);
+    }
+
+    /**
+     * Writes content of the current element that has been marshalled separately
+     * by an output created with {@link #duplicate(OutputStream)}.
+     */
+    public void writeContent(ByteBuffer[] content) throws IOException {
+        closeStartTag();
+        for( ByteBuffer b : content ) {
+            while(b.hasRemaining()) {
+                if(octetBufferIndex==octetBuffer.length)
+                    flushBuffer();
+                int n = Math.min(b.remaining(),octetBuffer.length-octetBufferIndex);
+                b.get(octetBuffer,octetBufferIndex,n);
+                octetBufferIndex += n;
+            }
+        }
+    }
+
     @Override
     public void startDocument(XMLSerializer serializer, boolean fragment, int[] nsUriIndex2prefixIndex, NamespaceContextImpl nsContext) throws IOException, SAXException, XMLStreamException {
         super.startDocument(serializer, fragment,nsUriIndex2prefixIndex,nsContext);
@@ -134,11 +191,20 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
     public void beginStartTag(Name name) throws IOException {
         closeStartTag();
         int base = pushNsDecls();
-        write('<');
-        writeName(name);
+        byte[] tag = tagTemplates==null ? null : tagTemplates.getStartTag(name,getPrefix(name));
+        if(tag!=null)
+            write(tag);
+        else {
+            write('<');
+            writeName(name);
+        }
         writeNsDecls(base);
     }
 
+    private String getPrefix(Name name) {
+        return nsContext.getPrefix(nsUriIndex2prefixIndex[name.nsUriIndex]);
+    }
+
     private int pushNsDecls() {
         int total = nsContext.count();
         NamespaceContextImpl.Element ns = nsContext.getCurrent();
@@ -155,10 +221,22 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
 
         int base = Math.min(prefixCount,ns.getBase());
         int size = nsContext.count();
-        for( int i=base; i<size; i++ ) {
+        int i = base;
+
+        NamespaceContextImpl.Layout layout = nsContext.getLayout();
+        if(layout!=null && base<layout.size()) {
+            // the prefixes of the layout are already encoded
+            System.arraycopy(layout.getEncodedPrefixes(),base,prefixes,base,layout.size()-base);
+            i = sharedPrefixCount = layout.size();
+        }
+
+        int start = i;
+        for( ; i<size; i++ ) {
             String p = nsContext.getPrefix(i);
 
             Encoded e = prefixes[i];
+            if(i<sharedPrefixCount)
+                prefixes[i] = e = new Encoded();
 
             if(p.length()==0) {
                 e.buf = EMPTY_BYTE_ARRAY;
@@ -168,6 +246,8 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
                 e.append(':');
             }
         }
+        if(start<sharedPrefixCount && size>=sharedPrefixCount)
+            sharedPrefixCount = start;
         prefixCount = size;
         return base;
     }
@@ -175,8 +255,18 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
     protected void writeNsDecls(int base) throws IOException {
         NamespaceContextImpl.Element ns = nsContext.getCurrent();
         int size = nsContext.count();
+        int i = ns.getBase();
+
+        NamespaceContextImpl.Layout layout = nsContext.getLayout();
+        if(layout!=null && ns.isRootElement()) {
+            byte[] decls = layout.getNsDecls(escapes);
+            if(decls!=null) {
+                write(decls);
+                i = layout.size();
+            }
+        }
 
-        for( int i=ns.getBase(); i<size; i++ )
+        for( ; i<size; i++ )
             writeNsDecl(i);
     }
 
@@ -252,6 +342,11 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
             write(EMPTY_TAG);
             closeStartTagPending = false;
         } else {
+            byte[] tag = tagTemplates==null ? null : tagTemplates.getEndTag(name,getPrefix(name));
+            if(tag!=null) {
+                write(tag);
+                return;
+            }
             write(CLOSE_TAG);
             writeName(name);
             write('>');
@@ -287,16 +382,36 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
     }
 
     private void doText(String value,boolean isAttribute) throws IOException {
-        if (escapeHandler != null) {
+        if (escapes == null) {
             StringWriter sw = new StringWriter();
             escapeHandler.escape(value.toCharArray(), 0, value.length(), isAttribute, sw);
             textBuffer.set(sw.toString());
         } else {
-            textBuffer.setEscape(value, isAttribute);
+            // most text needs no escaping, and that part goes straight to the octet buffer
+            int clean = Encoded.skipClean(value, 0, escapes.specials(isAttribute));
+            writeAscii(value, 0, clean);
+            if (clean == value.length())
+                return;
+            textBuffer.setEscape(value, clean, escapes, isAttribute);
         }
         textBuffer.write(this);
     }
 
+    /**
+     * Writes characters that are all ASCII.
+     */
+    @SuppressWarnings("deprecation")
+    private void writeAscii(String s, int start, int end) throws IOException {
+        while (start < end) {
+            if (octetBufferIndex == octetBuffer.length)
+                flushBuffer();
+            int n = Math.min(end - start, octetBuffer.length - octetBufferIndex);
+            s.getBytes(start, start + n, octetBuffer, octetBufferIndex);
+            octetBufferIndex += n;
+            start += n;
+        }
+    }
+
     public final void text(int value) throws IOException {
         closeStartTag();
         /*
@@ -377,7 +492,15 @@ public class UTF8XmlOutput extends XmlOutputAbstractImpl {
         write(b, 0,  b.length);
     }
 
-    protected final void write(byte[] b, int start, int length) throws IOException {
+    /**
+     * Writes bytes directly into the buffer.
+     *
+     * <p>
+     * Just like {@link #write(int)}, this method doesn't perform character escaping,
+     * so it can only be used for data known to be well-formed, such as
+     * the ASCII text produced by {@link Pcdata} implementations.
+     */
+    public final void write(byte[] b, int start, int length) throws IOException {
         if ((octetBufferIndex + length) < octetBuffer.length) {
             System.arraycopy(b, start, octetBuffer, octetBufferIndex, length);
             octetBufferIndex += length;
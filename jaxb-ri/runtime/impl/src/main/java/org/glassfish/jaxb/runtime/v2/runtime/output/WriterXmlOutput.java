@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.output;
+
+import cn.glassfish.jaxb.core.marshaller.CharacterEscapeHandler;
+import cn.glassfish.jaxb.core.marshaller.MinimumEscapeHandler;
+import cn.glassfish.jaxb.runtime.v2.runtime.MarshallerImpl;
+import cn.glassfish.jaxb.runtime.v2.runtime.Name;
+import cn.glassfish.jaxb.runtime.v2.runtime.XMLSerializer;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@link XmlOutput} implementation that writes characters to a {@link Writer}.
+ *
+ * <p>
+ * This is the character counterpart of {@link UTF8XmlOutput}. Tags are put together
+ * in a {@code char[]} buffer from pre-computed local names, and text is escaped as it is
+ * copied into the buffer, so the {@link Writer} only sees large writes.
+ *
+ * @see IndentingWriterXmlOutput
+ */
+public class WriterXmlOutput extends XmlOutputAbstractImpl {
+    protected final Writer out;
+
+    /** local names as characters. All entries are pre-filled. */
+    private final char[][] localNames;
+
+    /** Buffer of characters for writing. */
+    private final char[] buf;
+
+    /** Index in {@link #buf} to write to. */
+    private int len;
+
+    /**
+     * Set to true to indicate that we need to write {@code '>'}
+     * to close a start tag.
+     *
+     * @see UTF8XmlOutput#closeStartTagPending
+     */
+    protected boolean closeStartTagPending = false;
+
+    /**
+     * Encoding written in the XML declaration, or null.
+     */
+    private final String encoding;
+
+    /**
+     * @see MarshallerImpl#header
+     */
+    private String header;
+
+    /**
+     * Null to escape with the rules of {@link MinimumEscapeHandler}, which is done inline.
+     */
+    private final CharacterEscapeHandler escapeHandler;
+
+    /**
+     * Characters at or above this value are written as character references.
+     */
+    private final int charLimit;
+
+    /**
+     * @param localNames
+     *      local names of the context, as returned by {@code JAXBContextImpl.getCharNameTable()}.
+     * @param buffer
+     *      buffer to assemble the output in. It can be reused after the document is written.
+     */
+    public WriterXmlOutput(Writer out, String encoding, char[][] localNames, char[] buffer, CharacterEscapeHandler escapeHandler) {
+        this(out, encoding, localNames, buffer, escapeHandler, 0x10000);
+    }
+
+    /**
+     * @param charLimit
+     *      the first character that the encoding of the {@link Writer} can't represent.
+     *      Such characters in text are written as character references.
+     *      This only applies when the {@link MinimumEscapeHandler} is used.
+     * @see SimpleEncodingWriter#getCharacterLimit()
+     */
+    public WriterXmlOutput(Writer out, String encoding, char[][] localNames, char[] buffer, CharacterEscapeHandler escapeHandler, int charLimit) {
+        this.out = out;
+        this.charLimit = charLimit;
+        this.encoding = encoding;
+        this.localNames = localNames;
+        this.buf = buffer;
+        this.escapeHandler = escapeHandler==MinimumEscapeHandler.theInstance ? null : escapeHandler;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    @Override
+    public void startDocument(XMLSerializer serializer, boolean fragment, int[] nsUriIndex2prefixIndex, NamespaceContextImpl nsContext) throws IOException, SAXException, XMLStreamException {
+        super.startDocument(serializer, fragment, nsUriIndex2prefixIndex, nsContext);
+
+        len = 0;
+        if(!fragment)
+            writeXmlDecl();
+        if(header!=null)
+            write(header);
+    }
+
+    protected void writeXmlDecl() throws IOException {
+        write("<?xml version=\"1.0\"");
+        if(encoding!=null) {
+            write(" encoding=\"");
+            write(encoding);
+            write('\"');
+        }
+        write(" standalone=\"yes\"?>");
+    }
+
+    @Override
+    public void endDocument(boolean fragment) throws IOException, SAXException, XMLStreamException {
+        flushBuffer();
+        super.endDocument(fragment);
+    }
+
+    /**
+     * Writes {@code '>'} to close the start tag, if necessary.
+     */
+    protected final void closeStartTag() throws IOException {
+        if(closeStartTagPending) {
+            write('>');
+            closeStartTagPending = false;
+        }
+    }
+
+    @Override
+    public void beginStartTag(int prefix, String localName) throws IOException {
+        closeStartTag();
+        write('<');
+        writeName(prefix,localName);
+    }
+
+    @Override
+    public void beginStartTag(Name name) throws IOException {
+        closeStartTag();
+        write('<');
+        writeName(name);
+    }
+
+    /**
+     * Writes the namespace declarations after the attributes, like {@code XMLWriter} does.
+     */
+    private void writeNsDecls() throws IOException {
+        NamespaceContextImpl.Element ns = nsContext.getCurrent();
+        int size = nsContext.count();
+
+        for( int i=ns.getBase(); i<size; i++ ) {
+            String p = nsContext.getPrefix(i);
+            String uri = nsContext.getNamespaceURI(i);
+            if(p.length()==0) {
+                if(ns.isRootElement() && uri.length()==0)
+                    continue;   // no point in declaring xmlns="" on the root element
+                write(" xmlns=\"");
+            } else {
+                write(" xmlns:");
+                write(p);
+                write("=\"");
+            }
+            doText(uri,true);
+            write('\"');
+        }
+    }
+
+    private void writeName(Name name) throws IOException {
+        writePrefix(nsUriIndex2prefixIndex[name.nsUriIndex]);
+        write(localNames[name.localNameIndex]);
+    }
+
+    private void writeName(int prefix, String localName) throws IOException {
+        writePrefix(prefix);
+        write(localName);
+    }
+
+    private void writePrefix(int prefix) throws IOException {
+        String p = nsContext.getPrefix(prefix);
+        if(p.length()>0) {
+            write(p);
+            write(':');
+        }
+    }
+
+    @Override
+    public void attribute(Name name, String value) throws IOException {
+        write(' ');
+        if(name.nsUriIndex==-1)
+            write(localNames[name.localNameIndex]);
+        else
+            writeName(name);
+        write("=\"");
+        doText(value,true);
+        write('\"');
+    }
+
+    @Override
+    public void attribute(int prefix, String localName, String value) throws IOException {
+        write(' ');
+        if(prefix==-1)
+            write(localName);
+        else
+            writeName(prefix,localName);
+        write("=\"");
+        doText(value,true);
+        write('\"');
+    }
+
+    @Override
+    public void endStartTag() throws IOException {
+        writeNsDecls();
+        closeStartTagPending = true;
+    }
+
+    @Override
+    public void endTag(Name name) throws IOException {
+        if(closeStartTagPending) {
+            write("/>");
+            closeStartTagPending = false;
+        } else {
+            write("</");
+            writeName(name);
+            write('>');
+        }
+    }
+
+    @Override
+    public void endTag(int prefix, String localName) throws IOException {
+        if(closeStartTagPending) {
+            write("/>");
+            closeStartTagPending = false;
+        } else {
+            write("</");
+            writeName(prefix,localName);
+            write('>');
+        }
+    }
+
+    @Override
+    public void text(String value, boolean needSP) throws IOException {
+        closeStartTag();
+        if(needSP)
+            write(' ');
+        doText(value,false);
+    }
+
+    @Override
+    public void text(Pcdata value, boolean needSP) throws IOException {
+        closeStartTag();
+        if(needSP)
+            write(' ');
+        // Pcdata only produces characters that need no escaping
+        int n = value.length();
+        if(n>buf.length) {
+            write(value.toString());
+            return;
+        }
+        if(len+n>buf.length)
+            flushBuffer();
+        value.writeTo(buf,len);
+        len += n;
+    }
+
+    /**
+     * Writes escaped text.
+     */
+    private void doText(String value, boolean isAttribute) throws IOException {
+        if(escapeHandler!=null) {
+            flushBuffer();
+            char[] ch = value.toCharArray();
+            escapeHandler.escape(ch,0,ch.length,isAttribute,out);
+            return;
+        }
+
+        // the same rules as MinimumEscapeHandler
+        int n = value.length();
+        int start = 0;
+        for( int i=0; i<n; i++ ) {
+            char c = value.charAt(i);
+            if(c>'>' && c<charLimit)
+                continue;
+            if(c>=charLimit) {
+                int cp = c;
+                write(value,start,i);
+                if(Character.isHighSurrogate(c) && i+1<n && Character.isLowSurrogate(value.charAt(i+1)))
+                    cp = Character.toCodePoint(c,value.charAt(++i));
+                write("&#");
+                write(Integer.toString(cp));
+                write(';');
+                start = i+1;
+                continue;
+            }
+            String esc;
+            switch(c) {
+            case '&':
+                esc = "&amp;";
+                break;
+            case '<':
+                esc = "&lt;";
+                break;
+            case '>':
+                esc = "&gt;";
+                break;
+            case '\r':
+                esc = "&#13;";
+                break;
+            case '\n':
+                esc = isAttribute ? "&#10;" : null;
+                break;
+            case '\"':
+                esc = isAttribute ? "&quot;" : null;
+                break;
+            default:
+                esc = null;
+            }
+            if(esc!=null) {
+                write(value,start,i);
+                write(esc);
+                start = i+1;
+            }
+        }
+        write(value,start,n);
+    }
+
+//
+//
+// series of the write method that places characters to the output
+// (by doing some buffering internal to this class)
+//
+
+    /**
+     * Writes one character directly into the buffer, without escaping.
+     */
+    protected final void write(char c) throws IOException {
+        if(len==buf.length)
+            flushBuffer();
+        buf[len++] = c;
+    }
+
+    /**
+     * Writes characters directly into the buffer, without escaping.
+     */
+    protected final void write(char[] c) throws IOException {
+        if(len+c.length>buf.length) {
+            flushBuffer();
+            if(c.length>buf.length) {
+                out.write(c);
+                return;
+            }
+        }
+        System.arraycopy(c,0,buf,len,c.length);
+        len += c.length;
+    }
+
+    /**
+     * Writes a string directly into the buffer, without escaping.
+     */
+    protected final void write(String s) throws IOException {
+        write(s,0,s.length());
+    }
+
+    private void write(String s, int start, int end) throws IOException {
+        while(start<end) {
+            if(len==buf.length)
+                flushBuffer();
+            int n = Math.min(end-start,buf.length-len);
+            s.getChars(start,start+n,buf,len);
+            len += n;
+            start += n;
+        }
+    }
+
+    protected final void flushBuffer() throws IOException {
+        out.write(buf,0,len);
+        len = 0;
+    }
+}
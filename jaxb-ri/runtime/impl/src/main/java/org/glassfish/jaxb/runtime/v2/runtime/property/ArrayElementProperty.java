@@ -29,6 +29,7 @@ import org.xml.sax.SAXException;
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -94,55 +95,84 @@ abstract class ArrayElementProperty<BeanT,ListT,ItemT> extends ArrayERProperty<B
 
         boolean isIdref = itr instanceof Lister.IDREFSIterator; // UGLY
 
+        if(!isIdref && w.canWriteItemsInParallel()) {
+            // collect the items so that they can be split up
+            List<ItemT> items = new ArrayList<>();
+            while(itr.hasNext()) {
+                try {
+                    items.add(itr.next());
+                } catch (JAXBException e) {
+                    w.reportError(fieldName,e);
+                    // recover by ignoring this item
+                }
+            }
+            w.writeItems(items, (item,iw) -> serializeListItem(item, item==null ? null : item.getClass(), iw));
+            return;
+        }
+
         while(itr.hasNext()) {
+            ItemT item;
             try {
-                ItemT item = itr.next();
-                if (item != null) {
-                    Class itemType = item.getClass();
-                    if(isIdref)
-                        // This should be the only place where we need to be aware
-                        // that the iterator is iterating IDREFS.
-                        itemType = ((Lister.IDREFSIterator)itr).last().getClass();
-
-                    // normally, this returns non-null
-                    TagAndType tt = typeMap.get(itemType);
-                    while(tt==null && itemType!=null) {
-                        // otherwise we'll just have to try the slow way
-                        itemType = itemType.getSuperclass();
-                        tt = typeMap.get(itemType);
-                    }
-
-                    if(tt==null) {
-                        // item is not of the expected type.
-//                        w.reportError(new ValidationEventImpl(ValidationEvent.ERROR,
-//                            Messages.UNEXPECTED_JAVA_TYPE.format(
-//                                item.getClass().getName(),
-//                                getExpectedClassNameList()
-//                            ),
-//                            w.getCurrentLocation(fieldName)));
-//                        continue;
-
-                        // see the similar code in SingleElementNodeProperty.
-                        // for the purpose of simple type substitution, make it a non-error
-
-                        w.startElement(typeMap.values().iterator().next().tagName,null);
-                        w.childAsXsiType(item,fieldName,w.grammar.getBeanInfo(Object.class), false);
-                    } else {
-                        w.startElement(tt.tagName,null);
-                        serializeItem(tt.beanInfo,item,w);
-                    }
-
-                    w.endElement();
-                } else {
-                    if(nillableTagName!=null) {
-                        w.startElement(nillableTagName,null);
-                        w.writeXsiNilTrue();
-                        w.endElement();
-                    }
-                }
+                item = itr.next();
             } catch (JAXBException e) {
                 w.reportError(fieldName,e);
                 // recover by ignoring this item
+                continue;
+            }
+            Class itemType = null;
+            if (item != null) {
+                itemType = item.getClass();
+                if(isIdref)
+                    // This should be the only place where we need to be aware
+                    // that the iterator is iterating IDREFS.
+                    itemType = ((Lister.IDREFSIterator)itr).last().getClass();
+            }
+            serializeListItem(item, itemType, w);
+        }
+    }
+
+    /**
+     * Writes an item of the list, with its tag.
+     *
+     * @param itemType
+     *      the class of the item, or of the object it refers to for IDREFS.
+     */
+    private void serializeListItem(ItemT item, Class itemType, XMLSerializer w) throws IOException, XMLStreamException, SAXException, AccessorException {
+        if (item != null) {
+            // normally, this returns non-null
+            TagAndType tt = typeMap.get(itemType);
+            while(tt==null && itemType!=null) {
+                // otherwise we'll just have to try the slow way
+                itemType = itemType.getSuperclass();
+                tt = typeMap.get(itemType);
+            }
+
+            if(tt==null) {
+                // item is not of the expected type.
+//                w.reportError(new ValidationEventImpl(ValidationEvent.ERROR,
+//                    Messages.UNEXPECTED_JAVA_TYPE.format(
+//                        item.getClass().getName(),
+//                        getExpectedClassNameList()
+//                    ),
+//                    w.getCurrentLocation(fieldName)));
+//                continue;
+
+                // see the similar code in SingleElementNodeProperty.
+                // for the purpose of simple type substitution, make it a non-error
+
+                w.startElement(typeMap.values().iterator().next().tagName,null);
+                w.childAsXsiType(item,fieldName,w.grammar.getBeanInfo(Object.class), false);
+            } else {
+                w.startElement(tt.tagName,null);
+                serializeItem(tt.beanInfo,item,w);
+            }
+
+            w.endElement();
+        } else {
+            if(nillableTagName!=null) {
+                w.startElement(nillableTagName,null);
+                w.writeXsiNilTrue();
+                w.endElement();
             }
         }
     }
@@ -219,4 +249,13 @@ abstract class ArrayElementProperty<BeanT,ListT,ItemT> extends ArrayERProperty<B
         }
         return null;
     }
+
+    @Override
+    public JaxBeanInfo<?> getElementBeanInfo(String nsUri, String localName) {
+        for (TagAndType tt : typeMap.values()) {
+            if(tt.tagName.equals(nsUri,localName))
+                return tt.beanInfo;
+        }
+        return null;
+    }
 }
@@ -49,4 +49,9 @@ abstract class ArrayProperty<BeanT,ListT,ItemT> extends PropertyImpl<BeanT> {
         // mutli-value property can't be ID
         return null;
     }
+
+    @Override
+    public final Object getValue(BeanT bean) throws AccessorException {
+        return acc.get(bean);
+    }
 }
@@ -51,7 +51,7 @@ public final class AttributeProperty<BeanT> extends PropertyImpl<BeanT>
      */
     public final TransducedAccessor<BeanT> xacc;
 
-    private final Accessor acc;
+    private final Accessor<BeanT,?> acc;
 
     public AttributeProperty(JAXBContextImpl context, RuntimeAttributePropertyInfo prop) {
         super(context,prop);
@@ -102,6 +102,11 @@ public final class AttributeProperty<BeanT> extends PropertyImpl<BeanT>
         return xacc.print(bean).toString();
     }
 
+    @Override
+    public Object getValue(BeanT bean) throws AccessorException {
+        return acc.get(bean);
+    }
+
     @Override
     public int compareTo(AttributeProperty that) {
         return this.attName.compareTo(that.attName);
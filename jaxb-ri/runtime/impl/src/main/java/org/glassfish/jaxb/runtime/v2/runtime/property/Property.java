@@ -85,6 +85,15 @@ public interface Property<BeanT> extends StructureLoaderBuilder {
      */
     String getIdValue(BeanT bean) throws AccessorException, SAXException;
 
+    /**
+     * Gets the value of the property as it is stored in the bean,
+     * before it is converted to XML.
+     *
+     * This method is used by {@link jakarta.xml.bind.Binder} to tell if a bean
+     * has changed since it was last synchronized with its XML node.
+     */
+    Object getValue(BeanT bean) throws AccessorException;
+
     /**
      * Gets the Kind of property
      * @return
@@ -105,6 +114,18 @@ public interface Property<BeanT> extends StructureLoaderBuilder {
      */
     Accessor getElementPropertyAccessor(String nsUri,String localName);
 
+    /**
+     * If this property writes objects as elements of the specified name,
+     * returns the type it declares for them, which decides if {@code xsi:type} is needed.
+     *
+     * This method is used by {@link jakarta.xml.bind.Binder} to re-marshal one of
+     * the values of the property as the property itself would.
+     *
+     * @return
+     *      null if the property doesn't write objects as elements of this name.
+     */
+    JaxBeanInfo<?> getElementBeanInfo(String nsUri,String localName);
+
     /**
      * Called at the end of the {@link JAXBContext} initialization phase
      * to clean up any unnecessary references.
@@ -13,6 +13,7 @@ package cn.glassfish.jaxb.runtime.v2.runtime.property;
 import cn.glassfish.jaxb.runtime.api.AccessorException;
 import cn.glassfish.jaxb.runtime.v2.model.runtime.RuntimePropertyInfo;
 import cn.glassfish.jaxb.runtime.v2.runtime.JAXBContextImpl;
+import cn.glassfish.jaxb.runtime.v2.runtime.JaxBeanInfo;
 import cn.glassfish.jaxb.runtime.v2.runtime.XMLSerializer;
 import cn.glassfish.jaxb.runtime.v2.runtime.reflect.Accessor;
 import org.xml.sax.SAXException;
@@ -62,6 +63,11 @@ abstract class PropertyImpl<BeanT> implements Property<BeanT> {
         return null;
     }
 
+    @Override
+    public JaxBeanInfo<?> getElementBeanInfo(String nsUri, String localName) {
+        return null;
+    }
+
     @Override
     public void wrapUp() {/*noop*/}
 
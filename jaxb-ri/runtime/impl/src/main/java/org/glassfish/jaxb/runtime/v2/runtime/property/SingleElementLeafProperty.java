@@ -13,6 +13,7 @@ package cn.glassfish.jaxb.runtime.v2.runtime.property;
 import cn.glassfish.jaxb.runtime.api.AccessorException;
 import cn.glassfish.jaxb.core.v2.model.core.ID;
 import cn.glassfish.jaxb.core.v2.model.core.PropertyKind;
+import cn.glassfish.jaxb.runtime.v2.model.runtime.RuntimeBuiltinLeafInfo;
 import cn.glassfish.jaxb.runtime.v2.model.runtime.RuntimeElementPropertyInfo;
 import cn.glassfish.jaxb.runtime.v2.model.runtime.RuntimeTypeRef;
 import cn.glassfish.jaxb.runtime.v2.runtime.JAXBContextImpl;
@@ -25,6 +26,8 @@ import jakarta.xml.bind.JAXBElement;
 import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.*;
 import org.xml.sax.SAXException;
 
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
@@ -38,11 +41,17 @@ final class SingleElementLeafProperty<BeanT> extends PropertyImpl<BeanT> {
 
     private final Name tagName;
     private final boolean nillable;
-    private final Accessor acc;
+    private final Accessor<BeanT,?> acc;
     private final String defaultValue;
     private final TransducedAccessor<BeanT> xacc;
     private final boolean improvedXsiTypeHandling;
     private final boolean idRef;
+    /**
+     * True if the text can be handed over to {@link #xacc} as {@link Base64Data}.
+     */
+    private final boolean binary;
+
+    private static final QName XS_BASE64_BINARY = new QName(XMLConstants.W3C_XML_SCHEMA_NS_URI, "base64Binary");
 
     public SingleElementLeafProperty(JAXBContextImpl context, RuntimeElementPropertyInfo prop) {
         super(context, prop);
@@ -58,6 +67,13 @@ final class SingleElementLeafProperty<BeanT> extends PropertyImpl<BeanT> {
 
         improvedXsiTypeHandling = context.improvedXsiTypeHandling;
         idRef = ref.getSource().id() == ID.IDREF;
+        // byte[] is excluded because it needs the whole data in memory anyway
+        binary = ref.getTarget() instanceof RuntimeBuiltinLeafInfo
+                && XS_BASE64_BINARY.equals(ref.getTarget().getTypeName())
+                && ref.getTarget().getType() != byte[].class
+                && ref.getSource().id() == ID.NONE
+                && ref.getSource().getSchemaType() == null
+                && defaultValue == null;
     }
 
     @Override
@@ -70,6 +86,11 @@ final class SingleElementLeafProperty<BeanT> extends PropertyImpl<BeanT> {
         return xacc.print(bean).toString();
     }
 
+    @Override
+    public Object getValue(BeanT bean) throws AccessorException {
+        return acc.get(bean);
+    }
+
     @Override
     public void serializeBody(BeanT o, XMLSerializer w, Object outerPeer) throws SAXException, AccessorException, IOException, XMLStreamException {
         boolean hasValue = xacc.hasValue(o);
@@ -143,7 +164,7 @@ final class SingleElementLeafProperty<BeanT> extends PropertyImpl<BeanT> {
 
     @Override
     public void buildChildElementUnmarshallers(UnmarshallerChain chain, QNameMap<ChildLoader> handlers) {
-        Loader l = new LeafPropertyLoader(xacc);
+        Loader l = new LeafPropertyLoader(xacc, binary);
         if (defaultValue != null)
             l = new DefaultValueLoaderDecorator(l, defaultValue);
         if (nillable || chain.context.allNillable)
@@ -98,6 +98,11 @@ final class SingleElementNodeProperty<BeanT,ValueT> extends PropertyImpl<BeanT>
         return null;
     }
 
+    @Override
+    public Object getValue(BeanT bean) throws AccessorException {
+        return acc.get(bean);
+    }
+
     @Override
     public void serializeBody(BeanT o, XMLSerializer w, Object outerPeer) throws SAXException, AccessorException, IOException, XMLStreamException {
         ValueT v = acc.get(o);
@@ -166,4 +171,13 @@ final class SingleElementNodeProperty<BeanT,ValueT> extends PropertyImpl<BeanT>
         return null;
     }
 
+    @Override
+    public JaxBeanInfo<?> getElementBeanInfo(String nsUri, String localName) {
+        for (TagAndType tt : typeNames.values()) {
+            if(tt.tagName.equals(nsUri,localName))
+                return tt.beanInfo;
+        }
+        return null;
+    }
+
 }
@@ -93,6 +93,11 @@ final class SingleMapNodeProperty<BeanT,ValueT extends Map> extends PropertyImpl
         return null;
     }
 
+    @Override
+    public Object getValue(BeanT bean) throws AccessorException {
+        return acc.get(bean);
+    }
+
     @Override
     public PropertyKind getKind() {
         return PropertyKind.MAP;
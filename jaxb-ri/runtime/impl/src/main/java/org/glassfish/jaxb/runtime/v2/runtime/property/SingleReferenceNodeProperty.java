@@ -72,6 +72,11 @@ final class SingleReferenceNodeProperty<BeanT,ValueT> extends PropertyImpl<BeanT
         return null;
     }
 
+    @Override
+    public Object getValue(BeanT bean) throws AccessorException {
+        return acc.get(bean);
+    }
+
     @Override
     public void serializeBody(BeanT o, XMLSerializer w, Object outerPeer) throws SAXException, AccessorException, IOException, XMLStreamException {
         ValueT v = acc.get(o);
@@ -87,4 +87,9 @@ public final class ValueProperty<BeanT> extends PropertyImpl<BeanT> {
         return xacc.print(bean).toString();
     }
 
+    @Override
+    public Object getValue(BeanT bean) throws AccessorException {
+        return acc.get(bean);
+    }
+
 }
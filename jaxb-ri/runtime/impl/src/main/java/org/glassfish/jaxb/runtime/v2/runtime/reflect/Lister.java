@@ -10,7 +10,6 @@
 
 package cn.glassfish.jaxb.runtime.v2.runtime.reflect;
 
-import com.sun.istack.SAXException2;
 import cn.glassfish.jaxb.runtime.api.AccessorException;
 import cn.glassfish.jaxb.core.v2.ClassFactory;
 import cn.glassfish.jaxb.core.v2.TODO;
@@ -28,7 +27,6 @@ import java.lang.reflect.Array;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.*;
-import java.util.concurrent.Callable;
 
 /**
  * Used to list individual values of a multi-value property, and
@@ -374,17 +372,7 @@ public abstract class Lister<BeanT,PropT,ItemT,PackT> {
                     Object pack = core.startPacking(bean,acc);
 
                     for( String id : idrefs ) {
-                        Callable callable = context.getObjectFromId(id,itemType);
-                        Object t;
-
-                        try {
-                            t = (callable!=null) ? callable.call() : null;
-                        } catch (SAXException e) {
-                            throw e;
-                        } catch (Exception e) {
-                            throw new SAXException2(e);
-                        }
-
+                        Object t = context.lookupID(id,itemType);
                         if(t==null) {
                             context.errorUnresolvedIDREF(bean,id,location);
                         } else {
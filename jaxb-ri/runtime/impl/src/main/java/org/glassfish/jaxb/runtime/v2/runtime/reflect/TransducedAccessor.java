@@ -12,7 +12,6 @@ package cn.glassfish.jaxb.runtime.v2.runtime.reflect;
 
 import com.sun.istack.NotNull;
 import com.sun.istack.Nullable;
-import com.sun.istack.SAXException2;
 import cn.glassfish.jaxb.core.WhiteSpaceProcessor;
 import cn.glassfish.jaxb.runtime.api.AccessorException;
 import cn.glassfish.jaxb.core.v2.model.core.ID;
@@ -23,8 +22,7 @@ import cn.glassfish.jaxb.runtime.v2.runtime.JAXBContextImpl;
 import cn.glassfish.jaxb.runtime.v2.runtime.Name;
 import cn.glassfish.jaxb.runtime.v2.runtime.Transducer;
 import cn.glassfish.jaxb.runtime.v2.runtime.XMLSerializer;
-import cn.glassfish.jaxb.core.v2.runtime.unmarshaller.LocatorEx;
-import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.Patcher;
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.IDREFReceiver;
 import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.UnmarshallingContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.annotation.XmlValue;
@@ -32,7 +30,6 @@ import org.xml.sax.SAXException;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
-import java.util.concurrent.Callable;
 
 /**
  * {@link Accessor} and {@link Transducer} combined into one object.
@@ -231,7 +228,7 @@ public abstract class TransducedAccessor<BeanT> {
      * BeanT: the type of the bean that contains this the IDREF field.
      * TargetT: the type of the bean pointed by IDREF.
      */
-    private static final class IDREFTransducedAccessorImpl<BeanT,TargetT> extends DefaultTransducedAccessor<BeanT> {
+    private static final class IDREFTransducedAccessorImpl<BeanT,TargetT> extends DefaultTransducedAccessor<BeanT> implements IDREFReceiver {
         private final Accessor<BeanT,TargetT> acc;
         /**
          * The object that an IDREF resolves to should be
@@ -261,62 +258,24 @@ public abstract class TransducedAccessor<BeanT> {
             }
         }
 
-        private void assign( BeanT bean, TargetT t, UnmarshallingContext context ) throws AccessorException {
-            if(!targetType.isInstance(t))
+        @Override
+        public void receive(Object bean, Object t) throws SAXException {
+            UnmarshallingContext context = UnmarshallingContext.getInstance();
+            if(!targetType.isInstance(t)) {
                 context.handleError(Messages.UNASSIGNABLE_TYPE.format(targetType,t.getClass()));
-            else
-                acc.set(bean,t);
+                return;
+            }
+            try {
+                acc.set((BeanT)bean,(TargetT)t);
+            } catch (AccessorException e) {
+                context.handleError(e);
+            }
         }
 
         @Override
         public void parse(final BeanT bean, CharSequence lexical) throws AccessorException, SAXException {
             final String idref = WhiteSpaceProcessor.trim(lexical).toString();
-            final UnmarshallingContext context = UnmarshallingContext.getInstance();
-
-            final Callable callable = context.getObjectFromId(idref,acc.valueType);
-            if(callable==null) {
-                // the IDResolver decided to abort it now
-                context.errorUnresolvedIDREF(bean,idref,context.getLocator());
-                return;
-            }
-
-            TargetT t;
-            try {
-                t = (TargetT)callable.call();
-            } catch (SAXException e) {// from callable.call
-                throw e;
-            } catch (RuntimeException e) {// from callable.call
-                throw e;
-            } catch (Exception e) {// from callable.call
-                throw new SAXException2(e);
-            }
-            if(t!=null) {
-                assign(bean,t,context);
-            } else {
-                // try again later
-                final LocatorEx loc = new LocatorEx.Snapshot(context.getLocator());
-                context.addPatcher(new Patcher() {
-                    @Override
-                    public void run() throws SAXException {
-                        try {
-                            TargetT t = (TargetT)callable.call();
-                            if(t==null) {
-                                context.errorUnresolvedIDREF(bean,idref,loc);
-                            } else {
-                                assign(bean,t,context);
-                            }
-                        } catch (AccessorException e) {
-                            context.handleError(e);
-                        } catch (SAXException e) {// from callable.call
-                            throw e;
-                        } catch (RuntimeException e) {// from callable.call
-                            throw e;
-                        } catch (Exception e) {// from callable.call
-                            throw new SAXException2(e);
-                        }
-                    }
-                });
-            }
+            UnmarshallingContext.getInstance().resolveIDREF(bean,idref,acc.valueType,this);
         }
 
         @Override
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
+
+import cn.glassfish.jaxb.runtime.DatatypeConverterImpl;
+import jakarta.activation.DataHandler;
+import jakarta.activation.DataSource;
+import org.xml.sax.SAXException;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.Cleaner;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Decodes base64Binary text incrementally as the connectors receive it,
+ * so that the whole text never has to be buffered as a {@link String}.
+ *
+ * <p>
+ * Decoded bytes go to a buffer that is reused across values. Once a value
+ * grows beyond the threshold, the buffer is flushed to a temporary file
+ * and the rest of the value is appended there, which bounds the heap usage
+ * regardless of the size of the data. The files are kept in a directory
+ * of their own. A file is deleted when the {@link DataSource} of the
+ * {@link DataHandler} that exposes it is closed or becomes unreachable,
+ * and the files that are left are deleted when the JVM exits.
+ *
+ * <p>
+ * The decoding rules are the same as
+ * {@link cn.glassfish.jaxb.runtime.DatatypeConverterImpl#_parseBase64Binary(String)}:
+ * characters outside of the base64 alphabet are ignored.
+ *
+ * @see UnmarshallerImpl#BASE64_SPILL_THRESHOLD
+ */
+final class Base64Decoder {
+
+    private static final byte[] decodeMap = initDecodeMap();
+    private static final byte PADDING = 127;
+
+    private static final Cleaner cleaner = Cleaner.create();
+
+    private static byte[] initDecodeMap() {
+        byte[] map = new byte[128];
+        Arrays.fill(map, (byte) -1);
+        for (int i = 'A'; i <= 'Z'; i++)
+            map[i] = (byte) (i - 'A');
+        for (int i = 'a'; i <= 'z'; i++)
+            map[i] = (byte) (i - 'a' + 26);
+        for (int i = '0'; i <= '9'; i++)
+            map[i] = (byte) (i - '0' + 52);
+        map['+'] = 62;
+        map['/'] = 63;
+        map['='] = PADDING;
+        return map;
+    }
+
+    /**
+     * Values larger than this many bytes are written to a temporary file.
+     */
+    private final long threshold;
+
+    /**
+     * Size of {@link #buf} when a value starts.
+     */
+    private final int initialSize;
+
+    private byte[] buf;
+    /**
+     * Number of bytes in {@link #buf} that are in use.
+     */
+    private int len;
+
+    private final byte[] quadruplet = new byte[4];
+    private int q;
+
+    /**
+     * Non-null once the current value is being spilled to {@link #file}.
+     */
+    private OutputStream spill;
+    private Path file;
+
+    Base64Decoder(long threshold) {
+        this.threshold = Math.min(threshold, Integer.MAX_VALUE - 16);
+        this.initialSize = (int) Math.min(1024, this.threshold + 3);
+        this.buf = new byte[initialSize];
+    }
+
+    /**
+     * Discards the current value, if any, and gets ready to decode a new one.
+     */
+    void reset() {
+        len = 0;
+        q = 0;
+        if (spill != null) {
+            try {
+                spill.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                // the file will be left behind, but there's nothing more we can do
+            }
+            spill = null;
+            file = null;
+        }
+    }
+
+    // DatatypeConverterImpl is only deprecated as a public API
+    @SuppressWarnings("deprecation")
+    void decode(char[] ch, int start, int length) throws SAXException {
+        final int end = start + length;
+        for (int i = start; i < end; ) {
+            if (q == 0) {
+                if (len + 3 > buf.length)
+                    grow();
+                int n = DatatypeConverterImpl._parseBase64Quadruplets(ch, i, end, buf, len);
+                if (n > 0) {
+                    i += n;
+                    len += n / 4 * 3;
+                    continue;
+                }
+            }
+            decode(ch[i++]);
+        }
+    }
+
+    void decode(CharSequence text) throws SAXException {
+        for (int i = 0; i < text.length(); i++)
+            decode(text.charAt(i));
+    }
+
+    private void decode(char ch) throws SAXException {
+        if (ch >= 128)
+            return;
+        byte v = decodeMap[ch];
+        if (v == -1)
+            return;
+
+        quadruplet[q++] = v;
+        if (q == 4) {
+            // make sure there's room for three more bytes
+            if (len + 3 > buf.length)
+                grow();
+            buf[len++] = (byte) ((quadruplet[0] << 2) | (quadruplet[1] >> 4));
+            if (quadruplet[2] != PADDING)
+                buf[len++] = (byte) ((quadruplet[1] << 4) | (quadruplet[2] >> 2));
+            if (quadruplet[3] != PADDING)
+                buf[len++] = (byte) ((quadruplet[2] << 6) | (quadruplet[3]));
+            q = 0;
+        }
+    }
+
+    private void grow() throws SAXException {
+        // the extra 3 bytes leave room for the last quadruplet, so that
+        // a value of exactly the threshold size stays in memory
+        if (spill == null && buf.length < threshold + 3) {
+            buf = Arrays.copyOf(buf, (int) Math.min(threshold + 3, buf.length * 2L));
+            return;
+        }
+        try {
+            if (spill == null) {
+                file = Files.createTempFile(spillDirectory(), "jaxb", ".bin");
+                spill = new BufferedOutputStream(Files.newOutputStream(file));
+            }
+            spill.write(buf, 0, len);
+            len = 0;
+        } catch (IOException e) {
+            reset();
+            throw new SAXException(e);
+        }
+    }
+
+    /**
+     * Completes the current value.
+     *
+     * @return
+     *      the decoded value. It doesn't share anything with this decoder,
+     *      so the byte[] or the {@link DataHandler} it holds can be kept
+     *      by the unmarshalled object.
+     */
+    Base64Data finish() throws SAXException {
+        Base64Data data = new Base64Data();
+        if (spill == null) {
+            if (buf.length > initialSize && len >= buf.length / 2) {
+                // the buffer was grown for this value. hand it over rather than copying it
+                data.set(buf, len, null);
+                buf = new byte[initialSize];
+            } else {
+                data.set(Arrays.copyOf(buf, len), null);
+            }
+        } else {
+            try {
+                spill.write(buf, 0, len);
+                spill.close();
+            } catch (IOException e) {
+                reset();
+                throw new SAXException(e);
+            }
+            data.set(new DataHandler(new FileDataSource(file)));
+            spill = null;
+            file = null;
+        }
+        len = 0;
+        q = 0;
+        return data;
+    }
+
+    /**
+     * Directory of the temporary files, created on first use.
+     */
+    private static Path spillDirectory;
+
+    private static synchronized Path spillDirectory() throws IOException {
+        if (spillDirectory == null || !Files.isDirectory(spillDirectory)) {
+            Path dir = Files.createTempDirectory("jaxb");
+            // delete the files that are still reachable at exit
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                    for (Path f : files)
+                        delete(f);
+                } catch (IOException e) {
+                    // ignore
+                }
+                delete(dir);
+            }));
+            spillDirectory = dir;
+        }
+        return spillDirectory;
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    /**
+     * {@link DataSource} over the temporary file that deletes the file
+     * once it is closed or no longer reachable.
+     */
+    private static final class FileDataSource implements DataSource, Closeable {
+        private final Path file;
+        private final Cleaner.Cleanable cleanable;
+
+        FileDataSource(Path file) {
+            this.file = file;
+            this.cleanable = cleaner.register(this, () -> delete(file));
+        }
+
+        /**
+         * Deletes the file.
+         */
+        @Override
+        public void close() {
+            cleanable.clean();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(file);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/octet-stream";
+        }
+
+        @Override
+        public String getName() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * {@link InputStream} that reads a range of a {@link ByteBuffer}
+ * without changing the position of the buffer itself.
+ */
+final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buf;
+    private int pos;
+    private final int end;
+
+    /**
+     * Reads {@code buf[start]} to {@code buf[end-1]}, by absolute index.
+     */
+    ByteBufferInputStream(ByteBuffer buf, int start, int end) {
+        this.buf = buf;
+        this.pos = start;
+        this.end = end;
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer.
+     */
+    ByteBufferInputStream(ByteBuffer buf) {
+        this(buf, buf.position(), buf.limit());
+    }
+
+    @Override
+    public int read() {
+        if (pos >= end)
+            return -1;
+        return buf.get(pos++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0)
+            return 0;
+        if (pos >= end)
+            return -1;
+        len = Math.min(len, end - pos);
+        // absolute bulk get is Java 13+
+        ByteBuffer d = buf.duplicate();
+        d.position(pos);
+        d.get(b, off, len);
+        pos += len;
+        return len;
+    }
+
+    @Override
+    public long skip(long n) {
+        if (n <= 0)
+            return 0;
+        int k = (int) Math.min(n, end - pos);
+        pos += k;
+        return k;
+    }
+
+    @Override
+    public int available() {
+        return end - pos;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * {@link Reader} that decodes UTF-8 straight from a {@link ByteBuffer}
+ * or from a file mapped into memory, without copying the bytes first.
+ *
+ * <p>
+ * The position of the buffer is not changed. Files are mapped a window at a time,
+ * so they can be larger than what a single {@link ByteBuffer} can address.
+ */
+final class ByteBufferReader extends Reader {
+
+    /**
+     * Size of the windows in which files are mapped.
+     */
+    static final int WINDOW = 1 << 28;
+
+    private ByteBuffer buf;
+    private int pos;
+    private int end;
+
+    /**
+     * The file {@link #buf} is a window of, or null.
+     */
+    private final FileChannel channel;
+    private final long size;
+    /**
+     * The offset in {@link #channel} that corresponds to {@link #end}.
+     */
+    private long next;
+
+    /**
+     * The second half of a surrogate pair that didn't fit in the last read.
+     */
+    private char low;
+
+    /**
+     * Reads the remaining bytes of the buffer.
+     */
+    ByteBufferReader(ByteBuffer buf) {
+        this.buf = buf;
+        this.pos = buf.position();
+        this.end = buf.limit();
+        this.channel = null;
+        this.size = 0;
+        skipBom();
+    }
+
+    /**
+     * Reads the whole file. The channel is not closed by this object.
+     *
+     * @param first
+     *      the first window of the file, as {@link #map(FileChannel, long, long) mapped}
+     *      from the offset 0.
+     */
+    ByteBufferReader(FileChannel channel, ByteBuffer first) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.buf = first;
+        this.pos = 0;
+        this.end = buf.limit();
+        this.next = end;
+        skipBom();
+    }
+
+    private void skipBom() {
+        if (end - pos >= 3 && buf.get(pos) == (byte) 0xEF && buf.get(pos + 1) == (byte) 0xBB && buf.get(pos + 2) == (byte) 0xBF)
+            pos += 3;
+    }
+
+    /**
+     * Maps the first {@link #WINDOW} bytes, or less, of the given region.
+     */
+    static ByteBuffer map(FileChannel channel, long offset, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW, size - offset));
+    }
+
+    /**
+     * Checks if an XML document that starts at the position of the given buffer
+     * is in UTF-8 (or in US-ASCII), according to its byte order mark and its XML declaration.
+     */
+    static boolean isUtf8(ByteBuffer buf) {
+        int p = buf.position();
+        int limit = buf.limit();
+        if (limit - p >= 3 && buf.get(p) == (byte) 0xEF && buf.get(p + 1) == (byte) 0xBB && buf.get(p + 2) == (byte) 0xBF)
+            return true;
+        if (limit - p >= 2 && (buf.get(p) == 0 || buf.get(p + 1) == 0 || buf.get(p) == (byte) 0xFE || buf.get(p) == (byte) 0xFF))
+            return false;   // UTF-16 or UCS-4
+        if (limit - p < 6 || !ascii(buf, p, 5).equals("<?xml") || !isWhitespace(buf.get(p + 5)))
+            return true;
+        StringBuilder decl = new StringBuilder();
+        for (int i = p + 6; i < limit && i < p + 256; i++) {
+            byte b = buf.get(i);
+            if (b == '>' || b < 0)
+                break;
+            decl.append((char) b);
+        }
+        String s = decl.toString().replace('\'', '"');
+        int i = s.indexOf("encoding");
+        if (i < 0)
+            return true;
+        int q = s.indexOf('"', i);
+        int q2 = q < 0 ? -1 : s.indexOf('"', q + 1);
+        if (q2 < 0)
+            return false;   // let the parser deal with it
+        String enc = s.substring(q + 1, q2).toUpperCase(Locale.ENGLISH);
+        return enc.equals("UTF-8") || enc.equals("UTF8") || enc.equals("US-ASCII") || enc.equals("ASCII");
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static String ascii(ByteBuffer buf, int p, int len) {
+        byte[] b = new byte[len];
+        for (int i = 0; i < len; i++)
+            b[i] = buf.get(p + i);
+        return new String(b, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        int n = 0;
+        if (low != 0) {
+            cbuf[off + n++] = low;
+            low = 0;
+        }
+        while (n < len) {
+            if (end - pos < 4) {
+                refill();
+                if (pos >= end)
+                    break;
+            }
+            int b = buf.get(pos);
+            if (b >= 0) {
+                // a run of ASCII characters
+                int stop = pos + Math.min(len - n, end - pos);
+                do {
+                    cbuf[off + n++] = (char) b;
+                    pos++;
+                } while (pos < stop && (b = buf.get(pos)) >= 0);
+                continue;
+            }
+
+            int k, c;
+            if ((b & 0xE0) == 0xC0) {
+                k = 2;
+                c = b & 0x1F;
+            } else if ((b & 0xF0) == 0xE0) {
+                k = 3;
+                c = b & 0x0F;
+            } else if ((b & 0xF8) == 0xF0) {
+                k = 4;
+                c = b & 0x07;
+            } else {
+                throw new MalformedInputException(1);
+            }
+            if (end - pos < k)
+                throw new MalformedInputException(end - pos);
+            for (int i = 1; i < k; i++) {
+                int t = buf.get(pos + i);
+                if ((t & 0xC0) != 0x80)
+                    throw new MalformedInputException(i);
+                c = (c << 6) | (t & 0x3F);
+            }
+            // reject overlong forms, surrogates and values beyond Unicode
+            if (k == 2 && c < 0x80
+                    || k == 3 && (c < 0x800 || Character.isSurrogate((char) c))
+                    || k == 4 && (c < 0x10000 || c > Character.MAX_CODE_POINT))
+                throw new MalformedInputException(k);
+            pos += k;
+
+            if (c < 0x10000) {
+                cbuf[off + n++] = (char) c;
+            } else {
+                cbuf[off + n++] = Character.highSurrogate(c);
+                if (n < len)
+                    cbuf[off + n++] = Character.lowSurrogate(c);
+                else
+                    low = Character.lowSurrogate(c);
+            }
+        }
+        return n == 0 ? -1 : n;
+    }
+
+    /**
+     * Maps the next window of the file, starting at {@link #pos},
+     * so that a character is never split between two windows.
+     */
+    private void refill() throws IOException {
+        if (channel == null || next >= size)
+            return;
+        long offset = next - (end - pos);
+        buf = map(channel, offset, size);
+        pos = 0;
+        end = buf.limit();
+        next = offset + end;
+    }
+
+    @Override
+    public void close() {
+        buf = null;
+        pos = end = 0;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
+
+import cn.glassfish.jaxb.runtime.DateTimeConverter;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.Pcdata;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.UTF8XmlOutput;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Calendar;
+
+/**
+ * {@link Pcdata} that represents a {@link java.time} value, {@link Calendar}
+ * or {@link XMLGregorianCalendar}.
+ *
+ * <p>
+ * The value is formatted by {@link DateTimeConverter} into an ASCII buffer,
+ * which is then copied as-is to {@link UTF8XmlOutput} since it never
+ * needs escaping.
+ */
+public final class DateTimeData extends Pcdata {
+
+    private byte[] buf = new byte[DateTimeConverter.MAX_LENGTH];
+
+    /**
+     * Number of bytes in {@link #buf} that are in use.
+     */
+    private int len;
+
+    public DateTimeData set(Instant v) {
+        len = DateTimeConverter._printInstant(v, buf, 0);
+        return this;
+    }
+
+    public DateTimeData set(LocalDate v) {
+        len = DateTimeConverter._printLocalDate(v, buf, 0);
+        return this;
+    }
+
+    public DateTimeData set(LocalTime v) {
+        len = DateTimeConverter._printLocalTime(v, buf, 0);
+        return this;
+    }
+
+    public DateTimeData set(LocalDateTime v) {
+        len = DateTimeConverter._printLocalDateTime(v, buf, 0);
+        return this;
+    }
+
+    public DateTimeData set(OffsetDateTime v) {
+        len = DateTimeConverter._printOffsetDateTime(v, buf, 0);
+        return this;
+    }
+
+    public DateTimeData set(ZonedDateTime v) {
+        len = DateTimeConverter._printZonedDateTime(v, buf, 0);
+        return this;
+    }
+
+    public DateTimeData set(Duration v) {
+        len = DateTimeConverter._printDuration(v, buf, 0);
+        return this;
+    }
+
+    /**
+     * Sets {@link Calendar} printed as {@code xs:dateTime}.
+     */
+    public DateTimeData setDateTime(Calendar v) {
+        len = DateTimeConverter._printDateTime(v, buf, 0);
+        return this;
+    }
+
+    /**
+     * Sets {@link Calendar} printed as {@code xs:date}.
+     */
+    public DateTimeData setDate(Calendar v) {
+        len = DateTimeConverter._printDate(v, buf, 0);
+        return this;
+    }
+
+    /**
+     * Sets {@link XMLGregorianCalendar} printed with the given format.
+     *
+     * @see DateTimeConverter#_printXMLGregorianCalendar(XMLGregorianCalendar, String, byte[], int)
+     */
+    public DateTimeData set(XMLGregorianCalendar v, String format) {
+        ensureCapacity(DateTimeConverter.maxLength(v, format));
+        len = DateTimeConverter._printXMLGregorianCalendar(v, format, buf, 0);
+        return this;
+    }
+
+    /**
+     * Sets an already formatted value, which must only contain ASCII characters.
+     */
+    public DateTimeData set(String ascii) {
+        len = ascii.length();
+        ensureCapacity(len);
+        for (int i = 0; i < len; i++)
+            buf[i] = (byte) ascii.charAt(i);
+        return this;
+    }
+
+    private void ensureCapacity(int size) {
+        if (buf.length < size)
+            buf = new byte[size];
+    }
+
+    @Override
+    public int length() {
+        return len;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= len)
+            throw new IndexOutOfBoundsException();
+        return (char) buf[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, len, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void writeTo(char[] output, int start) {
+        for (int i = 0; i < len; i++)
+            output[start + i] = (char) buf[i];
+    }
+
+    @Override
+    public void writeTo(UTF8XmlOutput output) throws IOException {
+        output.write(buf, 0, len);
+    }
+}
@@ -26,6 +26,17 @@ final class DefaultIDResolver extends IDResolver {
     /** Records ID->Object map. */
     private HashMap<String,Object> idmap = null;
 
+    /**
+     * Expected number of IDs in a document, used to size {@link #idmap}
+     * so that it doesn't need to be rehashed while it fills up.
+     */
+    private int expectedSize;
+
+    void setExpectedSize(int expectedSize) {
+        this.expectedSize = expectedSize;
+        idmap = null;
+    }
+
     @Override
     public void startDocument(ValidationEventHandler eventHandler) throws SAXException {
         if(idmap!=null)
@@ -34,17 +45,27 @@ final class DefaultIDResolver extends IDResolver {
 
     @Override
     public void bind(String id, Object obj) {
-        if(idmap==null)     idmap = new HashMap<>();
+        if(idmap==null)     idmap = new HashMap<>(Math.max(16, (int) (expectedSize / 0.75f) + 1));
         idmap.put(id,obj);
     }
 
+    /**
+     * Gets the object bound to the given ID so far, without
+     * the {@link Callable} that {@link #resolve(String, Class)} allocates.
+     *
+     * @return null if not bound (yet).
+     */
+    Object get(String id) {
+        if(idmap==null)     return null;
+        return idmap.get(id);
+    }
+
     @Override
     public Callable resolve(final String id, Class targetType) {
         return new Callable() {
             @Override
             public Object call() throws Exception {
-                if(idmap==null)     return null;
-                return idmap.get(id);
+                return get(id);
             }
         };
     }
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
+
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.UnmarshalException;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.util.Arrays;
+
+/**
+ * Elements of a deferred property, recorded during the unmarshalling
+ * so that they can be unmarshalled into the property later.
+ *
+ * <p>
+ * The elements are kept as a compact list of events, not as text, so replaying
+ * them doesn't involve the parser. Namespace bindings in scope of the elements are
+ * recorded with them, but the elements should not have IDREFs to the objects
+ * outside of them, or IDs that are referenced from outside of them.
+ *
+ * @see DeferredPropertyHolder
+ */
+public final class DeferredContent {
+
+    private static final int START = 0;
+    private static final int END = 1;
+    private static final int TEXT = 2;
+
+    /**
+     * Unmarshaller with the configuration of the one that recorded the elements.
+     */
+    private final UnmarshallerImpl configuration;
+    private final Object bean;
+    private final StructureLoader loader;
+    private final String property;
+
+    /**
+     * Other deferred properties of the same object, while it is being unmarshalled.
+     */
+    final DeferredContent next;
+
+    /**
+     * Event codes. {@link #START} is followed by the number of namespace
+     * bindings and the number of attributes.
+     */
+    private int[] ops = new int[16];
+    private int opsLen;
+
+    /**
+     * Names, namespace bindings, attributes and text, in the order of {@link #ops}.
+     */
+    private String[] strings = new String[32];
+    private int stringsLen;
+
+    /**
+     * The nesting level while the elements are recorded.
+     */
+    private int depth;
+
+    private boolean loaded;
+
+    /**
+     * {@link Loader} of the recorded elements.
+     */
+    final Loader recorder = new Loader(true) {
+        @Override
+        public void childElement(UnmarshallingContext.State state, TagName ea) {
+            state.setLoader(this);
+        }
+
+        @Override
+        public void startElement(UnmarshallingContext.State state, TagName ea) {
+            recordStart(ea, state.getContext().getNamespaceBindings(depth == 0));
+            depth++;
+        }
+
+        @Override
+        public void text(UnmarshallingContext.State state, CharSequence text) {
+            addOp(TEXT);
+            addString(text.toString());
+        }
+
+        @Override
+        public void leaveElement(UnmarshallingContext.State state, TagName ea) {
+            addOp(END);
+            depth--;
+        }
+    };
+
+    private DeferredContent(UnmarshallerImpl configuration, Object bean, StructureLoader loader, String property, DeferredContent next) {
+        this.configuration = configuration;
+        this.bean = bean;
+        this.loader = loader;
+        this.property = property;
+        this.next = next;
+    }
+
+    /**
+     * Gets the {@link DeferredContent} that records the given property of the object
+     * of the given state, creating one if this is the first element of the property.
+     *
+     * @param state
+     *      the state of the object that has the property.
+     */
+    static DeferredContent of(UnmarshallingContext.State state, StructureLoader loader, String property) {
+        for (DeferredContent d = state.getDeferredContent(); d != null; d = d.next) {
+            if (d.property.equals(property))
+                return d;
+        }
+        DeferredContent d = new DeferredContent(state.getContext().getDeferredConfiguration(),
+                state.getTarget(), loader, property, state.getDeferredContent());
+        state.setDeferredContent(d);
+        ((DeferredPropertyHolder) state.getTarget()).setDeferredContent(property, d);
+        return d;
+    }
+
+    /**
+     * Unmarshals the recorded elements into the property.
+     *
+     * <p>
+     * This uses a new {@link jakarta.xml.bind.Unmarshaller} with the configuration
+     * that the one which recorded the elements had at that time.
+     * The elements are unmarshalled only once; calling this method again,
+     * including from the accessors of the property while it is being unmarshalled,
+     * does nothing.
+     *
+     * @throws JAXBException
+     *      if the elements could not be unmarshalled.
+     */
+    public synchronized void load() throws JAXBException {
+        if (loaded)
+            return;
+        loaded = true;
+
+        UnmarshallerImpl u = configuration.copy();
+        u.createUnmarshallerHandler(null, false, null);
+        UnmarshallingContext ctx = u.coordinator;
+        try {
+            ctx.startDocument(null, null);
+            ctx.getCurrentState().setLoader(rootLoader);
+            ctx.startElement(new Tag("", "", "", EMPTY));
+            replay(ctx);
+            ctx.endElement(new Tag("", "", "", EMPTY));
+            ctx.endDocument();
+        } catch (SAXException e) {
+            throw new UnmarshalException(e);
+        } finally {
+            ctx.clearStates();
+        }
+
+        // the events are no longer needed
+        ops = null;
+        strings = null;
+    }
+
+    /**
+     * Checks if {@link #load()} has been called.
+     */
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    private void replay(UnmarshallingContext ctx) throws SAXException {
+        AttributesImpl atts = new AttributesImpl();
+        // start of the names and the number of namespace bindings of the open elements
+        int[] stack = new int[16];
+        int sp = 0;
+        int s = 0;
+        for (int i = 0; i < opsLen; ) {
+            switch (ops[i++]) {
+            case START:
+                int nsLen = ops[i++];
+                int attLen = ops[i++];
+                if (sp == stack.length)
+                    stack = Arrays.copyOf(stack, sp * 2);
+                stack[sp++] = s;
+                stack[sp++] = nsLen;
+                int name = s;
+                s += 3;
+                for (int j = 0; j < nsLen; j++, s += 2)
+                    ctx.startPrefixMapping(strings[s], strings[s + 1]);
+                atts.clear();
+                for (int j = 0; j < attLen; j++, s += 5)
+                    atts.addAttribute(strings[s], strings[s + 1], strings[s + 2], strings[s + 3], strings[s + 4]);
+                ctx.startElement(new Tag(strings[name], strings[name + 1], strings[name + 2], atts));
+                break;
+            case END:
+                nsLen = stack[--sp];
+                name = stack[--sp];
+                ctx.endElement(new Tag(strings[name], strings[name + 1], strings[name + 2], EMPTY));
+                for (int j = nsLen - 1; j >= 0; j--)
+                    ctx.endPrefixMapping(strings[name + 3 + j * 2]);
+                break;
+            case TEXT:
+                ctx.text(strings[s++]);
+                break;
+            default:
+                throw new AssertionError();
+            }
+        }
+    }
+
+    private void recordStart(TagName ea, String[] nsBindings) {
+        Attributes atts = ea.atts;
+        int attLen = atts.getLength();
+        addOp(START);
+        addOp(nsBindings.length / 2);
+        addOp(attLen);
+        addString(ea.uri);
+        addString(ea.local);
+        addString(ea.getQname());
+        for (String ns : nsBindings)
+            addString(ns);
+        for (int i = 0; i < attLen; i++) {
+            addString(atts.getURI(i));
+            addString(atts.getLocalName(i));
+            addString(atts.getQName(i));
+            addString(atts.getType(i));
+            addString(atts.getValue(i));
+        }
+    }
+
+    private void addOp(int op) {
+        if (opsLen == ops.length)
+            ops = Arrays.copyOf(ops, opsLen * 2);
+        ops[opsLen++] = op;
+    }
+
+    private void addString(String str) {
+        if (stringsLen == strings.length)
+            strings = Arrays.copyOf(strings, stringsLen * 2);
+        strings[stringsLen++] = str;
+    }
+
+    /**
+     * Loader of the document, which unmarshals its root element into {@link #bean}.
+     */
+    private final Loader rootLoader = new Loader() {
+        @Override
+        public void childElement(UnmarshallingContext.State state, TagName ea) {
+            state.setLoader(beanLoader);
+        }
+    };
+
+    /**
+     * Unmarshals the recorded elements as the children of {@link #bean}.
+     */
+    private final Loader beanLoader = new Loader() {
+        @Override
+        public void startElement(UnmarshallingContext.State state, TagName ea) {
+            state.setTarget(bean);
+            state.getContext().startScope(loader.getFrameSize());
+        }
+
+        @Override
+        public void childElement(UnmarshallingContext.State state, TagName ea) throws SAXException {
+            loader.childElement(state, ea);
+        }
+
+        @Override
+        public void leaveElement(UnmarshallingContext.State state, TagName ea) throws SAXException {
+            state.getContext().endScope(loader.getFrameSize());
+        }
+    };
+
+    private static final Attributes EMPTY = new AttributesImpl();
+
+    private static final class Tag extends TagName {
+        private final String qname;
+
+        Tag(String uri, String local, String qname, Attributes atts) {
+            this.uri = uri;
+            this.local = local;
+            this.qname = qname;
+            this.atts = atts;
+        }
+
+        @Override
+        public String getQname() {
+            return qname;
+        }
+    }
+}
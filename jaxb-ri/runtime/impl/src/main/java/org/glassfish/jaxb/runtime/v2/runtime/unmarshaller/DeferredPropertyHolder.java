@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
+
+/**
+ * Implemented by bound classes whose properties can be unmarshalled on demand.
+ *
+ * <p>
+ * When a property of such a class is listed in {@link UnmarshallerImpl#DEFERRED_PROPERTIES},
+ * the unmarshaller only records its elements and hands them to the object through
+ * {@link #setDeferredContent(String, DeferredContent)}. The accessors of the property are
+ * then expected to call {@link DeferredContent#load()} before they touch the field, for example:
+ *
+ * <pre>
+ * public List&lt;Attachment&gt; getAttachments() {
+ *     if (deferred != null) {
+ *         try {
+ *             deferred.load();
+ *         } catch (JAXBException e) {
+ *             throw new IllegalStateException(e);
+ *         }
+ *         deferred = null;
+ *     }
+ *     return attachments;
+ * }
+ * </pre>
+ *
+ * Objects that don't implement this interface are always unmarshalled completely.
+ */
+public interface DeferredPropertyHolder {
+    /**
+     * Called once per deferred property, when its first element is seen.
+     *
+     * @param property
+     *      the name of the property, as in {@link UnmarshallerImpl#DEFERRED_PROPERTIES}.
+     * @param content
+     *      unmarshals the property when {@link DeferredContent#load() loaded}.
+     *      Elements of the property that come later in the document are still
+     *      added to it until the unmarshalling of this object is completed.
+     */
+    void setDeferredContent(String property, DeferredContent content);
+}
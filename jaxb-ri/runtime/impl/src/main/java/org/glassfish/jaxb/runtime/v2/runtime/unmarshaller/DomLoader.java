@@ -10,11 +10,14 @@
 
 package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
 
-import cn.glassfish.jaxb.runtime.v2.runtime.JAXBContextImpl;
+import cn.glassfish.jaxb.core.marshaller.SAX2DOMEx;
 import jakarta.xml.bind.annotation.DomHandler;
+import org.w3c.dom.Node;
+import org.xml.sax.ContentHandler;
 import org.xml.sax.SAXException;
 
 import javax.xml.transform.Result;
+import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.sax.TransformerHandler;
 
 /**
@@ -33,8 +36,13 @@ public class DomLoader<ResultT extends Result> extends Loader {
      */
     private final class State {
 
-        /** This handler will receive SAX events. */
-        private TransformerHandler handler = null;
+        /**
+         * This handler will receive SAX events.
+         *
+         * When the result is a {@link DOMResult}, this builds the DOM directly.
+         * Otherwise this is a {@link TransformerHandler}.
+         */
+        private final ContentHandler handler;
 
         /** {@link #handler} will produce this result. */
         private final ResultT result;
@@ -43,10 +51,21 @@ public class DomLoader<ResultT extends Result> extends Loader {
         int depth = 1;
 
         public State( UnmarshallingContext context ) throws SAXException {
-            handler = JAXBContextImpl.createTransformerHandler(context.getJAXBContext().disableSecurityProcessing);
             result = dom.createUnmarshaller(context);
 
-            handler.setResult(result);
+            if(result instanceof DOMResult && ((DOMResult)result).getNextSibling()==null) {
+                DOMResult r = (DOMResult)result;
+                Node node = r.getNode();
+                if(node==null) {
+                    node = context.getJAXBContext().createDom();
+                    r.setNode(node);
+                }
+                handler = new SAX2DOMEx(node);
+            } else {
+                TransformerHandler th = context.getJAXBContext().createTransformerHandler();
+                th.setResult(result);
+                handler = th;
+            }
 
             // emulate the start of documents
             try {
@@ -239,10 +239,7 @@ final class FastInfosetConnector extends StAXConnector {
             base64Data.set(fastInfosetStreamReader.getTextAlgorithmBytesClone(),null);
             visitor.text(base64Data);
         } else {
-            if (isTextAlgorithmAplied) {
-                fastInfosetStreamReader.getText();
-            }
-
+            // other algorithms are decoded into characters by getTextCharacters()
             charArray.set();
             visitor.text(charArray);
         }
@@ -258,10 +255,6 @@ final class FastInfosetConnector extends StAXConnector {
             visitor.text(base64Data);
             textReported = true;
         } else {
-            if (isTextAlgorithmAplied) {
-                fastInfosetStreamReader.getText();
-            }
-
             charArray.set();
             if (!WhiteSpaceProcessor.isWhiteSpace(charArray)) {
                 visitor.text(charArray);
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Receives the object that an IDREF points to.
+ *
+ * <p>
+ * Unlike {@link Patcher}, one instance can serve all the IDREFs of a property,
+ * so forward references don't need an object per reference.
+ *
+ * @see UnmarshallingContext#resolveIDREF(Object, String, Class, IDREFReceiver)
+ */
+public interface IDREFReceiver {
+    /**
+     * @param bean
+     *      the object that has the IDREF.
+     * @param target
+     *      the object that the IDREF resolved to. never null.
+     */
+    void receive(Object bean, Object target) throws SAXException;
+}
@@ -25,8 +25,18 @@ public class LeafPropertyLoader extends Loader {
     private final TransducedAccessor xacc;
 
     public LeafPropertyLoader(TransducedAccessor xacc) {
+        this(xacc, false);
+    }
+
+    /**
+     * @param expectBinary
+     *      true if {@code xacc} accepts {@link Base64Data} and therefore
+     *      the text can be decoded incrementally.
+     */
+    public LeafPropertyLoader(TransducedAccessor xacc, boolean expectBinary) {
         super(true);
         this.xacc = xacc;
+        this.expectBinary = expectBinary;
     }
 
     @Override
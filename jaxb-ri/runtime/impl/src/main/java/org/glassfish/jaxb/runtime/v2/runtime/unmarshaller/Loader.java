@@ -28,6 +28,15 @@ public abstract class Loader {
     // allow derived classes to change it later
     protected boolean expectText;
 
+    /**
+     * True if the text of this element is base64Binary data that the connectors
+     * may decode as it comes in and report as {@link Base64Data},
+     * instead of buffering the whole text.
+     *
+     * @see UnmarshallingContext#startBinaryText()
+     */
+    protected boolean expectBinary;
+
     protected Loader(boolean expectText) {
         this.expectText = expectText;
     }
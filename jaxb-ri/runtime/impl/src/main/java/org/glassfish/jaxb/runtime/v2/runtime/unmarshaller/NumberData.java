@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
+
+import cn.glassfish.jaxb.runtime.DatatypeConverterImpl;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.Pcdata;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.UTF8XmlOutput;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link Pcdata} that represents a {@code long}, {@code double} or {@code float}.
+ *
+ * <p>
+ * The value is formatted by {@link DatatypeConverterImpl} into an ASCII buffer,
+ * like {@link DateTimeData} does, so that no {@link String} is created for it.
+ *
+ * @see IntData
+ */
+public final class NumberData extends Pcdata {
+
+    private final byte[] buf = new byte[DatatypeConverterImpl.MAX_NUMBER_LENGTH];
+
+    /**
+     * Number of bytes in {@link #buf} that are in use.
+     */
+    private int len;
+
+    public NumberData set(long v) {
+        len = DatatypeConverterImpl._printLong(v, buf, 0);
+        return this;
+    }
+
+    public NumberData set(double v) {
+        len = DatatypeConverterImpl._printDouble(v, buf, 0);
+        return this;
+    }
+
+    public NumberData set(float v) {
+        len = DatatypeConverterImpl._printFloat(v, buf, 0);
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return len;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index >= len)
+            throw new IndexOutOfBoundsException();
+        return (char) buf[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buf, 0, len, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public void writeTo(char[] output, int start) {
+        for (int i = 0; i < len; i++)
+            output[start + i] = (char) buf[i];
+    }
+
+    @Override
+    public void writeTo(UTF8XmlOutput output) throws IOException {
+        output.write(buf, 0, len);
+    }
+}
@@ -0,0 +1,557 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
+
+import cn.glassfish.jaxb.runtime.api.AccessorException;
+import cn.glassfish.jaxb.runtime.api.JAXBRIContext;
+import cn.glassfish.jaxb.runtime.api.RawAccessor;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.UnmarshalException;
+import jakarta.xml.bind.Unmarshaller;
+
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Unmarshals a large UTF-8 document on several threads, by splitting it
+ * at the children of the root element that have the given name.
+ *
+ * <p>
+ * The document is first scanned at the byte level to find those children.
+ * Each batch of them is then unmarshalled by its own {@link Unmarshaller}
+ * on the {@link Executor}, while the rest of the document is unmarshalled
+ * on the calling thread. Finally, the unmarshalled children are added in
+ * document order to the property of the root object that they belong to,
+ * which must be a collection.
+ *
+ * <p>
+ * The namespace declarations of the root element are carried over to
+ * each child. Other than that, the children are unmarshalled in isolation,
+ * so IDREFs that cross them are not resolved. Settings such as event handlers
+ * are applied to all the unmarshallers by {@link #setUnmarshallerConfigurator}.
+ * Documents that this class can't split safely, such as the ones with
+ * a DOCTYPE or in another encoding, are unmarshalled on the calling thread.
+ * So are the documents in which other elements go to the same property
+ * as the children, because the order of the property could not be kept.
+ *
+ * <pre>
+ * ParallelUnmarshaller pu = new ParallelUnmarshaller(context, new QName("order"), Order.class, executor);
+ * Orders orders = (Orders) pu.unmarshal(Path.of("orders.xml"));
+ * </pre>
+ */
+public final class ParallelUnmarshaller {
+
+    private final JAXBRIContext context;
+    private final QName splitElement;
+    private final Class<?> itemType;
+    private final Executor executor;
+
+    private final byte[] localName;
+
+    /**
+     * Minimum number of bytes unmarshalled by one task.
+     */
+    private int batchSize = 1024 * 1024;
+
+    private UnmarshallerConfigurator configurator = u -> {};
+
+    /**
+     * Configures the {@link Unmarshaller}s that this class creates.
+     */
+    @FunctionalInterface
+    public interface UnmarshallerConfigurator {
+        void configure(Unmarshaller u) throws JAXBException;
+    }
+
+    /**
+     * @param splitElement
+     *      name of the children of the root element to unmarshal in parallel.
+     * @param itemType
+     *      type to unmarshal those children to.
+     * @param executor
+     *      runs the unmarshalling of the children. If null,
+     *      {@link ForkJoinPool#commonPool()} is used.
+     */
+    public ParallelUnmarshaller(JAXBRIContext context, QName splitElement, Class<?> itemType, Executor executor) {
+        this.context = context;
+        this.splitElement = splitElement;
+        this.itemType = itemType;
+        this.executor = executor != null ? executor : ForkJoinPool.commonPool();
+        this.localName = splitElement.getLocalPart().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sets the minimum number of bytes that one task unmarshals,
+     * so that small children are unmarshalled in batches.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setUnmarshallerConfigurator(UnmarshallerConfigurator configurator) {
+        this.configurator = configurator;
+    }
+
+    /**
+     * Maps the file into memory and unmarshals it.
+     */
+    public Object unmarshal(Path file) throws JAXBException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE)
+                throw new UnmarshalException(file + " is too large");
+            return unmarshal(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+        } catch (IOException e) {
+            throw new UnmarshalException(e);
+        }
+    }
+
+    /**
+     * Unmarshals the remaining bytes of the buffer, which must be an XML document in UTF-8.
+     * The position of the buffer is not changed.
+     */
+    public Object unmarshal(ByteBuffer doc) throws JAXBException {
+        Splitter s = new Splitter(doc);
+        if (!s.split() || s.count == 0)
+            return unmarshalSequentially(doc);
+
+        // fork
+        List<CompletableFuture<Object[]>> tasks = new ArrayList<>();
+        int from = 0;
+        while (from < s.count) {
+            int to = from;
+            long size = 0;
+            while (to < s.count && size < batchSize) {
+                size += s.ends[to] - s.starts[to];
+                to++;
+            }
+            final int f = from, t = to;
+            tasks.add(CompletableFuture.supplyAsync(() -> unmarshalChildren(s, f, t), executor));
+            from = to;
+        }
+
+        Object root = newUnmarshaller().unmarshal(new StreamSource(new SequenceInputStream(s.skeleton())));
+        Object bean = root instanceof JAXBElement ? ((JAXBElement<?>) root).getValue() : root;
+        RawAccessor<Object, Object> acc = getAccessor(bean);
+        Object v = get(acc, bean);
+        if (v != null && !(v instanceof Collection))
+            throw new UnmarshalException(splitElement + " is not a collection property of " + bean.getClass());
+        if (v != null && !((Collection<?>) v).isEmpty()) {
+            // other elements went to the property, and we don't know where the children go among them
+            for (CompletableFuture<Object[]> task : tasks)
+                task.cancel(false);
+            return unmarshalSequentially(doc);
+        }
+
+        // join
+        List<Object> items = new ArrayList<>(s.count);
+        try {
+            for (CompletableFuture<Object[]> task : tasks)
+                items.addAll(Arrays.asList(task.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof JAXBException)
+                throw (JAXBException) e.getCause();
+            throw new UnmarshalException(e.getCause());
+        }
+
+        addItems(acc, bean, v, items);
+        return root;
+    }
+
+    private Object unmarshalSequentially(ByteBuffer doc) throws JAXBException {
+        Unmarshaller u = newUnmarshaller();
+        if (u instanceof UnmarshallerImpl)
+            return ((UnmarshallerImpl) u).unmarshal(doc);
+        return u.unmarshal(new StreamSource(new ByteBufferInputStream(doc)));
+    }
+
+    private Object[] unmarshalChildren(Splitter s, int from, int to) {
+        try {
+            Unmarshaller u = newUnmarshaller();
+            Object[] r = new Object[to - from];
+            for (int i = from; i < to; i++)
+                r[i - from] = u.unmarshal(new StreamSource(s.child(i)), itemType).getValue();
+            return r;
+        } catch (JAXBException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RawAccessor<Object, Object> getAccessor(Object bean) throws JAXBException {
+        return context.getElementPropertyAccessor(
+                (Class<Object>) bean.getClass(), splitElement.getNamespaceURI(), splitElement.getLocalPart());
+    }
+
+    private static Object get(RawAccessor<Object, Object> acc, Object bean) throws JAXBException {
+        try {
+            return acc.get(bean);
+        } catch (AccessorException e) {
+            throw new UnmarshalException(e);
+        }
+    }
+
+    /**
+     * @param v
+     *      the current value of the property, null or an empty collection.
+     */
+    @SuppressWarnings("unchecked")
+    private static void addItems(RawAccessor<Object, Object> acc, Object bean, Object v, List<Object> items) throws JAXBException {
+        try {
+            if (v == null)
+                acc.set(bean, new ArrayList<>(items));
+            else
+                ((Collection<Object>) v).addAll(items);
+        } catch (AccessorException e) {
+            throw new UnmarshalException(e);
+        }
+    }
+
+    private Unmarshaller newUnmarshaller() throws JAXBException {
+        Unmarshaller u = context.createUnmarshaller();
+        configurator.configure(u);
+        return u;
+    }
+
+    /**
+     * Finds the children of the root element to be split off.
+     */
+    private final class Splitter {
+        private final ByteBuffer buf;
+        private final int limit;
+        private int pos;
+
+        /**
+         * {@code buf[starts[i]]} to {@code buf[ends[i]-1]} are the i-th child.
+         */
+        int[] starts = new int[64], ends = new int[64];
+        /**
+         * End of the tag name of the i-th child, where the namespace
+         * declarations of the root element are inserted.
+         */
+        int[] nameEnds = new int[64];
+        /**
+         * Namespace declarations that are inserted to the i-th child.
+         */
+        byte[][] decls = new byte[64][];
+        int count;
+
+        /**
+         * Namespace declarations of the root element.
+         */
+        private final List<Attribute> rootDecls = new ArrayList<>();
+
+        Splitter(ByteBuffer buf) {
+            this.buf = buf;
+            this.pos = buf.position();
+            this.limit = buf.limit();
+        }
+
+        /**
+         * @return
+         *      false if the document can't be split. Note that malformed documents
+         *      are left to the parser to report.
+         */
+        boolean split() {
+            if (!ByteBufferReader.isUtf8(buf))
+                return false;
+            // UTF-8 BOM
+            if (limit - pos >= 3 && buf.get(pos) == (byte) 0xEF && buf.get(pos + 1) == (byte) 0xBB && buf.get(pos + 2) == (byte) 0xBF)
+                pos += 3;
+            int depth = 0;
+            int childStart = -1;
+            while (true) {
+                int lt = indexOf('<', pos);
+                if (lt < 0 || lt + 1 >= limit)
+                    return depth == 0;
+                byte b = buf.get(lt + 1);
+                if (b == '?') {
+                    int end = indexOf("?>", lt + 2);
+                    if (end < 0)
+                        return false;
+                    pos = end + 2;
+                } else if (b == '!') {
+                    int end;
+                    if (startsWith(lt, "<!--"))
+                        end = indexOf("-->", lt + 4);
+                    else if (startsWith(lt, "<![CDATA["))
+                        end = indexOf("]]>", lt + 9);
+                    else
+                        return false;   // DOCTYPE. it might declare entities
+                    if (end < 0)
+                        return false;
+                    pos = end + 3;
+                } else if (b == '/') {
+                    int gt = indexOf('>', lt);
+                    if (gt < 0)
+                        return false;
+                    pos = gt + 1;
+                    depth--;
+                    if (depth == 1 && childStart >= 0) {
+                        ends[count - 1] = pos;
+                        childStart = -1;
+                    }
+                } else {
+                    int gt = endOfStartTag(lt);
+                    if (gt < 0)
+                        return false;
+                    boolean empty = buf.get(gt - 1) == '/';
+                    int nameEnd = endOfName(lt + 1, gt);
+                    if (depth == 0) {
+                        if (!parseAttributes(nameEnd, gt, rootDecls))
+                            return false;
+                    } else if (depth == 1 && isSplitElement(lt + 1, nameEnd, gt)) {
+                        add(lt, nameEnd, gt + 1);
+                        if (!empty)
+                            childStart = lt;
+                    }
+                    if (!empty)
+                        depth++;
+                    pos = gt + 1;
+                }
+            }
+        }
+
+        private void add(int start, int nameEnd, int end) {
+            if (count == starts.length) {
+                int n = count * 2;
+                starts = Arrays.copyOf(starts, n);
+                ends = Arrays.copyOf(ends, n);
+                nameEnds = Arrays.copyOf(nameEnds, n);
+                decls = Arrays.copyOf(decls, n);
+            }
+            starts[count] = start;
+            nameEnds[count] = nameEnd;
+            ends[count] = end;
+            decls[count] = declsToInsert;
+            count++;
+        }
+
+        /**
+         * Namespace declarations to be inserted into the child found last.
+         */
+        private byte[] declsToInsert;
+
+        private final List<Attribute> childAttributes = new ArrayList<>();
+
+        /**
+         * Checks the name of an element, and computes {@link #declsToInsert} if it matches.
+         */
+        private boolean isSplitElement(int nameStart, int nameEnd, int gt) {
+            int colon = -1;
+            for (int i = nameStart; i < nameEnd; i++) {
+                if (buf.get(i) == ':') {
+                    colon = i;
+                    break;
+                }
+            }
+            int localStart = colon < 0 ? nameStart : colon + 1;
+            if (nameEnd - localStart != localName.length)
+                return false;
+            for (int i = 0; i < localName.length; i++) {
+                if (buf.get(localStart + i) != localName[i])
+                    return false;
+            }
+
+            childAttributes.clear();
+            if (!parseAttributes(nameEnd, gt, childAttributes))
+                return false;
+            String prefix = colon < 0 ? "" : string(nameStart, colon);
+            String uri = resolve(prefix, childAttributes);
+            if (uri == null)
+                uri = resolve(prefix, rootDecls);
+            if (uri == null)
+                uri = "";
+            if (!uri.equals(splitElement.getNamespaceURI()))
+                return false;
+
+            StringBuilder sb = new StringBuilder();
+            for (Attribute a : rootDecls) {
+                if (resolve(a.prefix, childAttributes) == null)
+                    sb.append(' ').append(a.raw);
+            }
+            declsToInsert = sb.toString().getBytes(StandardCharsets.UTF_8);
+            return true;
+        }
+
+        private String resolve(String prefix, List<Attribute> decls) {
+            for (Attribute a : decls) {
+                if (a.prefix != null && a.prefix.equals(prefix))
+                    return a.value;
+            }
+            return null;
+        }
+
+        /**
+         * Collects the namespace declarations in a start tag.
+         */
+        private boolean parseAttributes(int i, int gt, List<Attribute> decls) {
+            while (true) {
+                while (i < gt && ByteBufferReader.isWhitespace(buf.get(i)))
+                    i++;
+                if (i >= gt || buf.get(i) == '/')
+                    return true;
+                int nameStart = i;
+                while (i < gt && buf.get(i) != '=' && !ByteBufferReader.isWhitespace(buf.get(i)))
+                    i++;
+                int nameEnd = i;
+                while (i < gt && buf.get(i) != '\'' && buf.get(i) != '"')
+                    i++;
+                if (i >= gt)
+                    return false;
+                byte quote = buf.get(i);
+                int valueStart = ++i;
+                while (i < gt && buf.get(i) != quote)
+                    i++;
+                if (i >= gt)
+                    return false;
+                int valueEnd = i++;
+
+                String name = string(nameStart, nameEnd);
+                if (name.equals("xmlns") || name.startsWith("xmlns:")) {
+                    String value = string(valueStart, valueEnd);
+                    if (value.indexOf('&') >= 0)
+                        return false;   // don't bother with references
+                    decls.add(new Attribute(name.length() == 5 ? "" : name.substring(6), value, string(nameStart, i)));
+                }
+            }
+        }
+
+        /**
+         * Finds the '&gt;' that closes the start tag, skipping attribute values.
+         */
+        private int endOfStartTag(int i) {
+            byte quote = 0;
+            for (; i < limit; i++) {
+                byte b = buf.get(i);
+                if (quote != 0) {
+                    if (b == quote)
+                        quote = 0;
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int endOfName(int i, int gt) {
+            while (i < gt && !ByteBufferReader.isWhitespace(buf.get(i)) && buf.get(i) != '/')
+                i++;
+            return i;
+        }
+
+        private int indexOf(char c, int from) {
+            for (int i = from; i < limit; i++) {
+                if (buf.get(i) == c)
+                    return i;
+            }
+            return -1;
+        }
+
+        private int indexOf(String s, int from) {
+            for (int i = indexOf(s.charAt(0), from); i >= 0; i = indexOf(s.charAt(0), i + 1)) {
+                if (startsWith(i, s))
+                    return i;
+            }
+            return -1;
+        }
+
+        private boolean startsWith(int i, String s) {
+            if (i + s.length() > limit)
+                return false;
+            for (int j = 0; j < s.length(); j++) {
+                if (buf.get(i + j) != s.charAt(j))
+                    return false;
+            }
+            return true;
+        }
+
+        private String string(int start, int end) {
+            byte[] b = new byte[end - start];
+            for (int i = 0; i < b.length; i++)
+                b[i] = buf.get(start + i);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * The i-th child, with the namespace declarations of the root element.
+         */
+        InputStream child(int i) {
+            return new SequenceInputStream(new SequenceInputStream(
+                    new ByteBufferInputStream(buf, starts[i], nameEnds[i]),
+                    new ByteArrayInputStream(decls[i])),
+                    new ByteBufferInputStream(buf, nameEnds[i], ends[i]));
+        }
+
+        /**
+         * The document without the children.
+         */
+        Enumeration<InputStream> skeleton() {
+            return new Enumeration<>() {
+                int i = 0;
+
+                @Override
+                public boolean hasMoreElements() {
+                    return i <= count;
+                }
+
+                @Override
+                public InputStream nextElement() {
+                    if (i > count)
+                        throw new NoSuchElementException();
+                    int start = i == 0 ? buf.position() : ends[i - 1];
+                    int end = i == count ? limit : starts[i];
+                    i++;
+                    return new ByteBufferInputStream(buf, start, end);
+                }
+            };
+        }
+    }
+
+    private static final class Attribute {
+        /**
+         * Prefix declared by this attribute, "" for the default namespace.
+         */
+        final String prefix;
+        final String value;
+        /**
+         * The whole attribute as it appears in the document.
+         */
+        final String raw;
+
+        Attribute(String prefix, String value, String raw) {
+            this.prefix = prefix;
+            this.value = value;
+            this.raw = raw;
+        }
+    }
+}
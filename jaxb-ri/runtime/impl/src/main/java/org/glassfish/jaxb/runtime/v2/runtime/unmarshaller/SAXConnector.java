@@ -31,6 +31,11 @@ public final class SAXConnector implements UnmarshallerHandler {
 
     private LocatorEx loc;
 
+    /**
+     * True if {@link #loc} was given by the caller, rather than by the parser.
+     */
+    private final boolean externalLocator;
+
     private static final Logger logger = Utils.getClassLogger();
 
     /**
@@ -39,6 +44,14 @@ public final class SAXConnector implements UnmarshallerHandler {
      */
     private final StringBuilder buffer = new StringBuilder();
 
+    /**
+     * Non-null while the text of the current element is decoded
+     * as base64Binary instead of being buffered.
+     *
+     * @see UnmarshallingContext#startBinaryText()
+     */
+    private Base64Decoder binary;
+
     private final XmlVisitor next;
     private final UnmarshallingContext context;
     private final XmlVisitor.TextPredictor predictor;
@@ -53,6 +66,14 @@ public final class SAXConnector implements UnmarshallerHandler {
 
     private final TagNameImpl tagName = new TagNameImpl();
 
+    /**
+     * The number of open elements inside an element whose content is
+     * being skipped, plus one. 0 when nothing is being skipped.
+     *
+     * @see UnmarshallingContext#isSkippingContent()
+     */
+    private int skipDepth;
+
     /**
      * @param externalLocator
      *      If the caller is producing SAX events from sources other than Unicode and angle brackets,
@@ -64,6 +85,7 @@ public final class SAXConnector implements UnmarshallerHandler {
         this.context = next.getContext();
         this.predictor = next.getPredictor();
         this.loc = externalLocator;
+        this.externalLocator = externalLocator!=null;
     }
 
     @Override
@@ -77,7 +99,7 @@ public final class SAXConnector implements UnmarshallerHandler {
 
     @Override
     public void setDocumentLocator(final Locator locator) {
-        if(loc!=null)
+        if(externalLocator)
             return; // we already have an external locator. ignore.
 
         this.loc = new LocatorExWrapper(locator);
@@ -88,6 +110,10 @@ public final class SAXConnector implements UnmarshallerHandler {
         if (logger.isLoggable(Level.FINER)) {
             logger.log(Level.FINER, "SAXConnector.startDocument");
         }
+        // this may follow a document that failed
+        skipDepth = 0;
+        binary = null;
+        buffer.setLength(0);
         next.startDocument(loc,null);
     }
 
@@ -104,6 +130,8 @@ public final class SAXConnector implements UnmarshallerHandler {
         if (logger.isLoggable(Level.FINER)) {
             logger.log(Level.FINER, "SAXConnector.startPrefixMapping: {0}:{1}", new Object[]{prefix, uri});
         }
+        if(skipDepth>0)
+            return;
         next.startPrefixMapping(prefix,uri);
     }
 
@@ -112,6 +140,8 @@ public final class SAXConnector implements UnmarshallerHandler {
         if (logger.isLoggable(Level.FINER)) {
             logger.log(Level.FINER, "SAXConnector.endPrefixMapping: {0}", new Object[]{prefix});
         }
+        if(skipDepth>0)
+            return;
         next.endPrefixMapping(prefix);
     }
 
@@ -120,6 +150,10 @@ public final class SAXConnector implements UnmarshallerHandler {
         if (logger.isLoggable(Level.FINER)) {
             logger.log(Level.FINER, "SAXConnector.startElement: {0}:{1}:{2}, attrs: {3}", new Object[]{uri, local, qname, atts});
         }
+        if(skipDepth>0) {
+            skipDepth++;
+            return;
+        }
         // work gracefully with misconfigured parsers that don't support namespaces
         if( uri==null || uri.length()==0 )
             uri="";
@@ -135,6 +169,9 @@ public final class SAXConnector implements UnmarshallerHandler {
         tagName.qname = qname;
         tagName.atts = atts;
         next.startElement(tagName);
+
+        if(context.isSkippingContent())
+            skipDepth = 1;
     }
 
     @Override
@@ -142,6 +179,8 @@ public final class SAXConnector implements UnmarshallerHandler {
         if (logger.isLoggable(Level.FINER)) {
             logger.log(Level.FINER, "SAXConnector.startElement: {0}:{1}:{2}", new Object[]{uri, localName, qName});
         }
+        if(skipDepth>0 && --skipDepth>0)
+            return;
         processText(false);
         tagName.uri = uri;
         tagName.local = localName;
@@ -151,16 +190,22 @@ public final class SAXConnector implements UnmarshallerHandler {
 
 
     @Override
-    public final void characters( char[] buf, int start, int len ) {
+    public final void characters( char[] buf, int start, int len ) throws SAXException {
         if (logger.isLoggable(Level.FINEST)) {
             logger.log(Level.FINEST, "SAXConnector.characters: {0}", buf);
         }
-        if( predictor.expectText() )
-            buffer.append(buf,start,len);
+        if( skipDepth==0 && predictor.expectText() ) {
+            if( binary==null && buffer.length()==0 )
+                binary = context.startBinaryText();
+            if( binary!=null )
+                binary.decode(buf,start,len);
+            else
+                buffer.append(buf,start,len);
+        }
     }
 
     @Override
-    public final void ignorableWhitespace( char[] buf, int start, int len ) {
+    public final void ignorableWhitespace( char[] buf, int start, int len ) throws SAXException {
         if (logger.isLoggable(Level.FINEST)) {
             logger.log(Level.FINEST, "SAXConnector.characters{0}", buf);
         }
@@ -178,6 +223,12 @@ public final class SAXConnector implements UnmarshallerHandler {
     }
 
     private void processText( boolean ignorable ) throws SAXException {
+        if (binary != null) {
+            Base64Decoder b = binary;
+            binary = null;
+            next.text(b.finish());
+            return;
+        }
         if (predictor.expectText() && (!ignorable || !WhiteSpaceProcessor.isWhiteSpace(buffer)))
             next.text(buffer);
         buffer.setLength(0);
@@ -50,7 +50,7 @@ final class StAXExConnector extends StAXStreamConnector {
                 visitor.text(binary);
                 textReported = true;
             } else {
-                buffer.append(pcdata);
+                appendText(pcdata);
             }
         }
     }
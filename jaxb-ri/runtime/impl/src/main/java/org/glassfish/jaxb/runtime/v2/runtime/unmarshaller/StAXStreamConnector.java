@@ -113,6 +113,14 @@ class StAXStreamConnector extends StAXConnector {
      */
     protected boolean textReported = false;
 
+    /**
+     * Non-null while the text of the current element is decoded
+     * as base64Binary instead of being buffered.
+     *
+     * @see UnmarshallingContext#startBinaryText()
+     */
+    private Base64Decoder binary;
+
     protected StAXStreamConnector(XMLStreamReader staxStreamReader, XmlVisitor visitor) {
         super(visitor);
         this.staxStreamReader = staxStreamReader;
@@ -148,6 +156,11 @@ class StAXStreamConnector extends StAXConnector {
                     case XMLStreamConstants.START_ELEMENT :
                         handleStartElement();
                         depth++;
+                        if(context.isSkippingContent()) {
+                            skipContent();
+                            event = XMLStreamConstants.END_ELEMENT;
+                            continue;
+                        }
                         break;
                     case XMLStreamConstants.END_ELEMENT :
                         depth--;
@@ -183,6 +196,24 @@ class StAXStreamConnector extends StAXConnector {
         return getQName(staxStreamReader.getPrefix(),staxStreamReader.getLocalName());
     }
 
+    /**
+     * Moves the parser to the end tag of the current element
+     * without reporting anything in between.
+     */
+    private void skipContent() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (staxStreamReader.next()) {
+                case XMLStreamConstants.START_ELEMENT :
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT :
+                    depth--;
+                    break;
+            }
+        }
+    }
+
     private void handleEndElement() throws SAXException {
         processText(false);
 
@@ -306,14 +337,43 @@ class StAXStreamConnector extends StAXConnector {
     };
 
     protected void handleCharacters() throws XMLStreamException, SAXException {
-        if( predictor.expectText() )
-            buffer.append(
-                staxStreamReader.getTextCharacters(),
-                staxStreamReader.getTextStart(),
-                staxStreamReader.getTextLength() );
+        if( predictor.expectText() ) {
+            if( isBinaryText() )
+                binary.decode(
+                    staxStreamReader.getTextCharacters(),
+                    staxStreamReader.getTextStart(),
+                    staxStreamReader.getTextLength() );
+            else
+                buffer.append(
+                    staxStreamReader.getTextCharacters(),
+                    staxStreamReader.getTextStart(),
+                    staxStreamReader.getTextLength() );
+        }
+    }
+
+    /**
+     * Appends a chunk of text of the current element.
+     */
+    protected final void appendText(CharSequence text) throws SAXException {
+        if( isBinaryText() )
+            binary.decode(text);
+        else
+            buffer.append(text);
+    }
+
+    private boolean isBinaryText() {
+        if( binary==null && buffer.length()==0 )
+            binary = context.startBinaryText();
+        return binary!=null;
     }
 
     private void processText( boolean ignorable ) throws SAXException {
+        if (binary != null) {
+            Base64Decoder b = binary;
+            binary = null;
+            visitor.text(b.finish());
+            return;
+        }
         if( predictor.expectText() && (!ignorable || !WhiteSpaceProcessor.isWhiteSpace(buffer) || context.getCurrentState().isMixed())) {
             if(textReported) {
                 textReported = false;
@@ -352,7 +412,7 @@ class StAXStreamConnector extends StAXConnector {
                 return null;
 
             Class c = Class.forName(
-                    "cn.glassfish.jaxb.core.v2.runtime.unmarshaller.FastInfosetConnector");
+                    "cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.FastInfosetConnector");
             return c.getConstructor(FI_STAX_READER_CLASS,XmlVisitor.class);
         } catch (Throwable e) {
             return null;
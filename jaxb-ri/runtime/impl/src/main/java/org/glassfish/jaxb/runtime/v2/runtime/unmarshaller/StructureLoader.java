@@ -33,6 +33,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Loads children of an element.
@@ -75,6 +76,15 @@ public final class StructureLoader extends Loader {
      */
     private /*final*/ Accessor<Object,Map<QName,String>> attCatchAll;
 
+    /**
+     * Names of the properties that {@link #childUnmarshallers} and {@link #attUnmarshallers}
+     * belong to, so that the children of properties excluded by
+     * {@link UnmarshallerImpl#PROJECTION} can be skipped.
+     */
+    private final QNameMap<String> childPropertyNames = new QNameMap<>();
+    private final QNameMap<String> attPropertyNames = new QNameMap<>();
+    private /*final*/ String catchAllPropertyName;
+
     private final JaxBeanInfo beanInfo;
 
     /**
@@ -109,12 +119,17 @@ public final class StructureLoader extends Loader {
                         attUnmarshallers = new QNameMap<>();
                     AttributeProperty ap = (AttributeProperty) p;
                     attUnmarshallers.put(ap.attName.toQName(),ap.xacc);
+                    attPropertyNames.put(ap.attName.toQName(),ap.getFieldName());
                     break;
                 case ELEMENT:
                 case REFERENCE:
                 case MAP:
                 case VALUE:
-                    p.buildChildElementUnmarshallers(chain,childUnmarshallers);
+                    QNameMap<ChildLoader> loaders = new QNameMap<>();
+                    p.buildChildElementUnmarshallers(chain,loaders);
+                    for (QNameMap.Entry<ChildLoader> e : loaders.entrySet())
+                        childPropertyNames.put(e.nsUri,e.localName,p.getFieldName());
+                    childUnmarshallers.putAll(loaders);
                     break;
                 }
             }
@@ -124,6 +139,7 @@ public final class StructureLoader extends Loader {
 
         textHandler = childUnmarshallers.get(StructureLoaderBuilder.TEXT_HANDLER);
         catchAll = childUnmarshallers.get(StructureLoaderBuilder.CATCH_ALL);
+        catchAllPropertyName = childPropertyNames.get(StructureLoaderBuilder.CATCH_ALL);
 
         if(attWildcard!=null) {
             attCatchAll = (Accessor<Object,Map<QName,String>>) attWildcard;
@@ -166,6 +182,7 @@ public final class StructureLoader extends Loader {
         context.startScope(frameSize);
 
         if(attUnmarshallers!=null) {
+            Set<String> projection = context.getProjection(beanInfo.jaxbType);
             Attributes atts = ea.atts;
             for (int i = 0; i < atts.getLength(); i ++){
                 String auri = atts.getURI(i);
@@ -176,6 +193,8 @@ public final class StructureLoader extends Loader {
                 }
                 String avalue = atts.getValue(i);
                 TransducedAccessor xacc = attUnmarshallers.get(auri, alocal);
+                if(xacc!=null && projection!=null && !projection.contains(attPropertyNames.get(auri, alocal)))
+                    continue;
                 try {
                     if(xacc!=null) {
                         xacc.parse(child,avalue);
@@ -217,6 +236,7 @@ public final class StructureLoader extends Loader {
     @Override
     public void childElement(UnmarshallingContext.State state, TagName arg) throws SAXException {
         ChildLoader child = childUnmarshallers.get(arg.uri,arg.local);
+        String childUri = arg.uri;
         if(child == null) {
             Boolean backupWithParentNamespace = state.getContext().getJAXBContext().backupWithParentNamespace;
 			backupWithParentNamespace = backupWithParentNamespace != null
@@ -229,6 +249,7 @@ public final class StructureLoader extends Loader {
                     parentQName = (QName) typeNamesIt.next();
                     String parentUri = parentQName.getNamespaceURI();
                     child = childUnmarshallers.get(parentUri, arg.local);
+                    childUri = parentUri;
                 }
             }
             if (child == null) {
@@ -240,6 +261,26 @@ public final class StructureLoader extends Loader {
             }
         }
 
+        UnmarshallingContext context = state.getContext();
+        Set<String> projection = context.getProjection(beanInfo.jaxbType);
+        Set<String> deferred = context.getDeferredProperties(beanInfo.jaxbType);
+        if(projection!=null || deferred!=null) {
+            String name = child==catchAll ? catchAllPropertyName : childPropertyNames.get(childUri,arg.local);
+            if(projection!=null && !projection.contains(name)) {
+                // not selected. skip the whole subtree
+                state.setLoader(Discarder.INSTANCE);
+                state.setReceiver(null);
+                return;
+            }
+            // the object loads its deferred content through another loader, which mustn't defer it again
+            if(deferred!=null && deferred.contains(name) && state.getPrev().getLoader()==this
+                    && state.getPrev().getTarget() instanceof DeferredPropertyHolder) {
+                state.setLoader(DeferredContent.of(state.getPrev(),this,name).recorder);
+                state.setReceiver(null);
+                return;
+            }
+        }
+
         state.setLoader(child.loader);
         state.setReceiver(child.receiver);
     }
@@ -268,6 +309,13 @@ public final class StructureLoader extends Loader {
 
     private static final QNameMap<TransducedAccessor> EMPTY = new QNameMap<TransducedAccessor>();
 
+    /**
+     * Gets the number of scopes this loader keeps active.
+     */
+    int getFrameSize() {
+        return frameSize;
+    }
+
     public JaxBeanInfo getBeanInfo() {
         return beanInfo;
     }
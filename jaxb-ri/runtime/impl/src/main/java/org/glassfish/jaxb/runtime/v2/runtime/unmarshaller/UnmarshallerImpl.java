@@ -18,7 +18,6 @@ import cn.glassfish.jaxb.core.v2.ClassFactory;
 import cn.glassfish.jaxb.runtime.v2.runtime.AssociationMap;
 import cn.glassfish.jaxb.runtime.v2.runtime.JAXBContextImpl;
 import cn.glassfish.jaxb.runtime.v2.runtime.JaxBeanInfo;
-import cn.glassfish.jaxb.core.v2.util.XmlFactory;
 import jakarta.xml.bind.*;
 import jakarta.xml.bind.annotation.adapters.XmlAdapter;
 import jakarta.xml.bind.attachment.AttachmentUnmarshaller;
@@ -32,8 +31,6 @@ import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.DefaultHandler;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParserFactory;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
@@ -47,6 +44,17 @@ import javax.xml.validation.Schema;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Default Unmarshaller implementation.
@@ -77,7 +85,12 @@ import java.io.InputStream;
      * The attachment unmarshaller used to support MTOM and swaRef.
      */
     private AttachmentUnmarshaller attachmentUnmarshaller;
-    private IDResolver idResolver = new DefaultIDResolver();
+    private final DefaultIDResolver defaultIdResolver = new DefaultIDResolver();
+    private IDResolver idResolver = defaultIdResolver;
+    private Number base64SpillThreshold;
+    private Integer expectedIdCount;
+    private Map<Class<?>,Set<String>> projection;
+    private Map<Class<?>,Set<String>> deferredProperties;
 
     public UnmarshallerImpl( JAXBContextImpl context, AssociationMap assoc ) {
         this.context = context;
@@ -104,7 +117,9 @@ import java.io.InputStream;
      * {@link SAXSource} object doesn't have XMLReader.
      *
      * {@link Unmarshaller} is not re-entrant, so we will
-     * only use one instance of XMLReader.
+     * only use one instance of XMLReader at a time. It is taken from
+     * {@link JAXBContextImpl#xmlReaderPool} and given back once the
+     * document is parsed.
      *
      * Overriden in order to fix potential security issue.
      */
@@ -112,16 +127,12 @@ import java.io.InputStream;
     protected XMLReader getXMLReader() throws JAXBException {
          if (reader == null) {
              try {
-                 SAXParserFactory parserFactory = XmlFactory.createParserFactory(context.disableSecurityProcessing);
                  // there is no point in asking a validation because
                  // there is no guarantee that the document will come with
                  // a proper schemaLocation.
-                 parserFactory.setValidating(false);
-                 reader = parserFactory.newSAXParser().getXMLReader();
-             } catch (ParserConfigurationException e) {
-                 throw new JAXBException(e);
-             } catch (SAXException e) {
-                 throw new JAXBException(e);
+                 reader = context.xmlReaderPool.take();
+             } catch (IllegalStateException e) {
+                 throw new JAXBException(e.getCause() != null ? e.getCause() : e);
              }
          }
          return reader;
@@ -202,6 +213,12 @@ import java.io.InputStream;
 
         SAXConnector connector = getUnmarshallerHandler(needsInterning(reader),expectedType);
 
+        // a pooled reader is given back only after a successful parse,
+        // as a failed one may still refer to the connector
+        boolean pooled = reader == this.reader;
+        if (pooled)
+            this.reader = null;
+
         reader.setContentHandler(connector);
         // saxErrorHandler will be set by the getUnmarshallerHandler method.
         // configure XMLReader so that the error will be sent to it.
@@ -233,6 +250,8 @@ import java.io.InputStream;
         // setting null upsets some parsers, so use a dummy instance instead.
         reader.setContentHandler(dummyHandler);
         reader.setErrorHandler(dummyHandler);
+        if (pooled)
+            context.xmlReaderPool.recycle(reader);
 
         return result;
     }
@@ -427,6 +446,182 @@ import java.io.InputStream;
         }
     }
 
+    /**
+     * Unmarshals the XML document in the remaining bytes of the buffer.
+     * The position of the buffer is not changed.
+     *
+     * <p>
+     * Documents in UTF-8 are decoded directly from the buffer, which can be
+     * a direct or a memory-mapped one. Other encodings are left to the parser.
+     */
+    public Object unmarshal(ByteBuffer buffer) throws JAXBException {
+        return unmarshal0(buffer,null);
+    }
+
+    /**
+     * Unmarshals the XML document in the remaining bytes of the buffer as the given type.
+     *
+     * @see #unmarshal(ByteBuffer)
+     */
+    public <T> JAXBElement<T> unmarshal(ByteBuffer buffer, Class<T> expectedType) throws JAXBException {
+        if(expectedType==null) {
+            throw new IllegalArgumentException();
+        }
+        return (JAXBElement)unmarshal0(buffer,getBeanInfo(expectedType));
+    }
+
+    /**
+     * Unmarshals an XML file by mapping it into memory.
+     *
+     * <p>
+     * Files in UTF-8 are decoded directly from the mapped memory,
+     * a window of {@value ByteBufferReader#WINDOW} bytes at a time.
+     */
+    public Object unmarshal(Path file) throws JAXBException {
+        return unmarshal0(file,null);
+    }
+
+    /**
+     * Unmarshals an XML file as the given type.
+     *
+     * @see #unmarshal(Path)
+     */
+    public <T> JAXBElement<T> unmarshal(Path file, Class<T> expectedType) throws JAXBException {
+        if(expectedType==null) {
+            throw new IllegalArgumentException();
+        }
+        return (JAXBElement)unmarshal0(file,getBeanInfo(expectedType));
+    }
+
+    private Object unmarshal0(ByteBuffer buffer, JaxBeanInfo expectedType) throws JAXBException {
+        InputSource source = ByteBufferReader.isUtf8(buffer)
+                ? new InputSource(new ByteBufferReader(buffer))
+                : new InputSource(new ByteBufferInputStream(buffer));
+        return unmarshal0(getXMLReader(),source,expectedType);
+    }
+
+    private Object unmarshal0(Path file, JaxBeanInfo expectedType) throws JAXBException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            InputSource source;
+            ByteBuffer first = ByteBufferReader.map(ch, 0, ch.size());
+            if (ByteBufferReader.isUtf8(first)) {
+                source = new InputSource(new ByteBufferReader(ch, first));
+            } else if (ch.size() <= ByteBufferReader.WINDOW) {
+                source = new InputSource(new ByteBufferInputStream(first));
+            } else {
+                source = new InputSource(Channels.newInputStream(ch));
+            }
+            source.setSystemId(file.toUri().toString());
+            return unmarshal0(getXMLReader(),source,expectedType);
+        } catch (IOException e) {
+            throw new UnmarshalException(e);
+        }
+    }
+
+    /**
+     * Receives the errors of {@link #unmarshalAll(Iterable, DocumentErrorHandler)}.
+     */
+    public interface DocumentErrorHandler {
+        /**
+         * Called when a document of the batch can't be unmarshalled.
+         *
+         * @param index
+         *      the position of the document in the batch.
+         * @return
+         *      true to carry on with the next document, leaving null in the place
+         *      of this one, or false to abort the batch by throwing the exception.
+         */
+        boolean handleError(int index, JAXBException e);
+    }
+
+    /**
+     * Unmarshals many small documents, each given as a {@code byte[]}
+     * or as the remaining bytes of a {@link ByteBuffer}.
+     *
+     * @return
+     *      the unmarshalled objects, in the order of the documents.
+     * @see #unmarshalAll(Iterable, DocumentErrorHandler)
+     */
+    public List<Object> unmarshalAll(Iterable<?> documents) throws JAXBException {
+        return unmarshalAll(documents,null);
+    }
+
+    /**
+     * Unmarshals many small documents, each given as a {@code byte[]}
+     * or as the remaining bytes of a {@link ByteBuffer}.
+     *
+     * <p>
+     * The parser is taken from the pool and configured once for the whole batch,
+     * and the documents go through the same handlers, which saves most of the fixed
+     * cost of unmarshalling a document when documents are only a few hundred bytes long.
+     *
+     * @param errorHandler
+     *      decides whether to go on when a document fails, or null to stop at the first failure.
+     * @return
+     *      the unmarshalled objects, in the order of the documents.
+     */
+    public List<Object> unmarshalAll(Iterable<?> documents, DocumentErrorHandler errorHandler) throws JAXBException {
+        XMLReader reader = getXMLReader();
+        this.reader = null;
+        SAXConnector connector = getUnmarshallerHandler(needsInterning(reader),null);
+        reader.setContentHandler(connector);
+        reader.setErrorHandler(coordinator);
+
+        List<Object> results = new ArrayList<>();
+        InputSource source = new InputSource();
+        try {
+            int index = 0;
+            for (Object doc : documents) {
+                Object result;
+                try {
+                    result = unmarshalDocument(reader,connector,source,doc);
+                } catch (JAXBException e) {
+                    if (errorHandler==null || !errorHandler.handleError(index,e))
+                        throw e;
+                    result = null;
+                }
+                results.add(result);
+                index++;
+            }
+        } finally {
+            reader.setContentHandler(dummyHandler);
+            reader.setErrorHandler(dummyHandler);
+        }
+        // the parser starts over with each document,
+        // so it can be reused even if some of them failed
+        context.xmlReaderPool.recycle(reader);
+        return results;
+    }
+
+    private Object unmarshalDocument(XMLReader reader, SAXConnector connector, InputSource source, Object doc) throws JAXBException {
+        ByteBuffer buffer;
+        if (doc instanceof byte[])
+            buffer = ByteBuffer.wrap((byte[])doc);
+        else if (doc instanceof ByteBuffer)
+            buffer = (ByteBuffer)doc;
+        else
+            throw new IllegalArgumentException(doc==null ? "null" : doc.getClass().getName());
+
+        if (ByteBufferReader.isUtf8(buffer)) {
+            source.setByteStream(null);
+            source.setCharacterStream(new ByteBufferReader(buffer));
+        } else {
+            source.setCharacterStream(null);
+            source.setByteStream(new ByteBufferInputStream(buffer));
+        }
+
+        try {
+            reader.parse(source);
+        } catch( IOException e ) {
+            coordinator.clearStates();
+            throw new UnmarshalException(e);
+        } catch( SAXException e ) {
+            coordinator.clearStates();
+            throw createUnmarshalException(e);
+        }
+        return connector.getResult();
+    }
+
     public Object unmarshal0( InputStream input, JaxBeanInfo expectedType ) throws JAXBException {
         return unmarshal0(getXMLReader(),new InputSource(input),expectedType);
     }
@@ -453,6 +648,18 @@ import java.io.InputStream;
         if(name.equals(IDResolver.class.getName())) {
             return idResolver;
         }
+        if(name.equals(BASE64_SPILL_THRESHOLD)) {
+            return base64SpillThreshold;
+        }
+        if(name.equals(EXPECTED_ID_COUNT)) {
+            return expectedIdCount;
+        }
+        if(name.equals(PROJECTION)) {
+            return projection;
+        }
+        if(name.equals(DEFERRED_PROPERTIES)) {
+            return deferredProperties;
+        }
         return super.getProperty(name);
     }
 
@@ -474,11 +681,154 @@ import java.io.InputStream;
             coordinator.classLoader = (ClassLoader)value;
             return;
         }
+        if(name.equals(EXPECTED_ID_COUNT)) {
+            if(value!=null && !(value instanceof Integer))
+                throw new PropertyException(name, value);
+            expectedIdCount = (Integer)value;
+            defaultIdResolver.setExpectedSize(value==null ? 0 : expectedIdCount);
+            return;
+        }
+        if(name.equals(BASE64_SPILL_THRESHOLD)) {
+            if(value!=null && !(value instanceof Number))
+                throw new PropertyException(name, value);
+            base64SpillThreshold = (Number)value;
+            coordinator.setBase64SpillThreshold(value==null ? -1 : base64SpillThreshold.longValue());
+            return;
+        }
+        if(name.equals(PROJECTION)) {
+            projection = toPropertyNames(name, value);
+            coordinator.setProjection(projection);
+            return;
+        }
+        if(name.equals(DEFERRED_PROPERTIES)) {
+            deferredProperties = toPropertyNames(name, value);
+            coordinator.setDeferredProperties(deferredProperties);
+            return;
+        }
         super.setProperty(name, value);
     }
 
+    /**
+     * Checks the value of {@link #PROJECTION} or {@link #DEFERRED_PROPERTIES}
+     * and copies it into a {@code Map<Class<?>,Set<String>>}.
+     */
+    private static Map<Class<?>,Set<String>> toPropertyNames(String name, Object value) throws PropertyException {
+        if(value==null)
+            return null;
+        if(!(value instanceof Map))
+            throw new PropertyException(name, value);
+        Map<Class<?>,Set<String>> r = new HashMap<>();
+        for (Map.Entry<?,?> e : ((Map<?,?>)value).entrySet()) {
+            if(!(e.getKey() instanceof Class) || !(e.getValue() instanceof Set))
+                throw new PropertyException(name, value);
+            Set<String> names = new HashSet<>();
+            for (Object n : (Set<?>)e.getValue()) {
+                if(!(n instanceof String))
+                    throw new PropertyException(name, value);
+                names.add((String)n);
+            }
+            r.put((Class<?>)e.getKey(), names);
+        }
+        return r;
+    }
+
+    /**
+     * Creates an unmarshaller of the same {@link JAXBContext} with the same
+     * configuration as this one, so that {@link DeferredContent#load()} unmarshals
+     * the elements it recorded the way they would have been unmarshalled right away.
+     */
+    UnmarshallerImpl copy() {
+        UnmarshallerImpl u = context.createUnmarshaller();
+        if(hasEventHandler()) {
+            try {
+                u.setEventHandler(getEventHandler());
+            } catch (JAXBException e) {
+                throw new AssertionError(e);    // impossible
+            }
+        }
+        u.schema = schema;
+        u.externalListener = externalListener;
+        u.attachmentUnmarshaller = attachmentUnmarshaller;
+        if(idResolver!=defaultIdResolver)
+            u.idResolver = idResolver;
+        u.expectedIdCount = expectedIdCount;
+        if(expectedIdCount!=null)
+            u.defaultIdResolver.setExpectedSize(expectedIdCount);
+        u.base64SpillThreshold = base64SpillThreshold;
+        if(base64SpillThreshold!=null)
+            u.coordinator.setBase64SpillThreshold(base64SpillThreshold.longValue());
+        u.projection = projection;
+        u.coordinator.setProjection(projection);
+        u.deferredProperties = deferredProperties;
+        u.coordinator.setDeferredProperties(deferredProperties);
+        u.coordinator.copyConfiguration(coordinator);
+        return u;
+    }
+
     public static final String FACTORY = "cn.glassfish.jaxb.core.ObjectFactory";
 
+    /**
+     * Property that tells the default {@link IDResolver} roughly how many IDs
+     * a document has, as an {@link Integer}, so that its table is allocated
+     * with the right size up front instead of being rehashed as it fills up.
+     *
+     * <p>
+     * This has no effect when an {@link IDResolver} is set.
+     */
+    public static final String EXPECTED_ID_COUNT = "cn.glassfish.jaxb.runtime.expectedIdCount";
+
+    /**
+     * Property that enables the incremental decoding of base64Binary text into
+     * {@link jakarta.activation.DataHandler}, {@link Source}
+     * and {@link java.awt.Image} properties.
+     *
+     * <p>
+     * The value is a {@link Number}; values that decode to more than that many
+     * bytes are written to a temporary file instead of being kept on the heap.
+     * The file is deleted once the {@link jakarta.activation.DataHandler} that
+     * exposes it is garbage collected. The decoding is not incremental when
+     * a {@link Schema} is set, because the validator needs to see the text.
+     *
+     * <p>
+     * Null or a negative value, which is the default, disables the feature.
+     */
+    public static final String BASE64_SPILL_THRESHOLD = "cn.glassfish.jaxb.runtime.base64SpillThreshold";
+
+    /**
+     * Property that limits the unmarshalling to some of the properties of some classes.
+     *
+     * <p>
+     * The value is a {@code Map<Class<?>,Set<String>>} from a bound class to the names
+     * of its properties to unmarshal, including the inherited ones. Elements and attributes
+     * of other properties of that class are skipped, along with everything inside them,
+     * so no objects are created for them. Classes that are not in the map are unmarshalled
+     * as usual.
+     *
+     * <p>
+     * Skipped subtrees are not reported to {@link Listener}s. When the unmarshaller
+     * reads from SAX or StAX and no {@link Schema} is set, their events are consumed
+     * without being processed at all.
+     */
+    public static final String PROJECTION = "cn.glassfish.jaxb.runtime.projection";
+
+    /**
+     * Property that defers the unmarshalling of some of the properties of some classes
+     * until they are used.
+     *
+     * <p>
+     * The value is a {@code Map<Class<?>,Set<String>>} from a bound class to the names
+     * of its properties to defer, like {@link #PROJECTION}. The elements of those
+     * properties are recorded instead of being unmarshalled, and handed to the object
+     * as a {@link DeferredContent}, provided that the class implements
+     * {@link DeferredPropertyHolder}. Otherwise this property has no effect.
+     *
+     * <p>
+     * The recorded elements are unmarshalled with the configuration that this
+     * unmarshaller had when it unmarshalled the document, including its event handler,
+     * listener and adapters. They are validated along with the rest of the document.
+     */
+    public static final String DEFERRED_PROPERTIES = "cn.glassfish.jaxb.runtime.deferredProperties";
+
     @Override
     public void setSchema(Schema schema) {
         this.schema = schema;
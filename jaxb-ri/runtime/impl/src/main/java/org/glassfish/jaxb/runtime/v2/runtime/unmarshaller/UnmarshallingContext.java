@@ -12,6 +12,7 @@ package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
 
 import com.sun.istack.NotNull;
 import com.sun.istack.Nullable;
+import com.sun.istack.SAXException2;
 import com.sun.istack.SAXParseException2;
 import cn.glassfish.jaxb.runtime.IDResolver;
 import cn.glassfish.jaxb.runtime.api.AccessorException;
@@ -244,6 +245,13 @@ public final class UnmarshallingContext extends Coordinator
          */
         private boolean mixed = false;
 
+        /**
+         * Deferred properties of {@link #target}.
+         *
+         * @see UnmarshallerImpl#DEFERRED_PROPERTIES
+         */
+        private DeferredContent deferred;
+
         /**
          * Gets the context.
          */
@@ -287,6 +295,7 @@ public final class UnmarshallingContext extends Coordinator
             intercepter = null;
             elementDefaultValue = null;
             target = null;
+            deferred = null;
             current = prev;
             next = null;
         }
@@ -295,6 +304,14 @@ public final class UnmarshallingContext extends Coordinator
             return mixed;
         }
 
+        DeferredContent getDeferredContent() {
+            return deferred;
+        }
+
+        void setDeferredContent(DeferredContent deferred) {
+            this.deferred = deferred;
+        }
+
         public Object getTarget() {
             return target;
         }
@@ -389,11 +406,131 @@ public final class UnmarshallingContext extends Coordinator
         errorsCounter = _parent.context.maxErrorsCount;
     }
 
+    /**
+     * Decodes base64Binary text incrementally, or null if that's disabled.
+     *
+     * @see UnmarshallerImpl#BASE64_SPILL_THRESHOLD
+     */
+    private Base64Decoder base64Decoder;
+
+    /**
+     * Enables the incremental decoding of base64Binary text.
+     *
+     * @param threshold
+     *      values larger than this many bytes are written to temporary files.
+     *      A negative value disables the incremental decoding.
+     */
+    void setBase64SpillThreshold(long threshold) {
+        if (base64Decoder != null)
+            base64Decoder.reset();
+        base64Decoder = threshold < 0 ? null : new Base64Decoder(threshold);
+    }
+
+    /**
+     * Called by the connectors when they see the first chunk of text of the current element.
+     *
+     * @return
+     *      a decoder to feed the text to, if the current loader
+     *      {@link Loader#expectBinary expects binary data}. The connector then
+     *      reports {@link Base64Decoder#finish()} as the text of the element.
+     *      Otherwise null, and the text should be buffered as usual.
+     */
+    Base64Decoder startBinaryText() {
+        if (base64Decoder == null || !current.loader.expectBinary || parent.getSchema() != null)
+            return null;    // the validator needs to see the text
+        base64Decoder.reset();
+        return base64Decoder;
+    }
+
+    /**
+     * Properties to unmarshal, per class, or null to unmarshal everything.
+     *
+     * @see UnmarshallerImpl#PROJECTION
+     */
+    private Map<Class<?>,Set<String>> projection;
+
+    void setProjection(Map<Class<?>,Set<String>> projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * Properties to defer, per class, or null to unmarshal everything right away.
+     *
+     * @see UnmarshallerImpl#DEFERRED_PROPERTIES
+     */
+    private Map<Class<?>,Set<String>> deferredProperties;
+
+    void setDeferredProperties(Map<Class<?>,Set<String>> deferredProperties) {
+        this.deferredProperties = deferredProperties;
+    }
+
+    /**
+     * Gets the names of the properties of the given class that should be
+     * recorded as {@link DeferredContent}, or null.
+     */
+    Set<String> getDeferredProperties(Class<?> clazz) {
+        if (deferredProperties == null)
+            return null;
+        return deferredProperties.get(clazz);
+    }
+
+    /**
+     * Gets the names of the properties of the given class that should be unmarshalled.
+     *
+     * @return
+     *      null if all the properties should be unmarshalled.
+     */
+    Set<String> getProjection(Class<?> clazz) {
+        if (projection == null)
+            return null;
+        return projection.get(clazz);
+    }
+
+    /**
+     * Called by the connectors right after the start tag of an element is reported.
+     *
+     * @return
+     *      true if a {@link UnmarshallerImpl#PROJECTION} is set and the whole content
+     *      of the current element is going to be ignored, so that the connector can skip it
+     *      without reporting its events and report the end tag right away.
+     */
+    boolean isSkippingContent() {
+        return projection != null && current.loader == Discarder.INSTANCE && parent.getSchema() == null;
+    }
+
     public void reset(InfosetScanner scanner,boolean isInplaceMode, JaxBeanInfo expectedType, IDResolver idResolver) {
         this.scanner = scanner;
         this.isInplaceMode = isInplaceMode;
         this.expectedType = expectedType;
         this.idResolver = idResolver;
+        this.deferredConfiguration = null;
+    }
+
+    /**
+     * Copy of {@link #parent} for the {@link DeferredContent}s of the current document,
+     * created when the first of them is recorded.
+     */
+    private UnmarshallerImpl deferredConfiguration;
+
+    /**
+     * Gets an unmarshaller with the configuration of {@link #parent} at the time
+     * the current document is unmarshalled, which {@link DeferredContent} copies to load itself.
+     */
+    UnmarshallerImpl getDeferredConfiguration() {
+        if (deferredConfiguration == null)
+            deferredConfiguration = parent.copy();
+        return deferredConfiguration;
+    }
+
+    /**
+     * Uses the same {@link ClassResolver}, {@link ClassLoader}, factories
+     * and adapters as the given {@link UnmarshallingContext}.
+     */
+    void copyConfiguration(UnmarshallingContext c) {
+        classResolver = c.classResolver;
+        classLoader = c.classLoader;
+        factories.putAll(c.factories);
+        putAdapters(c);
     }
 
     public JAXBContextImpl getJAXBContext() {
@@ -492,9 +629,22 @@ public final class UnmarshallingContext extends Coordinator
         // reset the object
         result = null;
         current = root;
+        // states left over from an aborted document
+        for (State s = root; s != null; s = s.next)
+            s.deferred = null;
 
         patchersLen=0;
+        if( pendingLen>0 ) {
+            // left over from an aborted document
+            Arrays.fill(pendingIds,null);
+            Arrays.fill(pendingBeans,null);
+            Arrays.fill(pendingReceivers,null);
+            Arrays.fill(pendingLocations,null);
+            pendingLen=0;
+        }
         aborted = false;
+        if(base64Decoder!=null)
+            base64Decoder.reset();
         isUnmarshalInProgress = true;
         nsLen=0;
 
@@ -789,8 +939,164 @@ public final class UnmarshallingContext extends Coordinator
         patchers[patchersLen++] = job;
     }
 
+    /*
+     * Forward references, to be resolved at the end of the document.
+     * They are kept in parallel arrays rather than in a Patcher each,
+     * since documents that use IDREFs heavily can have a lot of them.
+     */
+    private String[] pendingIds;
+    private Object[] pendingBeans;
+    private IDREFReceiver[] pendingReceivers;
+    /*
+     * Where the references are. Only the position is recorded, and turned into
+     * a location if the reference can't be resolved, unless the locator has
+     * no line numbers, in which case it's a snapshot of the locator.
+     */
+    private int[] pendingLines;
+    private int[] pendingColumns;
+    private String[] pendingSystemIds;
+    private LocatorEx[] pendingLocations;
+    private int pendingLen = 0;
+
+    /**
+     * Resolves an IDREF.
+     *
+     * <p>
+     * If the ID is already bound, the receiver is called right away.
+     * Otherwise it's called at the end of the document, or an error is
+     * reported if the ID turns out not to exist.
+     *
+     * <p>
+     * With the default {@link IDResolver}, this doesn't allocate anything
+     * for a reference, unless the document doesn't have line numbers.
+     */
+    public void resolveIDREF(Object bean, String idref, Class targetType, IDREFReceiver receiver) throws SAXException {
+        if(idResolver instanceof DefaultIDResolver) {
+            Object t = ((DefaultIDResolver)idResolver).get(idref);
+            if(t!=null)
+                receiver.receive(bean,t);
+            else
+                addPending(idref,bean,receiver);
+            return;
+        }
+
+        final Callable callable = idResolver.resolve(idref,targetType);
+        if(callable==null) {
+            // the IDResolver decided to abort it now
+            errorUnresolvedIDREF(bean,idref,locator);
+            return;
+        }
+
+        Object t = call(callable);
+        if(t!=null) {
+            receiver.receive(bean,t);
+        } else {
+            // try again later
+            final LocatorEx loc = new LocatorEx.Snapshot(locator);
+            addPatcher(new Patcher() {
+                @Override
+                public void run() throws SAXException {
+                    Object t = call(callable);
+                    if(t==null) {
+                        errorUnresolvedIDREF(bean,idref,loc);
+                    } else {
+                        receiver.receive(bean,t);
+                    }
+                }
+            });
+        }
+    }
+
+    private void addPending(String idref, Object bean, IDREFReceiver receiver) {
+        if( pendingIds==null ) {
+            pendingIds = new String[32];
+            pendingBeans = new Object[32];
+            pendingReceivers = new IDREFReceiver[32];
+            pendingLines = new int[32];
+            pendingColumns = new int[32];
+            pendingSystemIds = new String[32];
+            pendingLocations = new LocatorEx[32];
+        }
+        if( pendingIds.length == pendingLen ) {
+            int n = pendingLen*2;
+            pendingIds = Arrays.copyOf(pendingIds,n);
+            pendingBeans = Arrays.copyOf(pendingBeans,n);
+            pendingReceivers = Arrays.copyOf(pendingReceivers,n);
+            pendingLines = Arrays.copyOf(pendingLines,n);
+            pendingColumns = Arrays.copyOf(pendingColumns,n);
+            pendingSystemIds = Arrays.copyOf(pendingSystemIds,n);
+            pendingLocations = Arrays.copyOf(pendingLocations,n);
+        }
+        pendingIds[pendingLen] = idref;
+        pendingBeans[pendingLen] = bean;
+        pendingReceivers[pendingLen] = receiver;
+        int line = locator.getLineNumber();
+        if(line<0) {
+            pendingLocations[pendingLen] = new LocatorEx.Snapshot(locator);
+        } else {
+            pendingLines[pendingLen] = line;
+            pendingColumns[pendingLen] = locator.getColumnNumber();
+            pendingSystemIds[pendingLen] = locator.getSystemId();
+        }
+        pendingLen++;
+    }
+
+    /**
+     * Gets the location of the given forward reference.
+     */
+    private LocatorEx getPendingLocation(int i) {
+        if(pendingLocations[i]!=null)
+            return pendingLocations[i];
+        LocatorImpl loc = new LocatorImpl();
+        loc.setLineNumber(pendingLines[i]);
+        loc.setColumnNumber(pendingColumns[i]);
+        loc.setSystemId(pendingSystemIds[i]);
+        return new LocatorExWrapper(loc);
+    }
+
+    /**
+     * Looks up the object bound to the given ID so far.
+     *
+     * @return
+     *      null if the ID is not bound, or if the {@link IDResolver}
+     *      decided to abort.
+     */
+    public Object lookupID( String id, Class targetType ) throws SAXException {
+        if(idResolver instanceof DefaultIDResolver)
+            return ((DefaultIDResolver)idResolver).get(id);
+        Callable callable = idResolver.resolve(id,targetType);
+        return (callable!=null) ? call(callable) : null;
+    }
+
+    private static Object call(Callable callable) throws SAXException {
+        try {
+            return callable.call();
+        } catch (SAXException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SAXException2(e);
+        }
+    }
+
     /** Executes all the patchers. */
     private void runPatchers() throws SAXException {
+        if( pendingLen>0 ) {
+            DefaultIDResolver resolver = (DefaultIDResolver)idResolver;
+            for( int i=0; i<pendingLen; i++ ) {
+                Object t = resolver.get(pendingIds[i]);
+                if(t==null)
+                    errorUnresolvedIDREF(pendingBeans[i],pendingIds[i],getPendingLocation(i));
+                else
+                    pendingReceivers[i].receive(pendingBeans[i],t);
+                // free memory
+                pendingIds[i] = null;
+                pendingBeans[i] = null;
+                pendingReceivers[i] = null;
+                pendingSystemIds[i] = null;
+                pendingLocations[i] = null;
+            }
+            pendingLen = 0;
+        }
         if( patchers!=null ) {
             for( int i=0; i<patchersLen; i++ ) {
                 patchers[i].run();
@@ -891,6 +1197,18 @@ public final class UnmarshallingContext extends Coordinator
         return null;
     }
 
+    /**
+     * Gets the namespace bindings of the current element, as prefix/URI pairs.
+     *
+     * @param inherited
+     *      true to include the bindings declared on the ancestors,
+     *      false to get only the ones declared on the current element.
+     */
+    String[] getNamespaceBindings(boolean inherited) {
+        int start = inherited ? 0 : current.prev.numNsDecl;
+        return Arrays.copyOfRange(nsBind, start, current.numNsDecl);
+    }
+
     /**
      * Returns a list of prefixes newly declared on the current element.
      *
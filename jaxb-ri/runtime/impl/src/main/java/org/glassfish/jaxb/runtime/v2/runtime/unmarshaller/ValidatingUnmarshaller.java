@@ -10,6 +10,7 @@
 
 package cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller;
 
+import cn.glassfish.jaxb.runtime.v2.runtime.ValidatorHandlerPool;
 import cn.glassfish.jaxb.runtime.v2.util.FatalAdapter;
 import cn.glassfish.jaxb.core.v2.runtime.unmarshaller.LocatorEx;
 import org.xml.sax.SAXException;
@@ -26,7 +27,12 @@ import javax.xml.validation.ValidatorHandler;
 final class ValidatingUnmarshaller implements XmlVisitor, XmlVisitor.TextPredictor {
 
     private final XmlVisitor next;
-    private final ValidatorHandler validator;
+    private final ValidatorHandlerPool pool;
+    private final FatalAdapter errorHandler;
+    /**
+     * Taken from the {@link #pool} for the duration of a document.
+     */
+    private ValidatorHandler validator;
     private NamespaceContext nsContext = null;
 
     /**
@@ -40,17 +46,20 @@ final class ValidatingUnmarshaller implements XmlVisitor, XmlVisitor.TextPredict
      * Creates a new instance of ValidatingUnmarshaller.
      */
     public ValidatingUnmarshaller( Schema schema, XmlVisitor next ) {
-        this.validator = schema.newValidatorHandler();
         this.next = next;
+        this.pool = getContext().getJAXBContext().getValidatorHandlerPool(schema);
         this.predictor = next.getPredictor();
         // if the user bothers to use a validator, make validation errors fatal
         // so that it will abort unmarshalling.
-        validator.setErrorHandler(new FatalAdapter(getContext()));
+        this.errorHandler = new FatalAdapter(getContext());
     }
 
     @Override
     public void startDocument(LocatorEx locator, NamespaceContext nsContext) throws SAXException {
         this.nsContext = nsContext;
+        // a validator left over from an aborted document is dropped, as its state is unknown
+        validator = pool.take();
+        validator.setErrorHandler(errorHandler);
         validator.setDocumentLocator(locator);
         validator.startDocument();
         next.startDocument(locator,nsContext);
@@ -60,6 +69,11 @@ final class ValidatingUnmarshaller implements XmlVisitor, XmlVisitor.TextPredict
     public void endDocument() throws SAXException {
         this.nsContext = null;
         validator.endDocument();
+        // the validator is reused only after a complete document,
+        // and once this object no longer refers to it
+        ValidatorHandler v = validator;
+        validator = null;
+        pool.recycle(v);
         next.endDocument();
     }
 
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime;
+
+import junit.framework.TestCase;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+@SuppressWarnings("deprecation")
+public class DatatypeConverterImplTest extends TestCase {
+
+    public void testBase64() throws Exception {
+        Random r = new Random(0);
+        for (int len = 0; len < 100; len++) {
+            byte[] data = new byte[len + 6];
+            r.nextBytes(data);
+            int offset = r.nextInt(4);
+            byte[] exact = Arrays.copyOfRange(data, offset, offset + len);
+            String expected = Base64.getEncoder().encodeToString(exact);
+
+            assertEquals(expected, DatatypeConverterImpl._printBase64Binary(data, offset, len));
+
+            byte[] out = new byte[expected.length() + 2];
+            assertEquals(expected.length() + 1, DatatypeConverterImpl._printBase64Binary(data, offset, len, out, 1));
+            assertEquals(expected, new String(out, 1, expected.length(), StandardCharsets.US_ASCII));
+
+            StringWriter sw = new StringWriter();
+            XMLStreamWriter w = XMLOutputFactory.newInstance().createXMLStreamWriter(sw);
+            DatatypeConverterImpl._printBase64Binary(data, offset, len, w);
+            w.flush();
+            assertEquals(expected, sw.toString());
+
+            assertTrue(Arrays.equals(exact, DatatypeConverterImpl._parseBase64Binary(expected)));
+            assertTrue(Arrays.equals(exact, DatatypeConverterImpl._parseBase64Binary(
+                    Base64.getMimeEncoder(8, new byte[]{'\n', ' '}).encodeToString(exact))));
+        }
+    }
+
+    public void testPrintNumbers() {
+        byte[] out = new byte[DatatypeConverterImpl.MAX_NUMBER_LENGTH + 1];
+        long[] longs = {0, 1, -1, 9, 10, -10, 123456789012L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long v : longs) {
+            int end = DatatypeConverterImpl._printLong(v, out, 1);
+            assertEquals(DatatypeConverterImpl._printLong(v), new String(out, 1, end - 1, StandardCharsets.US_ASCII));
+        }
+
+        double[] doubles = {0.0, -0.0, 1.0, -1.0, 0.1, 0.1 + 0.2, 12.34, -12.34, 0.001, 0.00099, 9999999.0,
+                9999999.5, 1e7, 1e-7, 123456.789, 2.5e-3, Math.PI, Double.MAX_VALUE, Double.MIN_VALUE,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (double v : doubles)
+            assertDouble(v, out);
+        float[] floats = {0f, -0f, 1f, 0.1f, 12.34f, -0.001f, 1234567.5f, 1e7f, 1e-9f, (float) Math.PI,
+                Float.MAX_VALUE, Float.MIN_VALUE, Float.NaN, Float.NEGATIVE_INFINITY};
+        for (float v : floats)
+            assertFloat(v, out);
+
+        Random r = new Random(0);
+        for (int i = 0; i < 100000; i++) {
+            assertDouble(Double.longBitsToDouble(r.nextLong()), out);
+            assertDouble(Math.round(r.nextDouble() * 1e6) / 100.0, out);
+            assertDouble(r.nextDouble() * Math.pow(10, r.nextInt(12) - 4), out);
+            assertFloat(Float.intBitsToFloat(r.nextInt()), out);
+            assertFloat(Math.round(r.nextDouble() * 1e6) / 100.0f, out);
+            assertFloat((float) (r.nextDouble() * Math.pow(10, r.nextInt(10) - 3)), out);
+        }
+    }
+
+    private static void assertDouble(double v, byte[] out) {
+        int len = DatatypeConverterImpl._printDouble(v, out, 0);
+        assertEquals(DatatypeConverterImpl._printDouble(v), new String(out, 0, len, StandardCharsets.US_ASCII));
+    }
+
+    private static void assertFloat(float v, byte[] out) {
+        int len = DatatypeConverterImpl._printFloat(v, out, 0);
+        assertEquals(DatatypeConverterImpl._printFloat(v), new String(out, 0, len, StandardCharsets.US_ASCII));
+    }
+
+    public void testParseBase64Quadruplets() {
+        if (!DatatypeConverterImpl.BULK_BASE64)
+            return;
+        char[] in = "QUJD REVG".toCharArray();
+        byte[] out = new byte[6];
+        assertEquals(4, DatatypeConverterImpl._parseBase64Quadruplets(in, 0, in.length, out, 0));
+        assertEquals("ABC", new String(out, 0, 3, StandardCharsets.US_ASCII));
+        assertEquals(0, DatatypeConverterImpl._parseBase64Quadruplets(in, 4, in.length, out, 3));
+        // stops when the output is full
+        assertEquals(0, DatatypeConverterImpl._parseBase64Quadruplets(in, 5, in.length, out, 4));
+        assertEquals(4, DatatypeConverterImpl._parseBase64Quadruplets(in, 5, in.length, out, 3));
+        assertEquals("ABCDEF", new String(out, StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime;
+
+import junit.framework.TestCase;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.XMLGregorianCalendar;
+import javax.xml.namespace.QName;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Map;
+import java.util.SimpleTimeZone;
+
+public class DateTimeConverterTest extends TestCase {
+
+    public void testParseDateTime() {
+        assertEquals(Instant.parse("2022-03-04T05:06:07.5Z"),
+                DateTimeConverter._parseInstant(" 2022-03-04T06:06:07.500+01:00\n"));
+        assertEquals(Instant.parse("2022-03-04T05:06:07Z"),
+                DateTimeConverter._parseInstant("2022-03-04T05:06:07"));
+        assertEquals(LocalDateTime.of(2022, 3, 5, 0, 0),
+                DateTimeConverter._parseLocalDateTime("2022-03-04T24:00:00"));
+        assertEquals(OffsetDateTime.of(-12345, 12, 31, 23, 59, 59, 123456789, ZoneOffset.ofHours(-14)),
+                DateTimeConverter._parseOffsetDateTime("-12345-12-31T23:59:59.1234567891-14:00"));
+        assertEquals(LocalDate.of(1, 1, 1), DateTimeConverter._parseLocalDate("0001-01-01Z"));
+        assertEquals(LocalTime.of(13, 20, 0, 1000), DateTimeConverter._parseLocalTime("13:20:00.000001"));
+
+        for (String bad : new String[]{"2022-3-04T05:06:07", "02022-03-04T05:06:07", "2022-13-04T05:06:07",
+                "2022-03-04T05:60:07", "2022-03-04T24:00:01", "2022-03-04T05:06:07.", "2022-03-04T05:06:07+15:00",
+                "2022-03-04T05:06:07Zjunk", ""}) {
+            try {
+                DateTimeConverter._parseInstant(bad);
+                fail(bad);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testParseDuration() {
+        assertEquals(Duration.ofSeconds(90061, 500000000), DateTimeConverter._parseDuration("P1DT1H1M1.5S"));
+        assertEquals(Duration.ofMinutes(-90), DateTimeConverter._parseDuration("-PT90M"));
+        assertEquals(Duration.ofDays(2), DateTimeConverter._parseDuration("P0Y0M2D"));
+
+        for (String bad : new String[]{"P", "PT", "P1H", "PT1D", "P1M", "P1.5D", "P1DT", "PT1S2M"}) {
+            try {
+                DateTimeConverter._parseDuration(bad);
+                fail(bad);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    public void testPrint() {
+        byte[] buf = new byte[DateTimeConverter.MAX_LENGTH];
+        assertEquals("2022-03-04T05:06:07.05Z",
+                print(buf, DateTimeConverter._printInstant(Instant.parse("2022-03-04T05:06:07.050Z"), buf, 0)));
+        assertEquals("-0044-03-15T12:00:00+05:30",
+                print(buf, DateTimeConverter._printOffsetDateTime(
+                        OffsetDateTime.of(-44, 3, 15, 12, 0, 0, 0, ZoneOffset.ofHoursMinutes(5, 30)), buf, 0)));
+        assertEquals("0987-06-05", print(buf, DateTimeConverter._printLocalDate(LocalDate.of(987, 6, 5), buf, 0)));
+        assertEquals("PT0S", print(buf, DateTimeConverter._printDuration(Duration.ZERO, buf, 0)));
+        assertEquals("P1D", print(buf, DateTimeConverter._printDuration(Duration.ofDays(1), buf, 0)));
+        assertEquals("-P1DT2H0.001S",
+                print(buf, DateTimeConverter._printDuration(Duration.ofSeconds(-93600, -1000000), buf, 0)));
+        // can't be negated as a long
+        assertEquals("-P106751991167300DT15H30M8S",
+                print(buf, DateTimeConverter._printDuration(Duration.ofSeconds(Long.MIN_VALUE), buf, 0)));
+        assertEquals("-P106751991167300DT15H30M7.999999999S",
+                print(buf, DateTimeConverter._printDuration(Duration.ofSeconds(Long.MIN_VALUE, 1), buf, 0)));
+    }
+
+    public void testPrintSubMinuteTimeZone() {
+        byte[] buf = new byte[DateTimeConverter.MAX_LENGTH];
+        GregorianCalendar cal = new GregorianCalendar(new SimpleTimeZone(-30000, "x"));
+        cal.clear();
+        cal.set(2022, Calendar.MARCH, 4, 5, 6, 7);
+        // the sign of the offset is kept, even though it rounds to zero minutes
+        assertEquals("2022-03-04T05:06:07-00:00", print(buf, DateTimeConverter._printDateTime(cal, buf, 0)));
+        cal.setTimeZone(new SimpleTimeZone(30000, "y"));
+        assertEquals("2022-03-04+00:00", print(buf, DateTimeConverter._printDate(cal, buf, 0)));
+        cal.setTimeZone(new SimpleTimeZone(0, "z"));
+        assertEquals("2022-03-04Z", print(buf, DateTimeConverter._printDate(cal, buf, 0)));
+    }
+
+    public void testCalendarMatchesDatatypeFactory() throws Exception {
+        DatatypeFactory df = DatatypeFactory.newInstance();
+        byte[] buf = new byte[64];
+        for (String s : new String[]{"2022-03-04T05:06:07", "2022-03-04T05:06:07.120Z", " 2022-03-04T05:06:07.5-05:30 ",
+                "-0044-03-15T12:00:00+14:00", "12345-01-01T00:00:00.000000000000000000001Z", "2024-02-29",
+                "2022-03-04+01:00", "05:06:07.999", "05:06:07Z", "2022", "2022-03", "--03", "---04", "--03-04Z",
+                "2022-03-04T24:00:00"}) {
+            XMLGregorianCalendar expected = df.newXMLGregorianCalendar(s.trim());
+            XMLGregorianCalendar actual = DateTimeConverter._parseXMLGregorianCalendar(s);
+            assertEquals(s, expected, actual);
+            assertEquals(s, expected.toXMLFormat(), actual.toXMLFormat());
+            assertEquals(s, expected.toXMLFormat(), print(buf, DateTimeConverter._printXMLGregorianCalendar(
+                    actual, XML_FORMATS.get(actual.getXMLSchemaType()), buf, 0)));
+
+            GregorianCalendar expectedCal = expected.toGregorianCalendar();
+            GregorianCalendar actualCal = DateTimeConverter._parseCalendar(s);
+            assertEquals(s, expectedCal.getTimeInMillis(), actualCal.getTimeInMillis());
+            assertEquals(s, expectedCal.getTimeZone().getID(), actualCal.getTimeZone().getID());
+            assertEquals(s, expectedCal.isSet(Calendar.MILLISECOND), actualCal.isSet(Calendar.MILLISECOND));
+        }
+
+        for (String bad : new String[]{"2022-02-29", "2022-03-04T05:06", "2022-03-04T"}) {
+            try {
+                DateTimeConverter._parseCalendar(bad);
+                fail(bad);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        GregorianCalendar cal = DateTimeConverter._parseCalendar("2022-03-04T05:06:07.5-05:30");
+        assertEquals("2022-03-04T05:06:07.500-05:30", print(buf, DateTimeConverter._printDateTime(cal, buf, 0)));
+        assertEquals("2022-03-04-05:30", print(buf, DateTimeConverter._printDate(cal, buf, 0)));
+    }
+
+    private static final Map<QName, String> XML_FORMATS = Map.of(
+            DatatypeConstants.DATETIME, "%Y-%M-%DT%h:%m:%s%z",
+            DatatypeConstants.DATE, "%Y-%M-%D%z",
+            DatatypeConstants.TIME, "%h:%m:%s%z",
+            DatatypeConstants.GMONTH, "--%M%z",
+            DatatypeConstants.GDAY, "---%D%z",
+            DatatypeConstants.GYEAR, "%Y%z",
+            DatatypeConstants.GYEARMONTH, "%Y-%M%z",
+            DatatypeConstants.GMONTHDAY, "--%M-%D%z");
+
+    private static String print(byte[] buf, int len) {
+        return new String(buf, 0, len, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.UnmarshallerImpl;
+import jakarta.activation.DataHandler;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Unmarshals base64Binary text with the incremental decoding enabled.
+ */
+public class Base64StreamingTest extends TestCase {
+
+    public void testDecode() throws Exception {
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) (i * 31);
+        String encoded = Base64.getMimeEncoder().encodeToString(data);
+        String xml = "<attachment><data>\n" + encoded + "\n</data><bytes>" + encoded + "</bytes></attachment>";
+
+        JAXBContext context = JAXBContext.newInstance(Attachment.class);
+        for (long threshold : new long[]{0, 100, data.length, Long.MAX_VALUE}) {
+            Unmarshaller u = context.createUnmarshaller();
+            u.setProperty(UnmarshallerImpl.BASE64_SPILL_THRESHOLD, threshold);
+            assertEquals(threshold, u.getProperty(UnmarshallerImpl.BASE64_SPILL_THRESHOLD));
+
+            Attachment a = (Attachment) u.unmarshal(new StringReader(xml));
+            assertTrue(Arrays.equals(data, read(a.getData())));
+            // spilled to a temporary file?
+            assertEquals(threshold < data.length, a.getData().getDataSource().getClass().getSimpleName().equals("FileDataSource"));
+            assertTrue(Arrays.equals(data, a.getBytes()));
+            close(a.getData());
+
+            a = (Attachment) u.unmarshal(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml)));
+            assertTrue(Arrays.equals(data, read(a.getData())));
+            assertTrue(Arrays.equals(data, a.getBytes()));
+            close(a.getData());
+        }
+    }
+
+    public void testSeveralValues() throws Exception {
+        String xml = "<pair><first>" + Base64.getEncoder().encodeToString("first!".getBytes(StandardCharsets.UTF_8))
+                + "</first><second>" + Base64.getEncoder().encodeToString("second!".getBytes(StandardCharsets.UTF_8))
+                + "</second></pair>";
+        Unmarshaller u = JAXBContext.newInstance(Pair.class).createUnmarshaller();
+        u.setProperty(UnmarshallerImpl.BASE64_SPILL_THRESHOLD, 1000L);
+
+        Pair p = (Pair) u.unmarshal(new StringReader(xml));
+        assertEquals("first!", new String(read(p.getFirst()), StandardCharsets.UTF_8));
+        assertEquals("second!", new String(read(p.getSecond()), StandardCharsets.UTF_8));
+
+        // the next document doesn't change them either
+        u.unmarshal(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml.replace("first", "other"))));
+        assertEquals("first!", new String(read(p.getFirst()), StandardCharsets.UTF_8));
+    }
+
+    public void testLargeValueInMemory() throws Exception {
+        byte[] data = new byte[5000];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) i;
+        String xml = "<pair><first>" + Base64.getEncoder().encodeToString(data)
+                + "</first><second>AQID</second></pair>";
+        Unmarshaller u = JAXBContext.newInstance(Pair.class).createUnmarshaller();
+        u.setProperty(UnmarshallerImpl.BASE64_SPILL_THRESHOLD, 100000L);
+
+        // the buffer that grew for the first value is not reused for the second one
+        Pair p = (Pair) u.unmarshal(new StringReader(xml));
+        assertTrue(Arrays.equals(data, read(p.getFirst())));
+        assertTrue(Arrays.equals(new byte[]{1, 2, 3}, read(p.getSecond())));
+    }
+
+    /**
+     * Deletes the temporary file, if any, and checks that it is gone.
+     */
+    private static void close(DataHandler dh) throws Exception {
+        if (dh.getDataSource() instanceof Closeable) {
+            ((Closeable) dh.getDataSource()).close();
+            try {
+                dh.getInputStream().close();
+                fail();
+            } catch (NoSuchFileException e) {
+                // expected
+            }
+        }
+    }
+
+    private static byte[] read(DataHandler dh) throws Exception {
+        try (InputStream in = dh.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    @XmlRootElement(name = "attachment")
+    public static class Attachment {
+        private DataHandler data;
+        private byte[] bytes;
+
+        public DataHandler getData() {
+            return data;
+        }
+
+        public void setData(DataHandler data) {
+            this.data = data;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public void setBytes(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    @XmlRootElement(name = "pair")
+    public static class Pair {
+        private DataHandler first;
+        private DataHandler second;
+
+        public DataHandler getFirst() {
+            return first;
+        }
+
+        public void setFirst(DataHandler first) {
+            this.first = first;
+        }
+
+        public DataHandler getSecond() {
+            return second;
+        }
+
+        public void setSecond(DataHandler second) {
+            this.second = second;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.UnmarshallerImpl;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.UnmarshalException;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+import org.xml.sax.XMLReader;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unmarshals many small documents at once.
+ */
+public class BatchUnmarshalTest extends TestCase {
+
+    private JAXBContextImpl context;
+    private UnmarshallerImpl u;
+
+    @Override
+    protected void setUp() throws Exception {
+        context = (JAXBContextImpl) JAXBContext.newInstance(Event.class);
+        u = (UnmarshallerImpl) context.createUnmarshaller();
+    }
+
+    public void testBatch() throws Exception {
+        XMLReader reader = context.xmlReaderPool.take();
+        context.xmlReaderPool.recycle(reader);
+
+        List<Object> docs = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            docs.add(bytes("<event><name>e" + i + "</name></event>"));
+        docs.add(ByteBuffer.wrap(bytes("<event><name>buffer</name></event>")));
+        docs.add(ByteBuffer.wrap("<?xml version='1.0' encoding='UTF-16'?><event><name>é</name></event>".getBytes(StandardCharsets.UTF_16)));
+
+        List<Object> result = u.unmarshalAll(docs);
+        assertEquals(12, result.size());
+        for (int i = 0; i < 10; i++)
+            assertEquals("e" + i, ((Event) result.get(i)).getName());
+        assertEquals("buffer", ((Event) result.get(10)).getName());
+        assertEquals("é", ((Event) result.get(11)).getName());
+
+        // the same parser went back to the pool
+        assertSame(reader, context.xmlReaderPool.take());
+    }
+
+    public void testErrors() throws Exception {
+        List<byte[]> docs = Arrays.asList(
+                bytes("<event><name>a</name></event>"),
+                bytes("<event><name>"),
+                bytes("<event><name>c</name></event>"),
+                bytes("<event><name>text of a broken document"),
+                bytes("<event><name>e</name></event>"));
+
+        try {
+            u.unmarshalAll(docs);
+            fail();
+        } catch (UnmarshalException e) {
+            // expected
+        }
+
+        List<Integer> failed = new ArrayList<>();
+        List<Object> result = u.unmarshalAll(docs, (index, e) -> failed.add(index));
+        assertEquals(Arrays.asList(1, 3), failed);
+        assertEquals(5, result.size());
+        assertEquals("a", ((Event) result.get(0)).getName());
+        assertNull(result.get(1));
+        assertEquals("c", ((Event) result.get(2)).getName());
+        assertNull(result.get(3));
+        // nothing is left over from the broken document
+        assertEquals("e", ((Event) result.get(4)).getName());
+
+        // the unmarshaller is still usable
+        assertEquals("d", ((Event) u.unmarshal(ByteBuffer.wrap(bytes("<event><name>d</name></event>")))).getName());
+    }
+
+    private static byte[] bytes(String xml) {
+        return xml.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @XmlRootElement(name = "event")
+    public static class Event {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import jakarta.xml.bind.Binder;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.PropertyException;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlSeeAlso;
+import jakarta.xml.bind.annotation.XmlType;
+import junit.framework.TestCase;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Only re-marshals the beans that have changed in {@link Binder#updateXML(Object)}.
+ */
+public class BinderIncrementalTest extends TestCase {
+
+    private static final String XML = "<order><id>1</id>"
+            + "<line><product>a</product><quantity>1</quantity></line>"
+            + "<line><product>b</product><quantity>2</quantity></line>"
+            + "</order>";
+
+    private Binder<Node> binder;
+    private Document doc;
+
+    @Override
+    protected void setUp() throws Exception {
+        binder = JAXBContext.newInstance(Order.class).createBinder();
+        doc = parse(XML);
+    }
+
+    private static Document parse(String xml) throws Exception {
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        return dbf.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    public void testProperty() throws Exception {
+        assertEquals(false, binder.getProperty(BinderImpl.INCREMENTAL_UPDATE));
+        binder.setProperty(BinderImpl.INCREMENTAL_UPDATE, true);
+        assertEquals(true, binder.getProperty(BinderImpl.INCREMENTAL_UPDATE));
+        try {
+            binder.setProperty(BinderImpl.INCREMENTAL_UPDATE, "true");
+            fail();
+        } catch (PropertyException e) {
+            // expected
+        }
+    }
+
+    public void testUpdateChangedChild() throws Exception {
+        binder.setProperty(BinderImpl.INCREMENTAL_UPDATE, true);
+        Order order = (Order) binder.unmarshal(doc.getDocumentElement());
+        Element root = doc.getDocumentElement();
+        Node first = binder.getXMLNode(order.getLines().get(0));
+        Node second = binder.getXMLNode(order.getLines().get(1));
+
+        // nothing has changed
+        assertSame(root, binder.updateXML(order));
+        assertSame(first, binder.getXMLNode(order.getLines().get(0)));
+
+        order.getLines().get(1).setQuantity(5);
+        assertSame(root, binder.updateXML(order));
+        assertSame(first, binder.getXMLNode(order.getLines().get(0)));
+        Node updated = binder.getXMLNode(order.getLines().get(1));
+        assertNotSame(second, updated);
+        assertSame(root, updated.getParentNode());
+        assertEquals("5", ((Element) updated).getElementsByTagName("quantity").item(0).getTextContent());
+        // the replaced element is forgotten
+        assertNull(binder.getJAXBNode(second));
+        assertSame(order.getLines().get(1), binder.getJAXBNode(updated));
+
+        // changing the parent re-marshals it
+        order.setId(2);
+        Node newRoot = binder.updateXML(order);
+        assertNotSame(root, newRoot);
+        assertSame(doc.getDocumentElement(), newRoot);
+        assertEquals("2", doc.getElementsByTagName("id").item(0).getTextContent());
+        assertNull(binder.getJAXBNode(first));
+
+        // and so does adding a child
+        Line line = new Line();
+        line.setProduct("c");
+        order.getLines().add(line);
+        Node last = binder.getXMLNode(order.getLines().get(0));
+        binder.updateXML(order);
+        assertEquals(3, doc.getElementsByTagName("line").getLength());
+        assertNotSame(last, binder.getXMLNode(order.getLines().get(0)));
+        assertSame(order, binder.getJAXBNode(doc.getDocumentElement()));
+    }
+
+    public void testSameHashCode() throws Exception {
+        binder.setProperty(BinderImpl.INCREMENTAL_UPDATE, true);
+        doc = parse("<order><id>1</id><line><product>Aa</product><quantity>1</quantity></line></order>");
+        Order order = (Order) binder.unmarshal(doc.getDocumentElement());
+
+        // "Aa" and "BB" have the same hash code
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        order.getLines().get(0).setProduct("BB");
+        binder.updateXML(order);
+        assertEquals("BB", doc.getElementsByTagName("product").item(0).getTextContent());
+    }
+
+    public void testDeclaredProperty() throws Exception {
+        binder = JAXBContext.newInstance(Holder.class).createBinder();
+        binder.setProperty(BinderImpl.INCREMENTAL_UPDATE, true);
+        doc = parse("<holder xmlns:xsi='http://www.w3.org/2001/XMLSchema-instance'>"
+                + "<item><name>a</name></item>"
+                + "<base xsi:type='sub'><name>b</name><extra>1</extra></base>"
+                + "<bases xsi:type='sub'><name>c</name><extra>2</extra></bases>"
+                + "</holder>");
+        Holder h = (Holder) binder.unmarshal(doc.getDocumentElement());
+        assertTrue(h.getBase() instanceof Sub);
+        Element root = doc.getDocumentElement();
+
+        // each child is written with the name and the type of the property that holds it
+        h.getItem().setName("x");
+        ((Sub) h.getBase()).setExtra(3);
+        ((Sub) h.getBases().get(0)).setExtra(4);
+        assertSame(root, binder.updateXML(h));
+        assertEquals(0, doc.getElementsByTagName("thing").getLength());
+        assertEquals("x", ((Element) binder.getXMLNode(h.getItem())).getTextContent());
+
+        Holder read = (Holder) JAXBContext.newInstance(Holder.class).createUnmarshaller().unmarshal(doc);
+        assertEquals("x", read.getItem().getName());
+        assertTrue(read.getBase() instanceof Sub);
+        assertEquals(3, ((Sub) read.getBase()).getExtra());
+        assertTrue(read.getBases().get(0) instanceof Sub);
+        assertEquals(4, ((Sub) read.getBases().get(0)).getExtra());
+    }
+
+    public void testDefault() throws Exception {
+        Order order = (Order) binder.unmarshal(doc.getDocumentElement());
+        Node first = binder.getXMLNode(order.getLines().get(0));
+        binder.updateXML(order);
+        // the whole tree is re-marshalled
+        assertNotSame(first, binder.getXMLNode(order.getLines().get(0)));
+    }
+
+    @XmlRootElement(name = "order")
+    public static class Order {
+        private int id;
+        private List<Line> lines = new ArrayList<>();
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        @XmlElement(name = "line")
+        public List<Line> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<Line> lines) {
+            this.lines = lines;
+        }
+    }
+
+    public static class Line {
+        private String product;
+        private int quantity;
+
+        public String getProduct() {
+            return product;
+        }
+
+        public void setProduct(String product) {
+            this.product = product;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+
+    @XmlRootElement(name = "holder")
+    @XmlSeeAlso(Sub.class)
+    public static class Holder {
+        private Thing item;
+        private Base base;
+        private List<Base> bases = new ArrayList<>();
+
+        public Thing getItem() {
+            return item;
+        }
+
+        public void setItem(Thing item) {
+            this.item = item;
+        }
+
+        public Base getBase() {
+            return base;
+        }
+
+        public void setBase(Base base) {
+            this.base = base;
+        }
+
+        public List<Base> getBases() {
+            return bases;
+        }
+
+        public void setBases(List<Base> bases) {
+            this.bases = bases;
+        }
+    }
+
+    @XmlRootElement(name = "thing")
+    public static class Thing {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    public static class Base {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    @XmlType(name = "sub")
+    public static class Sub extends Base {
+        private int extra;
+
+        public int getExtra() {
+            return extra;
+        }
+
+        public void setExtra(int extra) {
+            this.extra = extra;
+        }
+    }
+}
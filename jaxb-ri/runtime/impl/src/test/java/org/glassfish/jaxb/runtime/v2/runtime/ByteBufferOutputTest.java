@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.v2.runtime.output.ByteBufferOutputStream;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.ByteBufferPool;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.PropertyException;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Marshals into pooled {@link ByteBuffer}s and to channels.
+ */
+public class ByteBufferOutputTest extends TestCase {
+
+    private MarshallerImpl m;
+    private Doc doc;
+    private byte[] expected;
+
+    @Override
+    protected void setUp() throws Exception {
+        m = (MarshallerImpl) JAXBContext.newInstance(Doc.class).createMarshaller();
+        doc = new Doc();
+        for (int i = 0; i < 500; i++)
+            doc.getLines().add("line " + i + " é€");
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        m.marshal(doc, os);
+        expected = os.toByteArray();
+    }
+
+    public void testSegments() throws Exception {
+        ByteBufferPool pool = new ByteBufferPool(100, true);
+        ByteBufferOutputStream out = new ByteBufferOutputStream(pool);
+        m.marshal(doc, out);
+
+        assertEquals(expected.length, out.size());
+        ByteBuffer[] buffers = out.getBuffers();
+        assertEquals((expected.length + 99) / 100, buffers.length);
+        ByteBuffer all = ByteBuffer.allocate(expected.length);
+        for (ByteBuffer b : buffers) {
+            assertTrue(b.isDirect());
+            all.put(b);
+        }
+        assertTrue(Arrays.equals(expected, all.array()));
+
+        // the segments go back to the pool, cleared but with their old content
+        out.release();
+        assertEquals(0, out.size());
+        ByteBuffer reused = pool.take();
+        assertEquals(0, reused.position());
+        assertEquals(100, reused.remaining());
+        assertTrue(reused.get(0) != 0);
+    }
+
+    public void testChannels() throws Exception {
+        // not a gathering channel
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        m.marshal(doc, Channels.newChannel(os));
+        assertTrue(Arrays.equals(expected, os.toByteArray()));
+
+        // gathering channel, with a pool of the marshaller
+        m.setProperty(MarshallerImpl.BYTE_BUFFER_POOL, new ByteBufferPool(64, false));
+        Path file = Files.createTempFile("jaxb", ".xml");
+        try {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                m.marshal(doc, ch);
+            }
+            assertTrue(Arrays.equals(expected, Files.readAllBytes(file)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    public void testProperty() throws Exception {
+        assertNull(m.getProperty(MarshallerImpl.BYTE_BUFFER_POOL));
+        try {
+            m.setProperty(MarshallerImpl.BYTE_BUFFER_POOL, "x");
+            fail();
+        } catch (PropertyException e) {
+            // expected
+        }
+    }
+
+    @XmlRootElement(name = "doc")
+    public static class Doc {
+        private List<String> lines = new ArrayList<>();
+
+        @XmlElement(name = "line")
+        public List<String> getLines() {
+            return lines;
+        }
+
+        public void setLines(List<String> lines) {
+            this.lines = lines;
+        }
+    }
+}
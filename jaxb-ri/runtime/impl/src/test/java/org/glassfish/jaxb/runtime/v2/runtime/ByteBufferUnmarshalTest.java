@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.UnmarshallerImpl;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.UnmarshalException;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unmarshals from {@link ByteBuffer}s and memory-mapped files.
+ */
+public class ByteBufferUnmarshalTest extends TestCase {
+
+    private static final String TEXT = "a<é€😀b";
+
+    private UnmarshallerImpl u;
+
+    @Override
+    protected void setUp() throws Exception {
+        u = (UnmarshallerImpl) JAXBContext.newInstance(Note.class).createUnmarshaller();
+    }
+
+    public void testByteBuffer() throws Exception {
+        byte[] doc = ("xx<note><text>a&lt;é€😀b</text></note>").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(doc);
+        buf.position(2);
+        assertEquals(TEXT, ((Note) u.unmarshal(buf)).getText());
+        assertEquals(2, buf.position());
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(doc.length - 2);
+        direct.put(doc, 2, doc.length - 2).flip();
+        assertEquals(TEXT, u.unmarshal(direct, Note.class).getValue().getText());
+
+        // byte order mark
+        byte[] bom = concat(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, direct);
+        assertEquals(TEXT, ((Note) u.unmarshal(ByteBuffer.wrap(bom))).getText());
+
+        // other encodings go to the parser
+        assertEquals("aé", ((Note) u.unmarshal(encode("ISO-8859-1", "aé"))).getText());
+        for (String space : new String[]{"\n", "\t", "\r\n"}) {
+            String decl = "<?xml" + space + "version=\"1.0\" encoding=\"ISO-8859-1\"?><note><text>aé</text></note>";
+            ByteBuffer latin1 = ByteBuffer.wrap(decl.getBytes(StandardCharsets.ISO_8859_1));
+            assertEquals("aé", ((Note) u.unmarshal(latin1)).getText());
+        }
+        assertEquals(TEXT, ((Note) u.unmarshal(encode("UTF-16", "a&lt;é€😀b"))).getText());
+        assertEquals(TEXT, ((Note) u.unmarshal(encode("UTF-8", "a&lt;é€😀b"))).getText());
+
+        try {
+            u.unmarshal(ByteBuffer.wrap(new byte[]{'<', 'a', '>', (byte) 0xC3, '<', '/', 'a', '>'}));
+            fail();
+        } catch (UnmarshalException e) {
+            // malformed UTF-8
+        }
+    }
+
+    public void testPath() throws Exception {
+        Path file = Files.createTempFile("jaxb", ".xml");
+        try {
+            Files.writeString(file, "<?xml version='1.0'?>\n<note><text>a&lt;é€😀b</text></note>");
+            assertEquals(TEXT, ((Note) u.unmarshal(file)).getText());
+            assertEquals(TEXT, u.unmarshal(file, Note.class).getValue().getText());
+
+            Files.write(file, encode("ISO-8859-1", "aé").array());
+            assertEquals("aé", ((Note) u.unmarshal(file)).getText());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static ByteBuffer encode(String encoding, String text) {
+        String doc = "<?xml version=\"1.0\" encoding='" + encoding + "' ?><note><text>" + text + "</text></note>";
+        return ByteBuffer.wrap(doc.getBytes(Charset.forName(encoding)));
+    }
+
+    private static byte[] concat(byte[] a, ByteBuffer b) {
+        byte[] r = new byte[a.length + b.remaining()];
+        System.arraycopy(a, 0, r, 0, a.length);
+        b.duplicate().get(r, a.length, b.remaining());
+        return r;
+    }
+
+    @XmlRootElement(name = "note")
+    public static class Note {
+        private String text;
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+    }
+}
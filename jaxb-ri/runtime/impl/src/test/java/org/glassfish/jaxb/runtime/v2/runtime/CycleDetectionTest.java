@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.CycleRecoverable;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.PropertyException;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlID;
+import jakarta.xml.bind.annotation.XmlIDREF;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlSeeAlso;
+import junit.framework.TestCase;
+
+import java.io.StringWriter;
+
+/**
+ * Only checks for cycles when the model can have them, and from the configured depth.
+ */
+public class CycleDetectionTest extends TestCase {
+
+    public void testModel() throws Exception {
+        assertFalse(context(Tree.class).mayHaveCycles());
+        assertFalse(context(Linked.class).mayHaveCycles());
+        assertTrue(context(Node.class).mayHaveCycles());
+        assertTrue(context(Holder.class).mayHaveCycles());
+        assertTrue(context(Anything.class).mayHaveCycles());
+    }
+
+    public void testAcyclicModel() throws Exception {
+        Tree tree = new Tree();
+        tree.setLeaf(new Leaf());
+        tree.getLeaf().setValue("v");
+        assertEquals("<tree><leaf><value>v</value></leaf></tree>", marshal(context(Tree.class).createMarshaller(), tree));
+    }
+
+    public void testCycleCheckDepth() throws Exception {
+        Node a = new Node("a");
+        Node b = new Node("b");
+        a.setNext(b);
+        b.setNext(a);
+
+        Marshaller m = context(Node.class).createMarshaller();
+        assertEquals(0, m.getProperty(MarshallerImpl.CYCLE_CHECK_DEPTH));
+        assertEquals("<node name=\"a\"><next name=\"b\"><next name=\"a-copy\"/></next></node>", marshal(m, a));
+
+        // the cycle is detected once it repeats past the depth
+        m.setProperty(MarshallerImpl.CYCLE_CHECK_DEPTH, 3);
+        assertEquals(3, m.getProperty(MarshallerImpl.CYCLE_CHECK_DEPTH));
+        assertEquals("<node name=\"a\"><next name=\"b\"><next name=\"a\"><next name=\"b\">"
+                + "<next name=\"a-copy\"/></next></next></next></node>", marshal(m, a));
+
+        try {
+            m.setProperty(MarshallerImpl.CYCLE_CHECK_DEPTH, -1);
+            fail();
+        } catch (PropertyException e) {
+            // expected
+        }
+    }
+
+    private static JAXBContextImpl context(Class<?> c) throws Exception {
+        return (JAXBContextImpl) JAXBContext.newInstance(c);
+    }
+
+    private static String marshal(Marshaller m, Object o) throws Exception {
+        m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        StringWriter w = new StringWriter();
+        m.marshal(o, w);
+        return w.toString();
+    }
+
+    @XmlRootElement
+    public static class Tree {
+        private Leaf leaf;
+
+        public Leaf getLeaf() {
+            return leaf;
+        }
+
+        public void setLeaf(Leaf leaf) {
+            this.leaf = leaf;
+        }
+    }
+
+    public static class Leaf {
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * Refers to other instances by IDREF only.
+     */
+    @XmlRootElement
+    public static class Linked {
+        private String id;
+        private Linked other;
+
+        @XmlID
+        @XmlAttribute
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        @XmlIDREF
+        public Linked getOther() {
+            return other;
+        }
+
+        public void setOther(Linked other) {
+            this.other = other;
+        }
+    }
+
+    @XmlRootElement
+    public static class Node implements CycleRecoverable {
+        private String name;
+        private Node next;
+
+        public Node() {
+        }
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        @XmlAttribute
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Node getNext() {
+            return next;
+        }
+
+        public void setNext(Node next) {
+            this.next = next;
+        }
+
+        @Override
+        public Object onCycleDetected(Context context) {
+            return new Node(name + "-copy");
+        }
+    }
+
+    /**
+     * Only has a cycle through a subclass of {@link Base}.
+     */
+    @XmlRootElement
+    @XmlSeeAlso(Derived.class)
+    public static class Holder {
+        private Base base;
+
+        public Base getBase() {
+            return base;
+        }
+
+        public void setBase(Base base) {
+            this.base = base;
+        }
+    }
+
+    public static class Base {
+    }
+
+    public static class Derived extends Base {
+        private Holder holder;
+
+        public Holder getHolder() {
+            return holder;
+        }
+
+        public void setHolder(Holder holder) {
+            this.holder = holder;
+        }
+    }
+
+    @XmlRootElement
+    public static class Anything {
+        private Object value;
+
+        @XmlElement
+        public Object getValue() {
+            return value;
+        }
+
+        public void setValue(Object value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.DeferredContent;
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.DeferredPropertyHolder;
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.UnmarshallerImpl;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.PropertyException;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlTransient;
+import junit.framework.TestCase;
+
+import javax.xml.namespace.QName;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Defers properties with {@link UnmarshallerImpl#DEFERRED_PROPERTIES}.
+ */
+public class DeferredContentTest extends TestCase {
+
+    private static final String XML = "<message xmlns:p='urn:p' id='m'>"
+            + "<attachment name='a'><data>AAAA</data><type>p:text</type></attachment>"
+            + "<subject>s</subject>"
+            + "<attachment xmlns:p='urn:q' name='b'><type>p:image</type></attachment>"
+            + "<audit><entry>1</entry><entry>2</entry></audit>"
+            + "</message>";
+
+    public void testDeferred() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Message.class).createUnmarshaller();
+        u.setProperty(UnmarshallerImpl.DEFERRED_PROPERTIES, Map.of(
+                Message.class, Set.of("attachments", "audit"),
+                Attachment.class, Set.of("type")));     // ignored as Attachment is not a DeferredPropertyHolder
+        Message m = (Message) u.unmarshal(new StringReader(XML));
+
+        assertEquals("m", m.getId());
+        assertEquals("s", m.getSubject());
+        assertEquals(Set.of("attachments", "audit"), m.deferred.keySet());
+        DeferredContent attachments = m.deferred.get("attachments");
+        assertFalse(attachments.isLoaded());
+        assertTrue(m.attachments.isEmpty());
+
+        assertEquals(2, m.getAttachments().size());
+        assertTrue(attachments.isLoaded());
+        Attachment a = m.getAttachments().get(0);
+        assertEquals("a", a.getName());
+        assertEquals("AAAA", a.getData());
+        assertEquals(new QName("urn:p", "text"), a.getType());
+        assertEquals(new QName("urn:q", "image"), m.getAttachments().get(1).getType());
+
+        assertNull(m.audit);
+        assertEquals(List.of("1", "2"), m.getAudit().getEntries());
+    }
+
+    public void testReused() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Message.class).createUnmarshaller();
+        u.setProperty(UnmarshallerImpl.DEFERRED_PROPERTIES, Map.of(Message.class, Set.of("attachments")));
+        Message first = (Message) u.unmarshal(new StringReader(XML));
+        assertEquals(2, first.getAttachments().size());
+
+        // the content of the first document is not carried over
+        Message second = (Message) u.unmarshal(new StringReader(XML));
+        assertNotSame(first.deferred.get("attachments"), second.deferred.get("attachments"));
+        assertFalse(second.deferred.get("attachments").isLoaded());
+        assertEquals(2, second.getAttachments().size());
+        assertEquals(2, first.getAttachments().size());
+    }
+
+    public void testConfiguration() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Message.class).createUnmarshaller();
+        u.setProperty(UnmarshallerImpl.DEFERRED_PROPERTIES, Map.of(Message.class, Set.of("attachments")));
+        List<Object> loaded = new ArrayList<>();
+        u.setListener(new Unmarshaller.Listener() {
+            @Override
+            public void afterUnmarshal(Object target, Object parent) {
+                loaded.add(target);
+            }
+        });
+        Message m = (Message) u.unmarshal(new StringReader(XML));
+        assertEquals(List.of(m.audit, m), loaded);
+
+        // the configuration is the one the document was unmarshalled with
+        u.setListener(null);
+        loaded.clear();
+        List<Attachment> attachments = m.getAttachments();
+        assertEquals(List.of(attachments.get(0), attachments.get(1)), loaded);
+    }
+
+    public void testPropertyValue() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Message.class).createUnmarshaller();
+        Map<Class<?>, Set<String>> deferred = new HashMap<>(Map.of(Message.class, Set.of("attachments")));
+        u.setProperty(UnmarshallerImpl.DEFERRED_PROPERTIES, deferred);
+        // the value is copied
+        deferred.clear();
+        assertEquals(Map.of(Message.class, Set.of("attachments")), u.getProperty(UnmarshallerImpl.DEFERRED_PROPERTIES));
+
+        try {
+            u.setProperty(UnmarshallerImpl.DEFERRED_PROPERTIES, Map.of(Message.class, List.of("attachments")));
+            fail();
+        } catch (PropertyException e) {
+            // expected
+        }
+        try {
+            u.setProperty(UnmarshallerImpl.PROJECTION, Map.of("message", Set.of("id")));
+            fail();
+        } catch (PropertyException e) {
+            // expected
+        }
+    }
+
+    public void testSiblings() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Folder.class).createUnmarshaller();
+        u.setProperty(UnmarshallerImpl.DEFERRED_PROPERTIES, Map.of(Message.class, Set.of("attachments")));
+        Folder f = (Folder) u.unmarshal(new StringReader("<folder>"
+                + "<message id='1'><attachment name='a'/></message>"
+                + "<message id='2'><attachment name='b'/><attachment name='c'/></message>"
+                + "</folder>"));
+
+        assertEquals(2, f.getMessages().size());
+        Message first = f.getMessages().get(0);
+        Message second = f.getMessages().get(1);
+        assertNotSame(first.deferred.get("attachments"), second.deferred.get("attachments"));
+        assertEquals(1, first.getAttachments().size());
+        assertEquals("a", first.getAttachments().get(0).getName());
+        assertEquals(2, second.getAttachments().size());
+        assertEquals("c", second.getAttachments().get(1).getName());
+    }
+
+    @XmlRootElement(name = "folder")
+    public static class Folder {
+        private List<Message> messages = new ArrayList<>();
+
+        @XmlElement(name = "message")
+        public List<Message> getMessages() {
+            return messages;
+        }
+
+        public void setMessages(List<Message> messages) {
+            this.messages = messages;
+        }
+    }
+
+    @XmlRootElement(name = "message")
+    public static class Message implements DeferredPropertyHolder {
+        private String id;
+        private String subject;
+        private List<Attachment> attachments = new ArrayList<>();
+        private Audit audit;
+        private final Map<String, DeferredContent> deferred = new HashMap<>();
+
+        @Override
+        public void setDeferredContent(String property, DeferredContent content) {
+            deferred.put(property, content);
+        }
+
+        private void load(String property) {
+            DeferredContent d = deferred.get(property);
+            if (d != null) {
+                try {
+                    d.load();
+                } catch (JAXBException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+
+        @XmlAttribute
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public void setSubject(String subject) {
+            this.subject = subject;
+        }
+
+        @XmlElement(name = "attachment")
+        public List<Attachment> getAttachments() {
+            load("attachments");
+            return attachments;
+        }
+
+        public void setAttachments(List<Attachment> attachments) {
+            this.attachments = attachments;
+        }
+
+        public Audit getAudit() {
+            load("audit");
+            return audit;
+        }
+
+        public void setAudit(Audit audit) {
+            this.audit = audit;
+        }
+    }
+
+    public static class Attachment {
+        private String name;
+        private String data;
+        private QName type;
+
+        @XmlAttribute
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getData() {
+            return data;
+        }
+
+        public void setData(String data) {
+            this.data = data;
+        }
+
+        public QName getType() {
+            return type;
+        }
+
+        public void setType(QName type) {
+            this.type = type;
+        }
+    }
+
+    public static class Audit {
+        private List<String> entries = new ArrayList<>();
+
+        @XmlElement(name = "entry")
+        public List<String> getEntries() {
+            return entries;
+        }
+
+        public void setEntries(List<String> entries) {
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.annotation.XmlAnyElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+import org.w3c.dom.Element;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the DOM of wildcard content.
+ */
+public class DomLoaderTest extends TestCase {
+
+    private static final String XML = "<message xmlns:a='urn:a'>"
+            + "<a:ext id='1' a:flag='true'><a:item>x</a:item>text<b xmlns='urn:b'>y</b></a:ext>"
+            + "<plain/>"
+            + "</message>";
+
+    public void testAnyElement() throws Exception {
+        Message m = (Message) JAXBContext.newInstance(Message.class).createUnmarshaller().unmarshal(new StringReader(XML));
+        assertEquals(2, m.getExtensions().size());
+
+        Element ext = m.getExtensions().get(0);
+        assertEquals("urn:a", ext.getNamespaceURI());
+        assertEquals("ext", ext.getLocalName());
+        assertEquals("1", ext.getAttribute("id"));
+        assertEquals("true", ext.getAttributeNS("urn:a", "flag"));
+        // in-scope bindings are declared on the root of the fragment
+        assertEquals("urn:a", ext.lookupNamespaceURI("a"));
+        assertEquals("xtexty", ext.getTextContent());
+        Element b = (Element) ext.getLastChild();
+        assertEquals("urn:b", b.getNamespaceURI());
+        assertNotSame(ext.getOwnerDocument(), m.getExtensions().get(1).getOwnerDocument());
+
+        Element plain = m.getExtensions().get(1);
+        assertNull(plain.getNamespaceURI());
+        assertEquals("plain", plain.getLocalName());
+    }
+
+    public void testConcurrentDom() throws Exception {
+        JAXBContextImpl context = (JAXBContextImpl) JAXBContext.newInstance(Message.class);
+        assertSame(context.getDocumentBuilderFactory(), context.getDocumentBuilderFactory());
+        // the factory isn't shared with other contexts
+        JAXBContextImpl other = (JAXBContextImpl) JAXBContext.newInstance(Message.class);
+        assertNotSame(context.getDocumentBuilderFactory(), other.getDocumentBuilderFactory());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++)
+                        assertNotNull(context.createDom().createElement("e"));
+                    return null;
+                }));
+            }
+            for (Future<?> f : results)
+                f.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @XmlRootElement(name = "message")
+    public static class Message {
+        private List<Element> extensions = new ArrayList<>();
+
+        @XmlAnyElement
+        public List<Element> getExtensions() {
+            return extensions;
+        }
+
+        public void setExtensions(List<Element> extensions) {
+            this.extensions = extensions;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.stream.IntStream;
+
+/**
+ * Writes items one by one into a root element.
+ */
+public class ElementStreamWriterTest extends TestCase {
+
+    private static final QName FEED = new QName("urn:feed", "feed");
+
+    private JAXBContext context;
+
+    @Override
+    protected void setUp() throws Exception {
+        context = JAXBContext.newInstance(Feed.class, Entry.class);
+    }
+
+    public void testWrite() throws Exception {
+        MarshallerImpl m = createMarshaller();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ElementStreamWriter w = m.openStream(FEED, os)) {
+            w.write(new Entry("a", "x<y"));
+            w.writeAll(Arrays.asList(new Entry("b", "z"), new Entry("c", null)).iterator());
+            w.write(new JAXBElement<>(new QName("urn:feed", "other"), Entry.class, new Entry("d", null)));
+        }
+        // the bindings are declared once, on the root element
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><feed xmlns=\"urn:feed\">"
+                + "<entry name=\"a\"><note>x&lt;y</note></entry><entry name=\"b\"><note>z</note></entry>"
+                + "<entry name=\"c\"/><other name=\"d\"/></feed>", toString(os));
+        // <other> isn't an entry of the feed
+        assertEquals(Arrays.asList("a", "b", "c"), names(unmarshal(os)));
+
+        // the marshaller is usable again
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        m.marshal(new Entry("e", null), single);
+        assertTrue(toString(single), toString(single).endsWith("<entry xmlns=\"urn:feed\" name=\"e\"/>"));
+    }
+
+    public void testSameAsWrapper() throws Exception {
+        Feed feed = new Feed();
+        for (int i = 0; i < 100; i++)
+            feed.getEntries().add(new Entry("n" + i, i % 2 == 0 ? null : "note & " + i));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        createMarshaller().marshal(feed, expected);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ElementStreamWriter w = createMarshaller().openStream(FEED, os)) {
+            w.writeAll(feed.getEntries().stream());
+        }
+        assertEquals(toString(expected), toString(os));
+    }
+
+    public void testPublisher() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ElementStreamWriter w = createMarshaller().openStream(FEED, os);
+             SubmissionPublisher<Entry> publisher = new SubmissionPublisher<>()) {
+            CompletableFuture<Void> done = w.writeAll(publisher);
+            IntStream.range(0, 500).forEach(i -> publisher.submit(new Entry("n" + i, null)));
+            publisher.close();
+            done.get();
+        }
+        List<String> names = names(unmarshal(os));
+        assertEquals(500, names.size());
+        for (int i = 0; i < 500; i++)
+            assertEquals("n" + i, names.get(i));
+    }
+
+    public void testClosed() throws Exception {
+        ElementStreamWriter w = createMarshaller().openStream(FEED, new ByteArrayOutputStream());
+        w.close();
+        // closing twice is harmless
+        w.close();
+        try {
+            w.write(new Entry("a", null));
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private MarshallerImpl createMarshaller() throws Exception {
+        return (MarshallerImpl) context.createMarshaller();
+    }
+
+    private Feed unmarshal(ByteArrayOutputStream os) throws Exception {
+        Unmarshaller u = context.createUnmarshaller();
+        return (Feed) u.unmarshal(new ByteArrayInputStream(os.toByteArray()));
+    }
+
+    private static List<String> names(Feed feed) {
+        List<String> names = new ArrayList<>();
+        for (Entry e : feed.getEntries())
+            names.add(e.getName());
+        return names;
+    }
+
+    private static String toString(ByteArrayOutputStream os) {
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @XmlRootElement(namespace = "urn:feed")
+    public static class Feed {
+        private List<Entry> entries = new ArrayList<>();
+
+        @XmlElement(name = "entry", namespace = "urn:feed")
+        public List<Entry> getEntries() {
+            return entries;
+        }
+
+        public void setEntries(List<Entry> entries) {
+            this.entries = entries;
+        }
+    }
+
+    @XmlRootElement(namespace = "urn:feed")
+    public static class Entry {
+        private String name;
+        private String note;
+
+        public Entry() {
+        }
+
+        Entry(String name, String note) {
+            this.name = name;
+            this.note = note;
+        }
+
+        @XmlAttribute
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @XmlElement(namespace = "urn:feed")
+        public String getNote() {
+            return note;
+        }
+
+        public void setNote(String note) {
+            this.note = note;
+        }
+    }
+}
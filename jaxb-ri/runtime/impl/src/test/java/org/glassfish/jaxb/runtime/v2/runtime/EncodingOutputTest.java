@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Marshals to an {@link java.io.OutputStream} in ISO-8859-1, US-ASCII and UTF-16.
+ */
+public class EncodingOutputTest extends TestCase {
+
+    private JAXBContext context;
+    private Marshaller m;
+
+    @Override
+    protected void setUp() throws Exception {
+        context = JAXBContext.newInstance(Doc.class);
+        m = context.createMarshaller();
+    }
+
+    public void testLatin1() throws Exception {
+        m.setProperty(Marshaller.JAXB_ENCODING, "ISO-8859-1");
+        String xml = new String(marshal(doc("é€😀\r\n", "<&é>\n")), StandardCharsets.ISO_8859_1);
+        assertEquals("<?xml version=\"1.0\" encoding=\"ISO-8859-1\" standalone=\"yes\"?>"
+                + "<doc a=\"&lt;&amp;é&gt;&#10;\"><text>é&#8364;&#128512;&#13;\n</text></doc>", xml);
+    }
+
+    public void testSameAsOutputStreamWriter() throws Exception {
+        Doc doc = doc("a < b & \"c\" åäö ÿ", "x'y");
+        for (String encoding : new String[]{"ISO-8859-1", "UTF-16BE", "UTF-16LE", "UTF-16"}) {
+            m.setProperty(Marshaller.JAXB_ENCODING, encoding);
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            OutputStreamWriter w = new OutputStreamWriter(expected, encoding);
+            m.marshal(doc, w);
+            w.flush();
+            assertEquals(encoding, new String(expected.toByteArray(), encoding), new String(marshal(doc), encoding));
+            assertTrue(encoding, Arrays.equals(expected.toByteArray(), marshal(doc)));
+        }
+    }
+
+    public void testByteOrderMark() throws Exception {
+        m.setProperty(Marshaller.JAXB_ENCODING, "UTF-16");
+        byte[] b = marshal(doc("x", "y"));
+        assertEquals((byte) 0xFE, b[0]);
+        assertEquals((byte) 0xFF, b[1]);
+        assertEquals('<', b[3]);
+    }
+
+    public void testRoundTrip() throws Exception {
+        Unmarshaller u = context.createUnmarshaller();
+        for (String encoding : new String[]{"US-ASCII", "ISO-8859-1", "UTF-16BE", "UTF-16LE", "UTF-16"}) {
+            m.setProperty(Marshaller.JAXB_ENCODING, encoding);
+            m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            Doc d = (Doc) u.unmarshal(new ByteArrayInputStream(marshal(doc("é€😀 & <x>", "\"€\""))));
+            assertEquals(encoding, "é€😀 & <x>", d.getText());
+            assertEquals(encoding, "\"€\"", d.getA());
+        }
+    }
+
+    private byte[] marshal(Doc doc) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        m.marshal(doc, os);
+        return os.toByteArray();
+    }
+
+    private static Doc doc(String text, String a) {
+        Doc doc = new Doc();
+        doc.setText(text);
+        doc.setA(a);
+        return doc;
+    }
+
+    @XmlRootElement(name = "doc")
+    public static class Doc {
+        private String text;
+        private String a;
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(String text) {
+            this.text = text;
+        }
+
+        @XmlAttribute
+        public String getA() {
+            return a;
+        }
+
+        public void setA(String a) {
+            this.a = a;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.v2.runtime.output.Encoded;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlValue;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Escapes text for the UTF-8 output.
+ */
+public class EscapeTest extends TestCase {
+
+    private static final String ALPHABET = "abcXYZ 019&<>\"\t\r\n'=é€😀";
+
+    public void testEncoded() {
+        Random r = new Random(0);
+        Encoded e = new Encoded();
+        for (int i = 0; i < 5000; i++) {
+            String text = random(r, r.nextInt(40));
+            for (boolean isAttribute : new boolean[]{false, true}) {
+                e.setEscape(text, isAttribute);
+                assertEquals(text, escape(text, isAttribute, false), new String(e.buf, 0, e.len, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    public void testMarshal() throws Exception {
+        Marshaller m = JAXBContext.newInstance(Text.class).createMarshaller();
+        m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        Random r = new Random(1);
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 300; i++)
+            longText.append("clean ascii text ");
+        String[] texts = {"", "plain", "a&b", "&", "tail<", longText.toString(), longText + "<" + longText,
+                random(r, 3000)};
+        for (String text : texts) {
+            Text t = new Text();
+            t.setValue(text);
+            t.setAttr(text);
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            m.marshal(t, os);
+            // the marshaller escapes like MinimumEscapeHandler
+            assertEquals("<text attr=\"" + escape(text, true, true) + "\">" + escape(text, false, true) + "</text>",
+                    new String(os.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String random(Random r, int len) {
+        StringBuilder b = new StringBuilder();
+        while (b.length() < len) {
+            // mostly clean runs of various lengths, sometimes a special character
+            int run = r.nextInt(9);
+            for (int i = 0; i < run; i++)
+                b.append((char) ('a' + r.nextInt(26)));
+            int c = r.nextInt(ALPHABET.length());
+            if (Character.isSurrogate(ALPHABET.charAt(c)))
+                b.append("😀");
+            else
+                b.append(ALPHABET.charAt(c));
+        }
+        return b.toString();
+    }
+
+    /**
+     * Escapes like {@link Encoded} or {@link cn.glassfish.jaxb.core.marshaller.MinimumEscapeHandler}
+     * do, one character at a time.
+     */
+    private static String escape(String text, boolean isAttribute, boolean minimum) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '&':
+                b.append("&amp;");
+                break;
+            case '<':
+                b.append("&lt;");
+                break;
+            case '>':
+                b.append("&gt;");
+                break;
+            case '\r':
+                b.append(minimum ? "&#13;" : "&#xD;");
+                break;
+            case '"':
+                b.append(isAttribute ? "&quot;" : "\"");
+                break;
+            case '\t':
+                b.append(isAttribute && !minimum ? "&#x9;" : "\t");
+                break;
+            case '\n':
+                b.append(isAttribute ? (minimum ? "&#10;" : "&#xA;") : "\n");
+                break;
+            default:
+                b.append(c);
+            }
+        }
+        return b.toString();
+    }
+
+    @XmlRootElement(name = "text")
+    public static class Text {
+        private String value;
+        private String attr;
+
+        @XmlValue
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        @XmlAttribute
+        public String getAttr() {
+            return attr;
+        }
+
+        public void setAttr(String attr) {
+            this.attr = attr;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import com.sun.xml.fastinfoset.sax.SAXDocumentSerializer;
+import com.sun.xml.fastinfoset.stax.StAXDocumentParser;
+import com.sun.xml.fastinfoset.stax.StAXDocumentSerializer;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlList;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unmarshals Fast Infoset documents, including text encoded with an algorithm.
+ */
+public class FastInfosetUnmarshalTest extends TestCase {
+
+    private JAXBContext context;
+
+    @Override
+    protected void setUp() throws Exception {
+        context = JAXBContext.newInstance(Data.class);
+    }
+
+    public void testRoundTrip() throws Exception {
+        Data data = new Data();
+        data.setId("d1");
+        data.setName("a < b");
+        data.setBytes(new byte[] {1, 2, 3});
+        data.getValues().addAll(Arrays.asList(4, 5, 6));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        StAXDocumentSerializer out = new StAXDocumentSerializer(os);
+        context.createMarshaller().marshal(data, (XMLStreamWriter) out);
+        out.close();
+
+        Data read = unmarshal(os);
+        assertEquals("d1", read.getId());
+        assertEquals("a < b", read.getName());
+        assertTrue(Arrays.equals(new byte[] {1, 2, 3}, read.getBytes()));
+        assertEquals(Arrays.asList(4, 5, 6), read.getValues());
+    }
+
+    public void testIntAlgorithm() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        SAXDocumentSerializer out = new SAXDocumentSerializer();
+        out.setOutputStream(os);
+        out.startDocument();
+        AttributesImpl atts = new AttributesImpl();
+        atts.addAttribute("", "id", "id", "CDATA", "d2");
+        out.startElement("", "data", "data", atts);
+        out.startElement("", "values", "values", new AttributesImpl());
+        out.ints(new int[] {7, -8, 9}, 0, 3);
+        out.endElement("", "values", "values");
+        out.startElement("", "name", "name", new AttributesImpl());
+        out.ints(new int[] {10}, 0, 1);
+        out.endElement("", "name", "name");
+        out.endElement("", "data", "data");
+        out.endDocument();
+
+        Data read = unmarshal(os);
+        assertEquals("d2", read.getId());
+        assertEquals(Arrays.asList(7, -8, 9), read.getValues());
+        assertEquals("10", read.getName());
+    }
+
+    private Data unmarshal(ByteArrayOutputStream os) throws Exception {
+        StAXDocumentParser in = new StAXDocumentParser(new ByteArrayInputStream(os.toByteArray()));
+        return (Data) context.createUnmarshaller().unmarshal(in);
+    }
+
+    @XmlRootElement
+    public static class Data {
+        private String id;
+        private String name;
+        private byte[] bytes;
+        private List<Integer> values = new ArrayList<>();
+
+        @XmlAttribute
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public void setBytes(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @XmlList
+        public List<Integer> getValues() {
+            return values;
+        }
+
+        public void setValues(List<Integer> values) {
+            this.values = values;
+        }
+    }
+}
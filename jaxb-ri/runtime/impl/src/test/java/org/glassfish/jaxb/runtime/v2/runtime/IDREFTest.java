@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.IDResolver;
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.UnmarshallerImpl;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlID;
+import jakarta.xml.bind.annotation.XmlIDREF;
+import jakarta.xml.bind.annotation.XmlList;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Resolves backward and forward IDREFs with the default and a custom {@link IDResolver}.
+ */
+public class IDREFTest extends TestCase {
+
+    private static final String XML = "<graph>"
+            + "<node id='a' next='b' links='b c'/>"
+            + "<node id='b' next='a' links='a'/>"
+            + "<node id='c' next='c' links=''/>"
+            + "</graph>";
+
+    public void testDefaultResolver() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Graph.class).createUnmarshaller();
+        u.setProperty(UnmarshallerImpl.EXPECTED_ID_COUNT, 3);
+        assertEquals(3, u.getProperty(UnmarshallerImpl.EXPECTED_ID_COUNT));
+        check((Graph) u.unmarshal(new StringReader(XML)));
+        // the unmarshaller can be reused
+        check((Graph) u.unmarshal(new StringReader(XML)));
+    }
+
+    public void testCustomResolver() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Graph.class).createUnmarshaller();
+        u.setProperty(IDResolver.class.getName(), new IDResolver() {
+            private final Map<String, Object> ids = new HashMap<>();
+
+            @Override
+            public void bind(String id, Object obj) {
+                ids.put(id, obj);
+            }
+
+            @Override
+            public Callable<?> resolve(String id, Class targetType) {
+                return () -> ids.get(id);
+            }
+        });
+        check((Graph) u.unmarshal(new StringReader(XML)));
+    }
+
+    private static void check(Graph g) {
+        Node a = g.getNodes().get(0), b = g.getNodes().get(1), c = g.getNodes().get(2);
+        assertSame(b, a.getNext());
+        assertSame(a, b.getNext());
+        assertSame(c, c.getNext());
+        assertEquals(List.of(b, c), a.getLinks());
+        assertEquals(List.of(a), b.getLinks());
+    }
+
+    @XmlRootElement(name = "graph")
+    public static class Graph {
+        private List<Node> nodes = new ArrayList<>();
+
+        @XmlElement(name = "node")
+        public List<Node> getNodes() {
+            return nodes;
+        }
+
+        public void setNodes(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+    }
+
+    public static class Node {
+        private String id;
+        private Node next;
+        private List<Node> links;
+
+        @XmlID
+        @XmlAttribute
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        @XmlIDREF
+        @XmlAttribute
+        public Node getNext() {
+            return next;
+        }
+
+        public void setNext(Node next) {
+            this.next = next;
+        }
+
+        @XmlIDREF
+        @XmlList
+        @XmlAttribute
+        public List<Node> getLinks() {
+            return links;
+        }
+
+        public void setLinks(List<Node> links) {
+            this.links = links;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Round-trips the built-in {@link java.time} bindings.
+ */
+public class JavaTimeTest extends TestCase {
+
+    public void testRoundTrip() throws Exception {
+        Event e = new Event();
+        e.setAt(Instant.parse("2022-03-04T05:06:07.123Z"));
+        e.setDay(LocalDate.of(2022, 3, 4));
+        e.setOffset(OffsetDateTime.of(2022, 3, 4, 5, 6, 7, 0, ZoneOffset.ofHours(2)));
+        e.setLength(Duration.ofMinutes(150));
+
+        JAXBContext context = JAXBContext.newInstance(Event.class);
+
+        // UTF8XmlOutput
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        context.createMarshaller().marshal(e, baos);
+        String xml = baos.toString(StandardCharsets.UTF_8);
+        assertTrue(xml, xml.contains("<at>2022-03-04T05:06:07.123Z</at>"));
+        assertTrue(xml, xml.contains("<day>2022-03-04</day>"));
+        assertTrue(xml, xml.contains("<offset>2022-03-04T05:06:07+02:00</offset>"));
+        assertTrue(xml, xml.contains("<length>PT2H30M</length>"));
+
+        // the other outputs
+        StringWriter sw = new StringWriter();
+        context.createMarshaller().marshal(e, sw);
+        assertEquals(xml, sw.toString());
+
+        Event r = (Event) context.createUnmarshaller().unmarshal(new StringReader(xml));
+        assertEquals(e.getAt(), r.getAt());
+        assertEquals(e.getDay(), r.getDay());
+        assertEquals(e.getOffset(), r.getOffset());
+        assertEquals(e.getLength(), r.getLength());
+    }
+
+    @XmlRootElement(name = "event")
+    public static class Event {
+        private Instant at;
+        private LocalDate day;
+        private OffsetDateTime offset;
+        private Duration length;
+
+        public Instant getAt() {
+            return at;
+        }
+
+        public void setAt(Instant at) {
+            this.at = at;
+        }
+
+        public LocalDate getDay() {
+            return day;
+        }
+
+        public void setDay(LocalDate day) {
+            this.day = day;
+        }
+
+        public OffsetDateTime getOffset() {
+            return offset;
+        }
+
+        public void setOffset(OffsetDateTime offset) {
+            this.offset = offset;
+        }
+
+        public Duration getLength() {
+            return length;
+        }
+
+        public void setLength(Duration length) {
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.marshaller.NamespacePrefixMapper;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.NamespaceContextImpl;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the root element from the namespace bindings computed for an earlier document.
+ */
+public class NamespaceLayoutTest extends TestCase {
+
+    private JAXBContextImpl context;
+    private Doc doc;
+
+    @Override
+    protected void setUp() throws Exception {
+        context = (JAXBContextImpl) JAXBContext.newInstance(Doc.class);
+        doc = new Doc();
+        doc.setId("a&b");
+        for (int i = 0; i < 3; i++) {
+            Item item = new Item();
+            item.setName("n" + i);
+            item.setNote("x" + i);
+            doc.getItems().add(item);
+        }
+    }
+
+    public void testReused() throws Exception {
+        assertNull(context.getNamespaceLayout(false));
+        String first = toStream(doc, null);
+        NamespaceContextImpl.Layout layout = context.getNamespaceLayout(false);
+        assertNotNull(layout);
+        assertNull(context.getNamespaceLayout(true));
+
+        // another marshaller starts from the same bindings
+        assertEquals(first, toStream(doc, null));
+        assertSame(layout, context.getNamespaceLayout(false));
+        assertEquals(expected(doc, null), first);
+    }
+
+    public void testSchemaLocation() throws Exception {
+        toStream(doc, null);
+        String first = toStream(doc, "urn:doc doc.xsd");
+        assertNotNull(context.getNamespaceLayout(true));
+        assertTrue(first, first.contains("xsi:schemaLocation=\"urn:doc doc.xsd\""));
+        assertEquals(expected(doc, "urn:doc doc.xsd"), first);
+        assertEquals(expected(doc, "urn:doc doc.xsd"), toStream(doc, "urn:doc doc.xsd"));
+        assertEquals(expected(doc, null), toStream(doc, null));
+    }
+
+    public void testNamespaceOutsideLayout() throws Exception {
+        // the root element is in a namespace the context doesn't know
+        JAXBElement<Doc> root = new JAXBElement<>(new QName("urn:other", "root"), Doc.class, doc);
+        toStream(doc, null);
+        assertEquals(expected(root, null), toStream(root, null));
+        assertEquals(expected(root, null), toStream(root, null));
+
+        // and in no namespace at all
+        root = new JAXBElement<>(new QName("", "root"), Doc.class, doc);
+        assertEquals(expected(root, null), toStream(root, null));
+        assertEquals(expected(root, null), toStream(root, null));
+    }
+
+    private String toStream(Object o, String schemaLocation) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        createMarshaller(schemaLocation).marshal(o, os);
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Marshals with a user-defined mapper that behaves like the default one,
+     * which declares the bindings one by one.
+     */
+    private String expected(Object o, String schemaLocation) throws Exception {
+        Marshaller m = createMarshaller(schemaLocation);
+        m.setProperty("cn.glassfish.jaxb.namespacePrefixMapper", new SameAsDefault());
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        m.marshal(o, os);
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private Marshaller createMarshaller(String schemaLocation) throws Exception {
+        Marshaller m = context.createMarshaller();
+        if (schemaLocation != null)
+            m.setProperty(Marshaller.JAXB_SCHEMA_LOCATION, schemaLocation);
+        return m;
+    }
+
+    private static final class SameAsDefault extends NamespacePrefixMapper {
+        @Override
+        public String getPreferredPrefix(String namespaceUri, String suggestion, boolean requirePrefix) {
+            if (XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI.equals(namespaceUri))
+                return "xsi";
+            if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(namespaceUri))
+                return "xs";
+            if ("http://www.w3.org/2005/05/xmlmime".equals(namespaceUri))
+                return "xmime";
+            return suggestion;
+        }
+    }
+
+    @XmlRootElement(name = "doc", namespace = "urn:doc")
+    public static class Doc {
+        private String id;
+        private List<Item> items = new ArrayList<>();
+
+        @XmlAttribute(namespace = "urn:att")
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        @XmlElement(name = "item", namespace = "urn:item")
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+    }
+
+    public static class Item {
+        private String name;
+        private String note;
+
+        @XmlElement(namespace = "urn:item")
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @XmlElement(namespace = "")
+        public String getNote() {
+            return note;
+        }
+
+        public void setNote(String note) {
+            this.note = note;
+        }
+    }
+}
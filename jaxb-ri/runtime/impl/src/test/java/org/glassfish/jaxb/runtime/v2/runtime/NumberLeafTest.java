@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlType;
+import jakarta.xml.bind.annotation.XmlValue;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Marshals numbers without printing them to {@link String}s first.
+ */
+public class NumberLeafTest extends TestCase {
+
+    private static final String EXPECTED = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+            + "<numbers><b>-8</b><s>300</s><i>-70000</i><l>-9223372036854775808</l>"
+            + "<f>1.25</f><d>0.30000000000000004</d><boxed>12.34</boxed><nan>NaN</nan><big>1.0E10</big>"
+            + "<value>-0.0</value></numbers>";
+
+    public void testMarshal() throws Exception {
+        Numbers n = new Numbers();
+        n.setB((byte) -8);
+        n.setS((short) 300);
+        n.setI(-70000);
+        n.setL(Long.MIN_VALUE);
+        n.setF(1.25f);
+        n.setD(0.1 + 0.2);
+        n.setBoxed(12.34);
+        n.setNan(Double.NaN);
+        n.setBig(1e10);
+        Value v = new Value();
+        v.setValue(-0.0);
+        n.setValue(v);
+
+        Marshaller m = JAXBContext.newInstance(Numbers.class).createMarshaller();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        m.marshal(n, os);
+        assertEquals(EXPECTED, new String(os.toByteArray(), StandardCharsets.UTF_8));
+
+        StringWriter w = new StringWriter();
+        m.marshal(n, w);
+        assertEquals(EXPECTED, w.toString());
+
+        Numbers back = (Numbers) JAXBContext.newInstance(Numbers.class).createUnmarshaller()
+                .unmarshal(new StringReader(EXPECTED));
+        assertEquals(Long.MIN_VALUE, back.getL());
+        assertEquals(0.1 + 0.2, back.getD());
+    }
+
+    @XmlRootElement(name = "numbers")
+    @XmlType(propOrder = {"b", "s", "i", "l", "f", "d", "boxed", "nan", "big", "value"})
+    public static class Numbers {
+        private byte b;
+        private short s;
+        private int i;
+        private long l;
+        private float f;
+        private double d;
+        private Double boxed;
+        private double nan;
+        private double big;
+        private Value value;
+
+        public byte getB() {
+            return b;
+        }
+
+        public void setB(byte b) {
+            this.b = b;
+        }
+
+        public short getS() {
+            return s;
+        }
+
+        public void setS(short s) {
+            this.s = s;
+        }
+
+        public int getI() {
+            return i;
+        }
+
+        public void setI(int i) {
+            this.i = i;
+        }
+
+        public long getL() {
+            return l;
+        }
+
+        public void setL(long l) {
+            this.l = l;
+        }
+
+        public float getF() {
+            return f;
+        }
+
+        public void setF(float f) {
+            this.f = f;
+        }
+
+        public double getD() {
+            return d;
+        }
+
+        public void setD(double d) {
+            this.d = d;
+        }
+
+        public Double getBoxed() {
+            return boxed;
+        }
+
+        public void setBoxed(Double boxed) {
+            this.boxed = boxed;
+        }
+
+        public double getNan() {
+            return nan;
+        }
+
+        public void setNan(double nan) {
+            this.nan = nan;
+        }
+
+        public double getBig() {
+            return big;
+        }
+
+        public void setBig(double big) {
+            this.big = big;
+        }
+
+        public Value getValue() {
+            return value;
+        }
+
+        public void setValue(Value value) {
+            this.value = value;
+        }
+    }
+
+    public static class Value {
+        private double value;
+
+        @XmlValue
+        public double getValue() {
+            return value;
+        }
+
+        public void setValue(double value) {
+            this.value = value;
+        }
+    }
+}
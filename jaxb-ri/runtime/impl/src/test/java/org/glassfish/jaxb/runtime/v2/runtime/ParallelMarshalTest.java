@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.marshaller.NamespacePrefixMapper;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.PropertyException;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import jakarta.xml.bind.annotation.XmlSeeAlso;
+import junit.framework.TestCase;
+
+import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Marshals large lists in chunks on other threads, and writes them back in order.
+ */
+public class ParallelMarshalTest extends TestCase {
+
+    private JAXBContext context;
+    private ExecutorService executor;
+    private final AtomicInteger tasks = new AtomicInteger();
+
+    @Override
+    protected void setUp() throws Exception {
+        context = JAXBContext.newInstance(Doc.class);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        executor.shutdown();
+    }
+
+    public void testSameOutput() throws Exception {
+        Doc doc = doc(1000);
+        String expected = toStream(context.createMarshaller(), doc);
+
+        Marshaller m = parallel(10);
+        assertEquals(expected, toStream(m, doc));
+        assertTrue(tasks.get() > 1);
+        // the marshaller can be reused
+        assertEquals(expected, toStream(m, doc));
+
+        // the root element is in another namespace than the items
+        Marshaller f = parallel(10);
+        f.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        Marshaller s = context.createMarshaller();
+        s.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        assertEquals(toStream(s, doc), toStream(f, doc));
+    }
+
+    public void testPrefixMapper() throws Exception {
+        Doc doc = doc(100);
+        Marshaller s = context.createMarshaller();
+        s.setProperty("cn.glassfish.jaxb.namespacePrefixMapper", new Mapper());
+        String expected = toStream(s, doc);
+        assertTrue(expected, expected.contains("xmlns:qq=\"urn:q\""));
+
+        Marshaller m = parallel(10);
+        m.setProperty("cn.glassfish.jaxb.namespacePrefixMapper", new Mapper());
+        assertEquals(expected, toStream(m, doc));
+        assertTrue(tasks.get() > 1);
+    }
+
+    public void testBelowThreshold() throws Exception {
+        Doc doc = doc(9);
+        assertEquals(toStream(context.createMarshaller(), doc), toStream(parallel(10), doc));
+        assertEquals(0, tasks.get());
+    }
+
+    public void testOtherOutputs() throws Exception {
+        Doc doc = doc(100);
+
+        // indented and character outputs are written on the calling thread
+        Marshaller m = parallel(10);
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        Marshaller s = context.createMarshaller();
+        s.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        assertEquals(toStream(s, doc), toStream(m, doc));
+
+        StringWriter expected = new StringWriter();
+        context.createMarshaller().marshal(doc, expected);
+        StringWriter actual = new StringWriter();
+        parallel(10).marshal(doc, actual);
+        assertEquals(expected.toString(), actual.toString());
+        assertEquals(0, tasks.get());
+    }
+
+    public void testProperties() throws Exception {
+        Marshaller m = context.createMarshaller();
+        assertNull(m.getProperty(MarshallerImpl.PARALLEL_EXECUTOR));
+        assertEquals(1000, m.getProperty(MarshallerImpl.PARALLEL_THRESHOLD));
+
+        m.setProperty(MarshallerImpl.PARALLEL_EXECUTOR, executor);
+        assertSame(executor, m.getProperty(MarshallerImpl.PARALLEL_EXECUTOR));
+        m.setProperty(MarshallerImpl.PARALLEL_THRESHOLD, 5);
+        assertEquals(5, m.getProperty(MarshallerImpl.PARALLEL_THRESHOLD));
+
+        try {
+            m.setProperty(MarshallerImpl.PARALLEL_THRESHOLD, 0);
+            fail();
+        } catch (PropertyException e) {
+            // expected
+        }
+        try {
+            m.setProperty(MarshallerImpl.PARALLEL_EXECUTOR, "executor");
+            fail();
+        } catch (PropertyException e) {
+            // expected
+        }
+    }
+
+    private Marshaller parallel(int threshold) throws Exception {
+        Marshaller m = context.createMarshaller();
+        m.setProperty(MarshallerImpl.PARALLEL_EXECUTOR, (Executor) r -> {
+            tasks.incrementAndGet();
+            executor.execute(r);
+        });
+        m.setProperty(MarshallerImpl.PARALLEL_THRESHOLD, threshold);
+        return m;
+    }
+
+    private static String toStream(Marshaller m, Object o) throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        m.marshal(o, os);
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Items with markup to escape, nulls, subclasses, and elements and QNames of other namespaces.
+     */
+    private static Doc doc(int n) {
+        Doc doc = new Doc();
+        for (int i = 0; i < n; i++) {
+            Item item = i % 3 == 0 ? new Special() : new Item();
+            item.setName("<n" + i + "&>");
+            item.setNote(i % 5 == 0 ? null : "note " + i);
+            if (i % 4 == 1)
+                item.setRef(new QName("urn:q", "r" + i));
+            if (item instanceof Special)
+                ((Special) item).setLevel(i);
+            doc.getItems().add(i % 7 == 0 ? null : item);
+        }
+        return doc;
+    }
+
+    private static final class Mapper extends NamespacePrefixMapper {
+        @Override
+        public String getPreferredPrefix(String namespaceUri, String suggestion, boolean requirePrefix) {
+            return "urn:q".equals(namespaceUri) ? "qq" : suggestion;
+        }
+    }
+
+    @XmlRootElement(name = "doc", namespace = "urn:doc")
+    @XmlSeeAlso(Special.class)
+    public static class Doc {
+        private List<Item> items = new ArrayList<>();
+
+        @XmlElement(name = "item", namespace = "urn:item", nillable = true)
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+    }
+
+    public static class Item {
+        private String name;
+        private String note;
+        private QName ref;
+
+        @XmlAttribute
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @XmlElement(namespace = "urn:note")
+        public String getNote() {
+            return note;
+        }
+
+        public void setNote(String note) {
+            this.note = note;
+        }
+
+        public QName getRef() {
+            return ref;
+        }
+
+        public void setRef(QName ref) {
+            this.ref = ref;
+        }
+    }
+
+    public static class Special extends Item {
+        private int level;
+
+        public int getLevel() {
+            return level;
+        }
+
+        public void setLevel(int level) {
+            this.level = level;
+        }
+    }
+}
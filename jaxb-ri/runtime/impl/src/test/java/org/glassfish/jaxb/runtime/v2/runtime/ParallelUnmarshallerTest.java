@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.api.JAXBRIContext;
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.ParallelUnmarshaller;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElements;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import javax.xml.namespace.QName;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ParallelUnmarshallerTest extends TestCase {
+
+    private static final String NS = "urn:orders";
+
+    public void testSplit() throws Exception {
+        StringBuilder sb = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?>\n<!-- <order> -->\n"
+                + "<o:orders xmlns:o='" + NS + "' xmlns:x=\"urn:unused\" customer='a&gt;b'>\n");
+        for (int i = 0; i < 1000; i++) {
+            if (i % 100 == 0)
+                sb.append("<o:note>n").append(i).append("</o:note>");
+            if (i % 3 == 0)
+                sb.append("<o:order id='").append(i).append("'/>\n");
+            else if (i % 3 == 1)
+                sb.append("<order xmlns='" + NS + "' id=\"").append(i).append("\"><item>x&lt;").append(i).append("</item></order>\n");
+            else
+                sb.append("<o:order id='").append(i).append("'><o:item><![CDATA[<o:order>]]></o:item><o:item>é</o:item></o:order>\n");
+        }
+        sb.append("</o:orders>");
+        String xml = sb.toString();
+
+        JAXBContext context = JAXBContext.newInstance(Orders.class);
+        Orders expected = (Orders) context.createUnmarshaller().unmarshal(new StringReader(xml));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger tasks = new AtomicInteger();
+            ParallelUnmarshaller pu = new ParallelUnmarshaller((JAXBRIContext) context, new QName(NS, "order"), Order.class,
+                    r -> {
+                        tasks.incrementAndGet();
+                        executor.execute(r);
+                    });
+            pu.setBatchSize(1000);
+            ByteBuffer buf = ByteBuffer.wrap(xml.getBytes(StandardCharsets.UTF_8));
+            Orders actual = (Orders) pu.unmarshal(buf);
+            assertEquals(0, buf.position());
+            assertTrue(tasks.get() > 10);
+
+            assertEquals(expected.getCustomer(), actual.getCustomer());
+            assertEquals(expected.getNotes(), actual.getNotes());
+            assertEquals(1000, actual.getOrders().size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, actual.getOrders().get(i).getId());
+                assertEquals(expected.getOrders().get(i).getItems(), actual.getOrders().get(i).getItems());
+            }
+
+            // falls back to the plain unmarshalling
+            String withDoctype = "<!DOCTYPE orders>" + xml.substring(xml.indexOf("<o:orders"));
+            tasks.set(0);
+            actual = (Orders) pu.unmarshal(ByteBuffer.wrap(withDoctype.getBytes(StandardCharsets.UTF_8)));
+            assertEquals(1000, actual.getOrders().size());
+            assertEquals(0, tasks.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testXmlDeclaration() throws Exception {
+        StringBuilder body = new StringBuilder("<orders xmlns='" + NS + "'>");
+        for (int i = 0; i < 10; i++)
+            body.append("<order id='").append(i).append("'/>");
+        body.append("</orders>");
+
+        JAXBContext context = JAXBContext.newInstance(Orders.class);
+        AtomicInteger tasks = new AtomicInteger();
+        ParallelUnmarshaller pu = new ParallelUnmarshaller((JAXBRIContext) context, new QName(NS, "order"), Order.class,
+                r -> {
+                    tasks.incrementAndGet();
+                    r.run();
+                });
+        pu.setBatchSize(1);
+
+        // any whitespace may follow "<?xml"
+        assertEquals(0, parallel(pu, tasks, "<?xml\tversion='1.0' encoding='ISO-8859-1'?>" + body));
+        assertEquals(0, parallel(pu, tasks, "<?xml\r\nversion='1.0' encoding='ISO-8859-1'?>" + body));
+        // ASCII is a subset of UTF-8
+        assertEquals(10, parallel(pu, tasks, "<?xml\nversion='1.0' encoding='US-ASCII'?>" + body));
+        assertEquals(10, parallel(pu, tasks, "<?xml version='1.0' encoding='ascii'?>" + body));
+        assertEquals(10, parallel(pu, tasks, "<?xml version='1.0'?>" + body));
+    }
+
+    private static int parallel(ParallelUnmarshaller pu, AtomicInteger tasks, String xml) throws Exception {
+        tasks.set(0);
+        Orders orders = (Orders) pu.unmarshal(ByteBuffer.wrap(xml.getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals(10, orders.getOrders().size());
+        for (int i = 0; i < 10; i++)
+            assertEquals(i, orders.getOrders().get(i).getId());
+        return tasks.get();
+    }
+
+    public void testSharedProperty() throws Exception {
+        StringBuilder sb = new StringBuilder("<entries xmlns='" + NS + "'>");
+        for (int i = 0; i < 10; i++) {
+            if (i % 4 == 0)
+                sb.append("<special id='").append(i).append("'/>");
+            else
+                sb.append("<order id='").append(i).append("'/>");
+        }
+        sb.append("</entries>");
+
+        JAXBContext context = JAXBContext.newInstance(Entries.class);
+        ParallelUnmarshaller pu = new ParallelUnmarshaller((JAXBRIContext) context, new QName(NS, "order"), Order.class, Runnable::run);
+        pu.setBatchSize(1);
+        Entries entries = (Entries) pu.unmarshal(ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8)));
+
+        // the children stay in document order among the other elements of the property
+        assertEquals(10, entries.getEntries().size());
+        for (int i = 0; i < 10; i++) {
+            Object e = entries.getEntries().get(i);
+            assertEquals(i % 4 == 0 ? Special.class : Order.class, e.getClass());
+            assertEquals(i, e instanceof Special ? ((Special) e).getId() : ((Order) e).getId());
+        }
+    }
+
+    @XmlRootElement(name = "entries", namespace = NS)
+    public static class Entries {
+        private List<Object> entries = new ArrayList<>();
+
+        @XmlElements({
+                @XmlElement(name = "order", namespace = NS, type = Order.class),
+                @XmlElement(name = "special", namespace = NS, type = Special.class)
+        })
+        public List<Object> getEntries() {
+            return entries;
+        }
+
+        public void setEntries(List<Object> entries) {
+            this.entries = entries;
+        }
+    }
+
+    public static class Special {
+        private int id;
+
+        @XmlAttribute
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+    }
+
+    @XmlRootElement(name = "orders", namespace = NS)
+    public static class Orders {
+        private String customer;
+        private List<String> notes = new ArrayList<>();
+        private List<Order> orders = new ArrayList<>();
+
+        @XmlAttribute
+        public String getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(String customer) {
+            this.customer = customer;
+        }
+
+        @XmlElement(name = "note", namespace = NS)
+        public List<String> getNotes() {
+            return notes;
+        }
+
+        public void setNotes(List<String> notes) {
+            this.notes = notes;
+        }
+
+        @XmlElement(name = "order", namespace = NS)
+        public List<Order> getOrders() {
+            return orders;
+        }
+
+        public void setOrders(List<Order> orders) {
+            this.orders = orders;
+        }
+    }
+
+    public static class Order {
+        private int id;
+        private List<String> items = new ArrayList<>();
+
+        @XmlAttribute
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        @XmlElement(name = "item", namespace = NS)
+        public List<String> getItems() {
+            return items;
+        }
+
+        public void setItems(List<String> items) {
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.v2.runtime.unmarshaller.UnmarshallerImpl;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import javax.xml.stream.XMLInputFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unmarshals some of the properties with {@link UnmarshallerImpl#PROJECTION}.
+ */
+public class ProjectionTest extends TestCase {
+
+    private static final String XML = "<catalog name='c'>"
+            + "<book isbn='1'><title>A</title><chapter><p xmlns='urn:x'>text<b/></p></chapter><chapter/></book>"
+            + "<book isbn='2'><title>B</title><chapter><chapter/></chapter></book>"
+            + "<owner>o</owner>"
+            + "</catalog>";
+
+    public void testProjection() throws Exception {
+        Unmarshaller u = JAXBContext.newInstance(Catalog.class).createUnmarshaller();
+        Map<Class<?>, Set<String>> projection = Map.of(
+                Catalog.class, Set.of("books"),
+                Book.class, Set.of("title"));
+        u.setProperty(UnmarshallerImpl.PROJECTION, projection);
+        assertEquals(projection, u.getProperty(UnmarshallerImpl.PROJECTION));
+        List<Object> created = new ArrayList<>();
+        u.setListener(new Unmarshaller.Listener() {
+            @Override
+            public void afterUnmarshal(Object target, Object parent) {
+                created.add(target);
+            }
+        });
+
+        check((Catalog) u.unmarshal(new StringReader(XML)));
+        assertEquals(3, created.size());    // no chapters
+
+        check((Catalog) u.unmarshal(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(XML))));
+
+        u.setProperty(UnmarshallerImpl.PROJECTION, null);
+        Catalog all = (Catalog) u.unmarshal(new StringReader(XML));
+        assertEquals("c", all.getName());
+        assertEquals("o", all.getOwner());
+        assertEquals(2, all.getBooks().get(0).getChapters().size());
+    }
+
+    private static void check(Catalog c) {
+        assertNull(c.getName());
+        assertNull(c.getOwner());
+        assertEquals(2, c.getBooks().size());
+        assertEquals("A", c.getBooks().get(0).getTitle());
+        assertEquals("B", c.getBooks().get(1).getTitle());
+        assertNull(c.getBooks().get(0).getIsbn());
+        assertTrue(c.getBooks().get(0).getChapters().isEmpty());
+    }
+
+    @XmlRootElement(name = "catalog")
+    public static class Catalog {
+        private String name;
+        private String owner;
+        private List<Book> books = new ArrayList<>();
+
+        @XmlAttribute
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @XmlElement(name = "owner")
+        public String getOwner() {
+            return owner;
+        }
+
+        public void setOwner(String owner) {
+            this.owner = owner;
+        }
+
+        @XmlElement(name = "book")
+        public List<Book> getBooks() {
+            return books;
+        }
+
+        public void setBooks(List<Book> books) {
+            this.books = books;
+        }
+    }
+
+    public static class Book {
+        private String isbn;
+        private String title;
+        private List<Chapter> chapters = new ArrayList<>();
+
+        @XmlAttribute
+        public String getIsbn() {
+            return isbn;
+        }
+
+        public void setIsbn(String isbn) {
+            this.isbn = isbn;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        @XmlElement(name = "chapter")
+        public List<Chapter> getChapters() {
+            return chapters;
+        }
+
+        public void setChapters(List<Chapter> chapters) {
+            this.chapters = chapters;
+        }
+    }
+
+    public static class Chapter {
+        private List<Chapter> chapters = new ArrayList<>();
+
+        @XmlElement(name = "chapter")
+        public List<Chapter> getChapters() {
+            return chapters;
+        }
+
+        public void setChapters(List<Chapter> chapters) {
+            this.chapters = chapters;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.runtime.marshaller.NamespacePrefixMapper;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the tags of the UTF-8 output from pre-encoded templates.
+ */
+public class TagTemplatesTest extends TestCase {
+
+    private Marshaller m;
+    private Doc doc;
+
+    @Override
+    protected void setUp() throws Exception {
+        m = JAXBContext.newInstance(Doc.class).createMarshaller();
+        doc = new Doc();
+        for (int i = 0; i < 3; i++) {
+            Item item = new Item();
+            item.setName("n" + i);
+            item.setValue(i == 1 ? null : "é" + i);
+            doc.getItems().add(item);
+        }
+    }
+
+    public void testSameAsWriter() throws Exception {
+        assertEquals(toWriter(), toStream());
+        // the templates are reused for the next document
+        assertEquals(toWriter(), toStream());
+
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        assertEquals(toWriter(), toStream());
+    }
+
+    public void testPrefixChange() throws Exception {
+        String first = toStream();
+        assertTrue(first, first.contains("<item><name>n0</name>"));
+
+        // the same elements with other prefixes
+        m.setProperty("cn.glassfish.jaxb.namespacePrefixMapper", new Mapper("a", "b"));
+        String second = toStream();
+        assertEquals(toWriter(), second);
+        assertTrue(second, second.contains("<b:item><b:name>n0</b:name><b:value>é0</b:value></b:item>"));
+        assertTrue(second, second.startsWith("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><a:doc "));
+        assertTrue(second, second.endsWith("</a:doc>"));
+
+        // and the other way round
+        m.setProperty("cn.glassfish.jaxb.namespacePrefixMapper", new Mapper("", "c"));
+        String third = toStream();
+        assertEquals(toWriter(), third);
+        assertTrue(third, third.contains("<doc xmlns:c=\"urn:item\" xmlns=\"urn:doc\"><c:item><c:name>n0</c:name>"));
+        assertTrue(third, third.endsWith("</doc>"));
+    }
+
+    private String toStream() throws Exception {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        m.marshal(doc, os);
+        return new String(os.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String toWriter() throws Exception {
+        StringWriter w = new StringWriter();
+        m.marshal(doc, w);
+        return w.toString();
+    }
+
+    private static final class Mapper extends NamespacePrefixMapper {
+        private final String docPrefix;
+        private final String itemPrefix;
+
+        Mapper(String docPrefix, String itemPrefix) {
+            this.docPrefix = docPrefix;
+            this.itemPrefix = itemPrefix;
+        }
+
+        @Override
+        public String getPreferredPrefix(String namespaceUri, String suggestion, boolean requirePrefix) {
+            if (namespaceUri.equals("urn:doc"))
+                return docPrefix;
+            if (namespaceUri.equals("urn:item"))
+                return itemPrefix;
+            return suggestion;
+        }
+    }
+
+    @XmlRootElement(name = "doc", namespace = "urn:doc")
+    public static class Doc {
+        private List<Item> items = new ArrayList<>();
+
+        @XmlElement(name = "item", namespace = "urn:item")
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+    }
+
+    public static class Item {
+        private String name;
+        private String value;
+
+        @XmlElement(namespace = "urn:item")
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @XmlElement(namespace = "urn:item")
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
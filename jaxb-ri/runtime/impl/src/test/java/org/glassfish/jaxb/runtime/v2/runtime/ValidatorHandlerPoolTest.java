@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.UnmarshalException;
+import jakarta.xml.bind.Unmarshaller;
+import jakarta.xml.bind.UnmarshallerHandler;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+import javax.xml.validation.ValidatorHandler;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * Reuses {@link javax.xml.validation.ValidatorHandler}s across validated (un)marshalling.
+ */
+public class ValidatorHandlerPoolTest extends TestCase {
+
+    private static final String XSD = "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema'>"
+            + "<xs:element name='point'><xs:complexType><xs:sequence>"
+            + "<xs:element name='x' type='xs:int'/><xs:element name='y' type='xs:int'/>"
+            + "</xs:sequence></xs:complexType></xs:element>"
+            + "</xs:schema>";
+
+    public void testReuse() throws Exception {
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                .newSchema(new StreamSource(new StringReader(XSD)));
+        JAXBContextImpl context = (JAXBContextImpl) JAXBContext.newInstance(Point.class);
+        ValidatorHandlerPool pool = context.getValidatorHandlerPool(schema);
+        assertSame(schema, pool.getSchema());
+
+        for (int i = 0; i < 3; i++) {
+            Unmarshaller u = context.createUnmarshaller();
+            u.setSchema(schema);
+            Point p = (Point) u.unmarshal(new StringReader("<point><x>" + i + "</x><y>2</y></point>"));
+            assertEquals(i, p.getX());
+
+            Marshaller m = context.createMarshaller();
+            m.setSchema(schema);
+            m.marshal(p, new StringWriter());
+        }
+
+        Unmarshaller u = context.createUnmarshaller();
+        u.setSchema(schema);
+        try {
+            u.unmarshal(new StringReader("<point><x>a</x><y>2</y></point>"));
+            fail();
+        } catch (UnmarshalException e) {
+            // expected
+        }
+        u.unmarshal(new StringReader("<point><x>1</x><y>2</y></point>"));
+
+        assertSame(pool, context.getValidatorHandlerPool(schema));
+        assertEquals(8, pool.getTakenCount());
+        // handlers are reused, unless the garbage collector discarded them
+        assertTrue(pool.getCreatedCount() < pool.getTakenCount());
+        assertTrue(pool.getCreationTime() > 0);
+    }
+
+    public void testFragment() throws Exception {
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                .newSchema(new StreamSource(new StringReader(XSD)));
+        JAXBContextImpl context = (JAXBContextImpl) JAXBContext.newInstance(Point.class);
+        ValidatorHandlerPool pool = context.getValidatorHandlerPool(schema);
+
+        // a handler that is given back in the middle of a document
+        ValidatorHandler v = pool.take();
+        v.startDocument();
+        v.startElement("", "point", "point", new AttributesImpl());
+        pool.recycle(v);
+
+        Point p = new Point();
+        p.setX(1);
+        for (int i = 0; i < 3; i++) {
+            Marshaller m = context.createMarshaller();
+            m.setSchema(schema);
+            m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            StringWriter sw = new StringWriter();
+            m.marshal(p, sw);
+            assertEquals("<point><x>1</x><y>0</y></point>", sw.toString());
+        }
+        assertTrue(pool.getCreatedCount() < pool.getTakenCount());
+    }
+
+    public void testHandlerReused() throws Exception {
+        Schema schema = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+                .newSchema(new StreamSource(new StringReader(XSD)));
+        JAXBContext context = JAXBContext.newInstance(Point.class);
+        Unmarshaller u = context.createUnmarshaller();
+        u.setSchema(schema);
+        UnmarshallerHandler h = u.getUnmarshallerHandler();
+        parse(h, 1, 2);
+
+        // a second document through the same handler, with another unmarshaller in between
+        h.startDocument();
+        h.startElement("", "point", "point", new AttributesImpl());
+        element(h, "x", "3");
+        Unmarshaller u2 = context.createUnmarshaller();
+        u2.setSchema(schema);
+        assertEquals(5, ((Point) u2.unmarshal(new StringReader("<point><x>5</x><y>6</y></point>"))).getX());
+        element(h, "y", "4");
+        h.endElement("", "point", "point");
+        h.endDocument();
+        assertEquals(3, ((Point) h.getResult()).getX());
+    }
+
+    private static void parse(UnmarshallerHandler h, int x, int y) throws Exception {
+        h.startDocument();
+        h.startElement("", "point", "point", new AttributesImpl());
+        element(h, "x", String.valueOf(x));
+        element(h, "y", String.valueOf(y));
+        h.endElement("", "point", "point");
+        h.endDocument();
+        assertEquals(x, ((Point) h.getResult()).getX());
+    }
+
+    private static void element(UnmarshallerHandler h, String name, String text) throws Exception {
+        h.startElement("", name, name, new AttributesImpl());
+        h.characters(text.toCharArray(), 0, text.length());
+        h.endElement("", name, name);
+    }
+
+    @XmlRootElement(name = "point")
+    public static class Point {
+        private int x;
+        private int y;
+
+        public int getX() {
+            return x;
+        }
+
+        public void setX(int x) {
+            this.x = x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public void setY(int y) {
+            this.y = y;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import cn.glassfish.jaxb.core.marshaller.DataWriter;
+import cn.glassfish.jaxb.core.marshaller.MinimumEscapeHandler;
+import cn.glassfish.jaxb.core.marshaller.XMLWriter;
+import cn.glassfish.jaxb.runtime.v2.runtime.output.SAXOutput;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.Marshaller;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Marshals to a {@link java.io.Writer} without going through SAX.
+ */
+public class WriterXmlOutputTest extends TestCase {
+
+    private MarshallerImpl m;
+    private Doc doc;
+
+    @Override
+    protected void setUp() throws Exception {
+        m = (MarshallerImpl) JAXBContext.newInstance(Doc.class).createMarshaller();
+        doc = new Doc();
+        doc.setId("a\"b\n<&>\r");
+        doc.setTitle("x < y & z > w\n\"q\"\r" + "é€😀");
+        for (int i = 0; i < 3; i++) {
+            Item item = new Item();
+            item.setValue(i == 1 ? "" : "v" + i);
+            doc.getItems().add(item);
+        }
+        doc.getItems().add(new Item());
+        doc.setNumber(-42);
+        doc.setData(new byte[]{1, 2, 3, 4, 5});
+    }
+
+    public void testSameAsOutputStream() throws Exception {
+        StringWriter w = new StringWriter();
+        m.marshal(doc, w);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        m.marshal(doc, os);
+        assertEquals(new String(os.toByteArray(), StandardCharsets.UTF_8), w.toString());
+
+        // buffer is reused
+        StringWriter w2 = new StringWriter();
+        m.marshal(doc, w2);
+        assertEquals(w.toString(), w2.toString());
+    }
+
+    public void testSameAsXMLWriter() throws Exception {
+        StringWriter w = new StringWriter();
+        m.marshal(doc, w);
+        StringWriter expected = new StringWriter();
+        XMLWriter xw = new XMLWriter(expected, "UTF-8", MinimumEscapeHandler.theInstance);
+        m.marshal(doc, new SAXOutput(xw));
+        assertEquals(expected.toString(), w.toString());
+    }
+
+    public void testFormatted() throws Exception {
+        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+        m.setProperty(Marshaller.JAXB_FRAGMENT, true);
+        StringWriter w = new StringWriter();
+        m.marshal(doc, w);
+
+        StringWriter expected = new StringWriter();
+        DataWriter dw = new DataWriter(expected, "UTF-8", MinimumEscapeHandler.theInstance);
+        dw.setIndentStep("    ");
+        dw.setXmlDecl(false);
+        m.marshal(doc, new SAXOutput(dw));
+        assertEquals(expected.toString(), w.toString());
+        assertTrue(w.toString().contains("\n    <item>\n        <value>v0</value>\n    </item>"));
+    }
+
+    public void testOtherEncoding() throws Exception {
+        m.setProperty(Marshaller.JAXB_ENCODING, "US-ASCII");
+        StringWriter w = new StringWriter();
+        m.marshal(doc, w);
+        assertTrue(w.toString().startsWith("<?xml version=\"1.0\" encoding=\"US-ASCII\" standalone=\"yes\"?>"));
+        // characters that the encoding can't represent are escaped
+        assertTrue(w.toString().contains("&#233;&#8364;"));
+    }
+
+    @XmlRootElement(name = "doc")
+    public static class Doc {
+        private String id;
+        private String title;
+        private List<Item> items = new ArrayList<>();
+        private int number;
+        private byte[] data;
+
+        @XmlAttribute
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+
+        @XmlElement(name = "item")
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public void setNumber(int number) {
+            this.number = number;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public void setData(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    public static class Item {
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022 Oracle and/or its affiliates. All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0, which is available at
+ * http://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package cn.glassfish.jaxb.runtime.v2.runtime;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.UnmarshalException;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import junit.framework.TestCase;
+import org.xml.sax.XMLReader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shares JAXP factories and {@link XMLReader}s between the unmarshallers of a context.
+ */
+public class XMLReaderPoolTest extends TestCase {
+
+    public void testSharedFactories() throws Exception {
+        JAXBContextImpl context = (JAXBContextImpl) JAXBContext.newInstance(Item.class);
+        assertSame(context.getParserFactory(), context.getParserFactory());
+        assertFalse(context.getParserFactory().isValidating());
+        assertTrue(context.getParserFactory().isNamespaceAware());
+        assertSame(context.getTransformerFactory(), context.getTransformerFactory());
+
+        // they aren't shared with other contexts, which may see other class loaders
+        JAXBContextImpl other = (JAXBContextImpl) JAXBContext.newInstance(Item.class);
+        assertNotSame(context.getParserFactory(), other.getParserFactory());
+        assertNotSame(context.getTransformerFactory(), other.getTransformerFactory());
+    }
+
+    public void testReaderPool() throws Exception {
+        JAXBContextImpl context = (JAXBContextImpl) JAXBContext.newInstance(Item.class);
+        XMLReader reader = context.xmlReaderPool.take();
+        context.xmlReaderPool.recycle(reader);
+
+        for (int i = 0; i < 3; i++) {
+            Item item = (Item) context.createUnmarshaller().unmarshal(stream("<item><name>n" + i + "</name></item>"));
+            assertEquals("n" + i, item.getName());
+        }
+        // the reader went back to the pool after each document
+        assertSame(reader, context.xmlReaderPool.take());
+        context.xmlReaderPool.recycle(reader);
+
+        try {
+            context.createUnmarshaller().unmarshal(stream("<item><name>"));
+            fail();
+        } catch (UnmarshalException e) {
+            // expected
+        }
+        // the reader that failed is dropped
+        assertNotSame(reader, context.xmlReaderPool.take());
+    }
+
+    private static ByteArrayInputStream stream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @XmlRootElement(name = "item")
+    public static class Item {
+        private String name;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}